@@ -0,0 +1,63 @@
+package com.example.scancard;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 全局共享的线程池：页面里不再各自 new Thread()
+ */
+public class AppExecutors {
+
+    // 数据库读写（历史分页、检索），单线程保证先后顺序
+    private static final ExecutorService DISK_IO =
+            Executors.newSingleThreadExecutor(named("disk-io"));
+
+    // 单张识别：固定 2 个线程 + 有界队列，点得再快线程数和排队内存也不会涨；空闲 30 秒回收线程
+    private static final ThreadPoolExecutor OCR = newOcrExecutor();
+
+    // 图片解码（拍照预览、历史缩略图）：2 个线程，不占识别和数据库线程
+    private static final ExecutorService IMAGE =
+            Executors.newFixedThreadPool(2, named("image"));
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    public static ExecutorService diskIO() {
+        return DISK_IO;
+    }
+
+    public static ExecutorService ocr() {
+        return OCR;
+    }
+
+    public static ExecutorService image() {
+        return IMAGE;
+    }
+
+    public static void main(Runnable r) {
+        MAIN.post(r);
+    }
+
+    private static ThreadPoolExecutor newOcrExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(8), named("ocr"));   // 队列满时 submit 抛 RejectedExecutionException
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    static ThreadFactory named(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
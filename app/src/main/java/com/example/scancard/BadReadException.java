@@ -0,0 +1,13 @@
+package com.example.scancard;
+
+/**
+ * 识别结果没通过本地校验（卡号 / 身份证号校验位不对、发卡行或出生日期对不上等），疑似读错，没有写进历史，需要重拍
+ */
+public class BadReadException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public BadReadException(String message) {
+        super(message);
+    }
+}
@@ -4,18 +4,17 @@ import android.Manifest;
 import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
+import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Base64;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast; // 关键逻辑：Toast 提示
@@ -23,28 +22,39 @@ import android.widget.Toast; // 关键逻辑：Toast 提示
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.FileProvider;
 
-import org.json.JSONObject;
-
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.InputStream;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 public class BankCardActivity extends AppCompatActivity {
 
+    // 卡号校验失败时最多连续自动重拍几次，避免一直对着同一张读不准的卡循环
+    private static final int MAX_AUTO_RESCANS = 2;
+
     private Button btnCamera;               // 拍照
+    private Button btnPreview;              // 取景自动识别
+    private Button btnBatch;                // 批量导入
     private ProgressBar progress;           // 加载圈
     private ImageView ivPhoto;              // 预览
     private Button btnCopy;                 // 复制
     private TextView tvResult;              // 结果
-    private LinearLayout layoutHistory;     // 历史容器
+    private EditText etSearch;              // 历史检索
+    private TextView tvQueue;               // 离线队列状态
+    private HistoryListController history;  // 历史列表
 
     private Uri photoUri;                   // 相机输出 Uri
-    private final Handler uiHandler = new Handler(Looper.getMainLooper()); // 主线程 handler
+    private File photoFile;                 // 相机输出文件（没网时入离线队列）
+    private OcrPipeline pipeline;           // 单张识别
+    private BatchOcrPipeline batch;         // 进行中的批量任务
+    private int autoRescans;                // 卡号校验失败后连续自动重拍的次数，识别成功后清零
+    private final OcrJobQueue.Listener queueListener = this::showQueue;
+    private int lastQueueDepth = -1;
+    private int queueFailed;
 
     private final ActivityResultLauncher<String> requestCameraPermissionLauncher =
             registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
@@ -58,26 +68,65 @@ public class BankCardActivity extends AppCompatActivity {
     private final ActivityResultLauncher<Uri> takePictureLauncher =
             registerForActivityResult(new ActivityResultContracts.TakePicture(), success -> {
                 if (success) {
-                    ivPhoto.setImageURI(photoUri);
-                    startOcrFromUri(photoUri);
+                    // 后台只解码一次：预览和识别用同一张图
+                    Uri uri = photoUri;
+                    File photo = photoFile;
+                    setLoading(true);
+                    ImageLoader.loadCaptured(this, ivPhoto, uri, CardType.BANK.spec,
+                            frame -> startOcrFromUri(uri, frame, photo));
                 } else {
                     Toast.makeText(this, "拍照取消/失败", Toast.LENGTH_SHORT).show();
                 }
             });
 
+    // 取景自动识别：识别和写历史都在取景页里完成，这里只展示结果
+    private final ActivityResultLauncher<Intent> previewScanLauncher =
+            registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), result -> {
+                Intent data = result.getData();
+                if (data == null) return;
+                if (result.getResultCode() == RESULT_OK) {
+                    tvResult.setText(data.getStringExtra(PreviewScanActivity.EXTRA_DETAIL));
+                    history.refresh();
+                } else if (data.hasExtra(PreviewScanActivity.EXTRA_ERROR)) {
+                    tvResult.setText("识别异常：" + data.getStringExtra(PreviewScanActivity.EXTRA_ERROR));
+                }
+            });
+
+    // 相册多选：选中的图片走批量流水线
+    private final ActivityResultLauncher<String> pickImagesLauncher =
+            registerForActivityResult(new ActivityResultContracts.GetMultipleContents(), uris -> {
+                if (uris != null && !uris.isEmpty()) {
+                    startBatch(uris);
+                }
+            });
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_bank_card);
+        pipeline = new OcrPipeline(this);
+        // 用户拍照的同时把连接建好，拍完第一张不用再等 DNS / TLS
+        TencentOcrClient.prewarm();
 
         btnCamera = findViewById(R.id.btn_bank_camera);
+        btnPreview = findViewById(R.id.btn_bank_preview);
+        btnBatch = findViewById(R.id.btn_bank_batch);
         progress = findViewById(R.id.progress_bank);
         ivPhoto = findViewById(R.id.iv_bank_photo);
         btnCopy = findViewById(R.id.btn_bank_copy);
         tvResult = findViewById(R.id.tv_bank_result);
-        layoutHistory = findViewById(R.id.layout_bank_history);
-
-        renderHistory();
+        etSearch = findViewById(R.id.et_bank_search);
+        tvQueue = findViewById(R.id.tv_bank_queue);
+
+        // 点击历史回看当时的结果
+        history = new HistoryListController(this, HistoryStore.KEY_BANK,
+                findViewById(R.id.rv_bank_history), findViewById(R.id.tv_bank_history_empty),
+                it -> {
+                    tvResult.setText(it.detail);
+                    PhotoStore.get(this).touch(it.photoPath);
+                    Toast.makeText(this, "已打开历史记录", Toast.LENGTH_SHORT).show();
+                });
+        history.refresh();
 
         // 拍照按钮：先检查权限，再拍照
         btnCamera.setOnClickListener(v -> {
@@ -89,6 +138,33 @@ public class BankCardActivity extends AppCompatActivity {
             }
         });
 
+        // 输入关键字即时检索历史
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                history.setQuery(s.toString());
+            }
+        });
+
+        // 离线队列：点一下立即重试
+        tvQueue.setOnClickListener(v -> onQueueClicked());
+        OcrJobQueue.get(this).addListener(queueListener);
+
+        // 取景自动识别按钮：相机权限在取景页里申请
+        btnPreview.setOnClickListener(v -> previewScanLauncher.launch(
+                PreviewScanActivity.intent(this, CardType.BANK, null)));
+
+        // 批量导入按钮
+        btnBatch.setOnClickListener(v -> pickImagesLauncher.launch("image/*"));
+
         // 复制按钮
         btnCopy.setOnClickListener(v -> {
             String text = tvResult.getText().toString();
@@ -103,12 +179,9 @@ public class BankCardActivity extends AppCompatActivity {
      */
     private void openCameraAndTakePhoto() {
         try {
-            // 1) 创建保存照片的目录
-            File dir = new File(getExternalFilesDir("Pictures"), "ocr"); // Pictures/ocr
-            if (!dir.exists()) dir.mkdirs();
-
-            // 2) 创建照片文件名
-            File file = new File(dir, "bank_" + System.currentTimeMillis() + ".jpg");
+            // 1) 2) 在照片目录（Pictures/ocr）里新建文件，由 PhotoStore 统一清理
+            File file = PhotoStore.get(this).newPhotoFile("bank");
+            photoFile = file;
 
             // 3) 用 FileProvider 把文件转成安全的 Uri
             photoUri = FileProvider.getUriForFile(
@@ -126,177 +199,133 @@ public class BankCardActivity extends AppCompatActivity {
         }
     }
 
-    private void startOcrFromUri(@NonNull Uri uri) {
+    private void startOcrFromUri(@NonNull Uri uri, Bitmap frame, File photo) {
         setLoading(true); // 进入识别中状态
         Toast.makeText(this, "识别中，请稍等...", Toast.LENGTH_SHORT).show();
 
-        new Thread(() -> {
-            try {
-                // 1) 读取并缩放图片
-                Bitmap bitmap = decodeBitmapFromUri(uri, 1200, 1200);
-                if (bitmap == null) {
-                    uiHandler.post(() -> {
+        // 识别流程在共享线程池上跑；页面销毁时自动取消，不会再回调
+        pipeline.submit(this, new OcrPipeline.Request(CardType.BANK, uri, frame, null, photo),
+                new OcrPipeline.Callback() {
+                    @Override
+                    public void onSuccess(HistoryStore.Item item) {
                         setLoading(false);
-                        tvResult.setText("读取图片失败：bitmap=null");
-                        Toast.makeText(this, "识别失败", Toast.LENGTH_SHORT).show();
-                    });
-                    return;
-                }
-
-                // 2) 图片转 Base64
-                String imageBase64 = bitmapToBase64(bitmap, 80);
-
-                // 3) 拼请求体
-                JSONObject body = new JSONObject();
-                body.put("ImageBase64", imageBase64);
-
-                // 4) 调腾讯银行卡 OCR
-                String respJson = TencentOcrClient.callOcr(
-                        "BankCardOCR",
-                        "2018-11-19",
-                        body.toString()
-                );
-
-                // 5) 解析展示
-                String display = parseBank(respJson);
-
-                // 6) 写入历史（最近5条）
-                String brief = "银行卡：点击回看";
-                HistoryStore.add(this, HistoryStore.KEY_BANK, brief, display);
-
-                // 7) 回主线程更新 UI
-                uiHandler.post(() -> {
-                    setLoading(false);
-                    tvResult.setText(display);
-                    Toast.makeText(this, "识别完成", Toast.LENGTH_SHORT).show();
-                    renderHistory();
+                        autoRescans = 0;
+                        tvResult.setText(item.detail);
+                        Toast.makeText(BankCardActivity.this, "识别完成", Toast.LENGTH_SHORT).show();
+                        // 写库失败（id < 0）的记录不进列表，和批量识别一致
+                        if (item.id >= 0) history.prepend(item);
+                    }
+
+                    @Override
+                    public void onFailure(Exception error, boolean queuedOffline) {
+                        setLoading(false);
+                        if (error instanceof ImageQualityException) {
+                            // 没有上传，提示原因让用户重拍
+                            tvResult.setText("请重拍：" + error.getMessage());
+                            Toast.makeText(BankCardActivity.this, error.getMessage(), Toast.LENGTH_SHORT).show();
+                            return;
+                        }
+                        if (error instanceof BadReadException) {
+                            // 卡号读错了：没写历史，拍照来的直接重新打开相机
+                            tvResult.setText("卡号校验不通过，请重拍：" + error.getMessage());
+                            if (photo != null && autoRescans < MAX_AUTO_RESCANS) {
+                                autoRescans++;
+                                Toast.makeText(BankCardActivity.this, "卡号可能识别错了，请重拍", Toast.LENGTH_SHORT).show();
+                                openCameraAndTakePhoto();
+                            }
+                            return;
+                        }
+                        tvResult.setText(queuedOffline
+                                ? "网络不可用，已加入离线队列，联网后自动识别"
+                                : "识别异常：" + error.getMessage());
+                        Toast.makeText(BankCardActivity.this, "识别失败", Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onQualityWarning(String message) {
+                        Toast.makeText(BankCardActivity.this, message, Toast.LENGTH_SHORT).show();
+                    }
                 });
+    }
 
-            } catch (Exception e) {
-                e.printStackTrace();
-                uiHandler.post(() -> {
-                    setLoading(false);
-                    tvResult.setText("识别异常：" + e.getMessage());
-                    Toast.makeText(this, "识别失败", Toast.LENGTH_SHORT).show();
-                });
+    private void startBatch(List<Uri> uris) {
+        setLoading(true);
+        tvResult.setText("批量识别中：0/" + uris.size());
+
+        batch = new BatchOcrPipeline(this, BatchOcrPipeline.Config.bank(), new BatchOcrPipeline.Listener() {
+            @Override
+            public void onItemDone(int index, int done, int total, HistoryStore.Item item, Exception error) {
+                tvResult.setText("批量识别中：" + done + "/" + total +
+                        (error == null ? "" : "\n第 " + (index + 1) + " 张失败：" + error.getMessage()));
+                // 和单张识别一样插到最前面，已经加载的分页保持不动
+                if (error == null && item.id >= 0) history.prepend(item);
             }
-        }).start();
-    }
 
-    private void setLoading(boolean loading) {
-        // 识别中显示进度并禁用按钮（防止用户连点多次请求）
-        progress.setVisibility(loading ? View.VISIBLE : View.GONE);
-        btnCamera.setEnabled(!loading);
-        btnCopy.setEnabled(!loading);
+            @Override
+            public void onFinished(int total, int failed, long elapsedMs, double itemsPerSecond) {
+                batch = null;
+                setLoading(false);
+                tvResult.setText(String.format(Locale.getDefault(),
+                        "批量识别完成：共 %d 张，失败 %d 张\n耗时 %.1f 秒，吞吐 %.2f 张/秒",
+                        total, failed, elapsedMs / 1000.0, itemsPerSecond));
+            }
+        });
+        batch.start(uris);
     }
 
-    private void renderHistory() {
-        layoutHistory.removeAllViews(); // 清空容器
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (batch != null) batch.cancel();
+        OcrJobQueue.get(this).removeListener(queueListener);
+    }
 
-        ArrayList<HistoryStore.Item> list = HistoryStore.load(this, HistoryStore.KEY_BANK);
+    private void showQueue(int depth, long oldestCreatedAt, int failed) {
+        // 队列变短说明有任务补识别完了，刷新历史
+        if (lastQueueDepth > depth) history.refresh();
+        lastQueueDepth = depth;
+        queueFailed = failed;
 
-        if (list.isEmpty()) {
-            TextView tv = new TextView(this);
-            tv.setText("暂无历史记录");
-            tv.setPadding(12, 12, 12, 12);
-            layoutHistory.addView(tv);
+        if (depth == 0 && failed == 0) {
+            tvQueue.setVisibility(View.GONE);
             return;
         }
-
-        for (HistoryStore.Item it : list) {
-            TextView tv = new TextView(this);
-            tv.setPadding(18, 14, 18, 14);
-            tv.setBackgroundColor(0xFFEFEFEF);
-            tv.setText("[" + it.time + "] " + it.brief);
-
-            // 点击历史回看当时的结果
-            tv.setOnClickListener(v -> {
-                tvResult.setText(it.detail);
-                Toast.makeText(this, "已打开历史记录", Toast.LENGTH_SHORT).show();
-            });
-
-            LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(
-                    LinearLayout.LayoutParams.MATCH_PARENT,
-                    LinearLayout.LayoutParams.WRAP_CONTENT
-            );
-            lp.setMargins(0, 0, 0, 10);
-            tv.setLayoutParams(lp);
-
-            layoutHistory.addView(tv);
-        }
-    }
-
-    private String parseBank(String responseJson) {
-        try {
-            JSONObject root = new JSONObject(responseJson);
-            JSONObject resp = root.getJSONObject("Response");
-
-            if (resp.has("Error")) {
-                JSONObject err = resp.getJSONObject("Error");
-                return "调用失败：\nCode=" + err.optString("Code") +
-                        "\nMessage=" + err.optString("Message") +
-                        "\nRequestId=" + resp.optString("RequestId");
-            }
-
-            String cardNo = resp.optString("CardNo");
-            String bankInfo = resp.optString("BankInfo");
-            String cardType = resp.optString("CardType");
-            String cardName = resp.optString("CardName");
-            String validDate = resp.optString("ValidDate");
-
-
-            StringBuilder sb = new StringBuilder();
-            sb.append("银行卡识别结果\n\n");
-            if (!cardNo.isEmpty()) sb.append("卡号：").append(cardNo).append("\n");
-            if (!bankInfo.isEmpty()) sb.append("银行信息：").append(bankInfo).append("\n");
-            if (!cardType.isEmpty()) sb.append("卡类型：").append(cardType).append("\n");
-            if (!cardName.isEmpty()) sb.append("卡名称：").append(cardName).append("\n");
-            if (!validDate.isEmpty()) sb.append("有效期：").append(validDate).append("\n");
-
-            sb.append("\nRequestId：").append(resp.optString("RequestId"));
-            return sb.toString();
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "解析失败：\n" + responseJson;
+        StringBuilder text = new StringBuilder();
+        if (depth > 0) {
+            long minutes = (System.currentTimeMillis() - oldestCreatedAt) / 60_000;
+            text.append("离线队列：").append(depth).append(" 条，最早 ").append(minutes).append(" 分钟前");
         }
-    }
-
-    private Bitmap decodeBitmapFromUri(Uri uri, int reqWidth, int reqHeight) {
-        try {
-            BitmapFactory.Options opts = new BitmapFactory.Options();
-            opts.inJustDecodeBounds = true;
-            InputStream is1 = getContentResolver().openInputStream(uri);
-            BitmapFactory.decodeStream(is1, null, opts);
-            if (is1 != null) is1.close();
-
-            opts.inSampleSize = calculateInSampleSize(opts, reqWidth, reqHeight);
-            opts.inJustDecodeBounds = false;
-
-            InputStream is2 = getContentResolver().openInputStream(uri);
-            Bitmap bitmap = BitmapFactory.decodeStream(is2, null, opts);
-            if (is2 != null) is2.close();
-            return bitmap;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+        if (failed > 0) {
+            if (text.length() > 0) text.append("；");
+            text.append(failed).append(" 张识别失败");
         }
+        text.append(failed > 0 ? "（点击处理）" : "（点击重试）");
+        tvQueue.setVisibility(View.VISIBLE);
+        tvQueue.setText(text);
     }
 
-    private int calculateInSampleSize(BitmapFactory.Options options, int reqWidth, int reqHeight) {
-        int height = options.outHeight;
-        int width = options.outWidth;
-        int inSampleSize = 1;
-        while ((height / inSampleSize) > reqHeight || (width / inSampleSize) > reqWidth) {
-            inSampleSize *= 2;
+    // 有失败的任务时让用户选：再试一次，或丢弃后重新拍
+    private void onQueueClicked() {
+        OcrJobQueue queue = OcrJobQueue.get(this);
+        if (queueFailed == 0) {
+            queue.retryNow();
+            return;
         }
-        return inSampleSize;
+        new AlertDialog.Builder(this)
+                .setTitle(queueFailed + " 张照片识别失败")
+                .setMessage("可能是照片模糊或网络多次失败。可以再试一次，或丢弃后重新拍摄。")
+                .setPositiveButton("再试一次", (d, w) -> queue.retryFailed())
+                .setNegativeButton("丢弃", (d, w) -> queue.dismissFailed())
+                .setNeutralButton("取消", null)
+                .show();
     }
 
-    private String bitmapToBase64(Bitmap bitmap, int jpegQuality) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, jpegQuality, baos);
-        byte[] bytes = baos.toByteArray();
-        return Base64.encodeToString(bytes, Base64.NO_WRAP);
+    private void setLoading(boolean loading) {
+        // 识别中显示进度并禁用按钮（防止用户连点多次请求）
+        progress.setVisibility(loading ? View.VISIBLE : View.GONE);
+        btnCamera.setEnabled(!loading);
+        btnPreview.setEnabled(!loading);
+        btnBatch.setEnabled(!loading);
+        btnCopy.setEnabled(!loading);
     }
 }
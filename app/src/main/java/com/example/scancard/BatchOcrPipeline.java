@@ -0,0 +1,359 @@
+package com.example.scancard;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 批量导入识别：把多张图片按 读取 -> 压缩编码 -> 签名 -> 上传 -> 解析 -> 入库 分成流水线，
+ * 每一段有自己的线程数，同时在途的图片数有上限（避免一次解码几百张 Bitmap 撑爆内存）。
+ * cancel() 之后不再回调 Listener，页面退出后不会被还在跑的阶段回调到。
+ */
+public class BatchOcrPipeline {
+
+    /**
+     * 回调都在主线程执行；cancel() 之后不再回调
+     */
+    public interface Listener {
+        // 每张图片完成（成功或失败）时回调；error 为 null 表示成功，item 是写入历史的记录（失败时为 null）
+        void onItemDone(int index, int done, int total, HistoryStore.Item item, Exception error);
+
+        // 全部完成：总耗时和吞吐（张/秒）
+        void onFinished(int total, int failed, long elapsedMs, double itemsPerSecond);
+    }
+
+    public static class Config {
+        public String action;
+        public String version;
+        public String cardSide;      // 身份证正反面，银行卡为 null
+        public String historyKey;
+        public String brief;
+
+        public ImageEncoder.Spec imageSpec;
+
+        // 各段线程数
+        public int decodeThreads = 2;
+        public int encodeThreads = 2;
+        public int signThreads = 1;
+        public int uploadThreads = 4;
+        public int parseThreads = 1;
+        // 同时在流水线里的图片上限
+        public int maxInFlight = 6;
+
+        public static Config bank() {
+            return of(CardType.BANK, null);
+        }
+
+        public static Config idCard(String cardSide) {
+            return of(CardType.ID_CARD, cardSide);
+        }
+
+        public static Config of(CardType type, String cardSide) {
+            Config c = new Config();
+            c.action = type.action;
+            c.version = CardType.VERSION;
+            c.cardSide = cardSide;
+            c.historyKey = type.historyKey;
+            c.brief = type.brief(cardSide);
+            c.imageSpec = type.spec;
+            return c;
+        }
+
+        /**
+         * 按接口名还原配置（离线队列里只存了 action / cardSide）
+         */
+        public static Config forAction(String action, String cardSide) {
+            return of(CardType.forAction(action), cardSide);
+        }
+    }
+
+    private final Context appContext;
+    private final Config config;
+    private volatile Listener listener;   // cancel() 时清空
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private final ScanMetrics metrics = ScanMetrics.get();
+
+    private final ExecutorService decodePool;
+    private final ExecutorService encodePool;
+    private final ExecutorService signPool;
+    private final ExecutorService uploadPool;
+    private final ExecutorService parsePool;
+    // 写历史：单线程，保证入库顺序和完成顺序一致
+    private final ExecutorService persistPool;
+
+    private final Semaphore inFlight;
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile boolean cancelled;
+
+    private List<Uri> items;
+    private int total;
+    private long startNanos;
+
+    public BatchOcrPipeline(Context ctx, Config config, Listener listener) {
+        this.appContext = ctx.getApplicationContext();
+        this.config = config;
+        this.listener = listener;
+        this.decodePool = Executors.newFixedThreadPool(config.decodeThreads, AppExecutors.named("ocr-decode"));
+        this.encodePool = Executors.newFixedThreadPool(config.encodeThreads, AppExecutors.named("ocr-encode"));
+        this.signPool = Executors.newFixedThreadPool(config.signThreads, AppExecutors.named("ocr-sign"));
+        this.uploadPool = Executors.newFixedThreadPool(config.uploadThreads, AppExecutors.named("ocr-upload"));
+        this.parsePool = Executors.newFixedThreadPool(config.parseThreads, AppExecutors.named("ocr-parse"));
+        this.persistPool = Executors.newSingleThreadExecutor(AppExecutors.named("ocr-persist"));
+        this.inFlight = new Semaphore(config.maxInFlight);
+    }
+
+    public void start(List<Uri> uris) {
+        items = new ArrayList<>(uris);
+        total = items.size();
+        startNanos = System.nanoTime();
+
+        if (total == 0) {
+            finish();
+            return;
+        }
+
+        // 投递线程：拿到名额才放下一张进流水线
+        new Thread(() -> {
+            for (int i = 0; i < items.size(); i++) {
+                if (cancelled) {
+                    skip(i);
+                    continue;
+                }
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancelled = true;
+                    skip(i);
+                    continue;
+                }
+                final int index = i;
+                final Uri uri = items.get(i);
+                submit(decodePool, index, () -> decode(index, uri));
+            }
+        }, "ocr-feeder").start();
+    }
+
+    /**
+     * 停止投递新图片，回调不再送达；各段线程池不再接新任务，已排队的阶段检查到后直接结束，
+     * 跑完手上的任务线程就退出
+     */
+    public void cancel() {
+        cancelled = true;
+        listener = null;
+        uiHandler.removeCallbacksAndMessages(null);
+        shutdownPools();
+    }
+
+    // 1) 读取并精确缩放图片，质量检查后裁出卡片
+    private void decode(int index, Uri uri) {
+        try {
+            if (cancelled) {
+                fail(index, new InterruptedException("已取消"));
+                return;
+            }
+            long t = System.nanoTime();
+            Bitmap bitmap = ImageEncoder.decodeScaled(appContext, uri, config.imageSpec);
+            t = metrics.since(ScanMetrics.DECODE, t);
+            if (bitmap == null) {
+                fail(index, new IllegalStateException("读取图片失败：bitmap=null"));
+                return;
+            }
+            // 明显不合格的图片不上传；批量时没人看提示，WARN 照常识别
+            ImageEncoder.AnalysisFrame frame = ImageEncoder.analysisFrame(bitmap);
+            ImageQualityAnalyzer.Report quality = ImageEncoder.analyzeQuality(frame);
+            t = metrics.since(ScanMetrics.QUALITY, t);
+            if (quality.verdict == ImageQualityAnalyzer.Verdict.REJECT) {
+                BitmapPool.put(bitmap);
+                fail(index, new ImageQualityException(quality));
+                return;
+            }
+            Bitmap card = ImageEncoder.cropCard(bitmap, frame);
+            metrics.since(ScanMetrics.CROP, t);
+            if (!submit(encodePool, index, () -> encode(index, card))) BitmapPool.put(card);
+        } catch (Exception e) {
+            fail(index, e);
+        }
+    }
+
+    // 2) 按字节预算压缩 JPEG，再流式拼成请求体
+    private void encode(int index, Bitmap bitmap) {
+        try {
+            Map<String, String> fields = null;
+            if (config.cardSide != null) {
+                fields = new LinkedHashMap<>();
+                fields.put("CardSide", config.cardSide);
+            }
+            long t = System.nanoTime();
+            ImageEncoder.Result jpeg = ImageEncoder.compress(bitmap, config.imageSpec);
+            metrics.recordBytes(ScanMetrics.BYTES_JPEG, jpeg.bytes());
+            t = metrics.since(ScanMetrics.JPEG, t);
+            OcrPayload payload = jpeg.toPayload(fields);
+            metrics.since(ScanMetrics.PAYLOAD, t);
+            if (!submit(signPool, index, () -> sign(index, payload))) payload.release();
+        } catch (Exception e) {
+            fail(index, e);
+        }
+    }
+
+    // 3) 先查缓存，命中直接去解析；否则选地域、签名
+    private void sign(int index, OcrPayload payload) {
+        boolean handedOff = false;
+        try {
+            if (cancelled) {
+                fail(index, new InterruptedException("已取消"));
+                return;
+            }
+            OcrReply cached = OcrCache.get(appContext).peek(config.action, config.version, payload);
+            if (cached != null) {
+                submit(parsePool, index, () -> parse(index, cached));
+                return;
+            }
+            TencentOcrClient.Signed signed = TencentOcrClient.sign(config.action, config.version, payload);
+            handedOff = submit(uploadPool, index, () -> upload(index, payload, signed));
+        } catch (Exception e) {
+            fail(index, e);
+        } finally {
+            if (!handedOff) payload.release();
+        }
+    }
+
+    // 4) 上传签好的请求（太旧或重试时客户端会重签）；结果照常进缓存
+    private void upload(int index, OcrPayload payload, TencentOcrClient.Signed signed) {
+        try {
+            if (cancelled) {
+                fail(index, new InterruptedException("已取消"));
+                return;
+            }
+            long t = System.nanoTime();
+            OcrReply reply = OcrCache.get(appContext).call(config.action, config.version, payload, null,
+                    (a, v, p, c) -> TencentOcrClient.fetch(signed, c));
+            metrics.since(ScanMetrics.OCR_CALL, t);
+            submit(parsePool, index, () -> parse(index, reply));
+        } catch (Exception e) {
+            fail(index, e);
+        } finally {
+            payload.release();
+        }
+    }
+
+    // 5) 本地校验 + 生成展示文本（返回在客户端收到时已经解析过，这里不再读原文）
+    private void parse(int index, OcrReply reply) {
+        try {
+            long t = System.nanoTime();
+            OcrResult result = reply.result;
+            String badRead = null;
+            if (result instanceof BankCardResult) {
+                BankCardValidator.Check check = BankCardValidator.check(
+                        (BankCardResult) result, IndexAssets.bins(appContext));
+                if (check.isBadRead()) badRead = check.message;
+            } else if (result instanceof IdCardResult) {
+                IdCardValidator.Check check = IdCardValidator.check(
+                        (IdCardResult) result, IndexAssets.regions(appContext));
+                if (check.isBadRead()) badRead = check.message;
+            }
+            if (badRead != null) {
+                fail(index, new BadReadException(badRead));
+                return;
+            }
+            String display = OcrResultFormatter.format(result);
+            HistoryStore.Item item = HistoryStore.fromResult(config.historyKey, result, display);
+            item.brief = config.brief;
+            item.cardSide = config.cardSide;
+            metrics.since(ScanMetrics.PARSE, t);
+            submit(persistPool, index, () -> persist(index, item));
+        } catch (Exception e) {
+            fail(index, e);
+        }
+    }
+
+    // 6) 写入历史
+    private void persist(int index, HistoryStore.Item item) {
+        try {
+            long t = System.nanoTime();
+            // 离线队列补识别的相机照片随历史保留；相册图片不归我们管
+            PhotoStore photos = PhotoStore.get(appContext);
+            item.photoPath = photos.pathOf(items.get(index));
+            HistoryStore.add(appContext, item);
+            metrics.since(ScanMetrics.PERSIST, t);
+            if (item.id >= 0) photos.onKept(item.photoPath);
+            complete(index, item, null);
+        } catch (Exception e) {
+            fail(index, e);
+        }
+    }
+
+    /**
+     * 交给下一段；线程池已关闭（batch 被取消）时这张直接算失败，返回 false，调用方负责释放手上的资源
+     */
+    private boolean submit(ExecutorService pool, int index, Runnable stage) {
+        try {
+            pool.execute(stage);
+            return true;
+        } catch (RejectedExecutionException e) {
+            fail(index, new InterruptedException("已取消"));
+            return false;
+        }
+    }
+
+    private void fail(int index, Exception e) {
+        e.printStackTrace();
+        failed.incrementAndGet();
+        complete(index, null, e);
+    }
+
+    private void skip(int index) {
+        failed.incrementAndGet();
+        int n = done.incrementAndGet();
+        deliver(l -> l.onItemDone(index, n, total, null, new InterruptedException("已取消")));
+        if (n == total) finish();
+    }
+
+    private void complete(int index, HistoryStore.Item item, Exception error) {
+        inFlight.release();
+        int n = done.incrementAndGet();
+        deliver(l -> l.onItemDone(index, n, total, item, error));
+        if (n == total) finish();
+    }
+
+    private void finish() {
+        shutdownPools();
+
+        long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        double perSecond = elapsedMs > 0 ? total * 1000.0 / elapsedMs : 0;
+        int failedCount = failed.get();
+        deliver(l -> l.onFinished(total, failedCount, elapsedMs, perSecond));
+    }
+
+    private void shutdownPools() {
+        decodePool.shutdown();
+        encodePool.shutdown();
+        signPool.shutdown();
+        uploadPool.shutdown();
+        parsePool.shutdown();
+        persistPool.shutdown();
+    }
+
+    // 到主线程再取 listener：post 之后才 cancel 的回调也会被丢掉
+    private void deliver(Consumer<Listener> event) {
+        if (listener == null) return;
+        uiHandler.post(() -> {
+            Listener l = listener;
+            if (l != null) event.accept(l);
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.scancard;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 解码 / 缩放过程中的中间 bitmap 池（进程内一份）：
+ * 用完还回来，下一张图解码（inBitmap）或缩放 / 裁剪时直接复用同一块内存，
+ * 连拍、批量识别时不再每张都分配十几 MB 再等 GC。
+ * 只放流水线内部的中间图；界面上正在显示的 bitmap 不要放进来。
+ */
+public class BitmapPool {
+
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    // 够放下一张 1200 万像素照片 inSampleSize=2 的中间图，再加几张小图
+    private static final long MAX_BYTES = 24L * 1024 * 1024;
+
+    private static final ReusePool<Bitmap> POOL = new ReusePool<>(MAX_BYTES, Bitmap::recycle);
+
+    /**
+     * 取一张 width x height 的 ARGB_8888 空白 bitmap，池里有合适的就复用
+     */
+    public static Bitmap get(int width, int height) {
+        Bitmap b = POOL.take(bytes(width, height));
+        if (b != null) {
+            try {
+                b.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+                b.eraseColor(Color.TRANSPARENT);
+                return b;
+            } catch (IllegalArgumentException e) {
+                b.recycle();
+            }
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * 还回池子；不可修改的 bitmap 不能复用，直接回收
+     */
+    public static void put(Bitmap b) {
+        if (b == null || b.isRecycled()) return;
+        if (!b.isMutable() || b.getConfig() != Bitmap.Config.ARGB_8888) {
+            b.recycle();
+            return;
+        }
+        POOL.put(b, b.getAllocationByteCount());
+    }
+
+    /**
+     * 按 inSampleSize 解码，优先用池里的 bitmap 做 inBitmap；
+     * outWidth / outHeight 是原图尺寸（inJustDecodeBounds 得到的）
+     */
+    public static Bitmap decode(Source source, int outWidth, int outHeight, int inSampleSize) throws IOException {
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = inSampleSize;
+        opts.inMutable = true;
+        // 解码器按向上取整算尺寸，按大的要
+        int w = (outWidth + inSampleSize - 1) / inSampleSize;
+        int h = (outHeight + inSampleSize - 1) / inSampleSize;
+        opts.inBitmap = POOL.take(bytes(w, h));
+        try (InputStream in = source.open()) {
+            return BitmapFactory.decodeStream(in, null, opts);
+        } catch (IllegalArgumentException e) {
+            // 复用失败（格式 / 尺寸不匹配）：不带 inBitmap 再解一次
+            if (opts.inBitmap == null) throw e;
+            opts.inBitmap.recycle();
+            opts.inBitmap = null;
+            try (InputStream in = source.open()) {
+                return BitmapFactory.decodeStream(in, null, opts);
+            }
+        }
+    }
+
+    public static void clear() {
+        POOL.clear();
+    }
+
+    private static long bytes(int width, int height) {
+        return (long) width * height * 4;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.scancard;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import okhttp3.Dns;
+
+/**
+ * 带过期时间的 DNS 缓存：同一个域名在有效期内不再走系统解析；
+ * 过期后重新解析失败（弱网）时，先用旧结果顶上，连不上再由 OkHttp 报错。
+ */
+public class CachingDns implements Dns {
+
+    private static final class Entry {
+        final List<InetAddress> addresses;
+        final long expiresAt;
+
+        Entry(List<InetAddress> addresses, long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Dns delegate;
+    private final long ttlMs;
+    private final Map<String, Entry> cache = new HashMap<>();
+
+    // 毫秒时钟（单测里替换）
+    LongSupplier clockMs = System::currentTimeMillis;
+
+    public CachingDns(Dns delegate, long ttlMs) {
+        this.delegate = delegate;
+        this.ttlMs = ttlMs;
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        long now = clockMs.getAsLong();
+        Entry e;
+        synchronized (cache) {
+            e = cache.get(hostname);
+        }
+        if (e != null && now < e.expiresAt) {
+            return e.addresses;
+        }
+
+        List<InetAddress> fresh;
+        try {
+            fresh = delegate.lookup(hostname);
+        } catch (UnknownHostException ex) {
+            if (e != null) return e.addresses;
+            throw ex;
+        }
+        synchronized (cache) {
+            cache.put(hostname, new Entry(fresh, now + ttlMs));
+        }
+        return fresh;
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.scancard;
+
+import java.util.concurrent.CancellationException;
+
+import okhttp3.Call;
+
+/**
+ * 取消标记：页面退出时 cancel()，正在进行的 OkHttp 请求立即中断，
+ * 还没开始的步骤在检查点抛 CancellationException。
+ */
+public class CancelToken {
+
+    private volatile boolean cancelled;
+    private Call call; // 当前进行中的请求，受 this 保护
+
+    public void cancel() {
+        Call c;
+        synchronized (this) {
+            cancelled = true;
+            c = call;
+        }
+        if (c != null) c.cancel();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void throwIfCancelled() {
+        if (cancelled) throw new CancellationException("已取消");
+    }
+
+    // 请求发出前登记；如果已经取消，直接取消这个请求
+    void attach(Call c) {
+        synchronized (this) {
+            call = c;
+            if (!cancelled) return;
+        }
+        c.cancel();
+    }
+
+    synchronized void detach(Call c) {
+        if (call == c) call = null;
+    }
+}
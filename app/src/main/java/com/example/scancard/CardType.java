@@ -0,0 +1,32 @@
+package com.example.scancard;
+
+/**
+ * 证件类型：接口名、图片压缩规格、历史分类（返回按接口名由 OcrResultParser.read 解析）
+ */
+public enum CardType {
+
+    BANK("BankCardOCR", HistoryStore.KEY_BANK, ImageEncoder.Spec.BANK_CARD),
+    ID_CARD("IDCardOCR", HistoryStore.KEY_IDCARD, ImageEncoder.Spec.ID_CARD);
+
+    // 两个接口目前都用这个版本
+    public static final String VERSION = "2018-11-19";
+
+    public final String action;
+    public final String historyKey;
+    public final ImageEncoder.Spec spec;
+
+    CardType(String action, String historyKey, ImageEncoder.Spec spec) {
+        this.action = action;
+        this.historyKey = historyKey;
+        this.spec = spec;
+    }
+
+    // 历史列表里的简介
+    public String brief(String cardSide) {
+        return this == BANK ? "银行卡：点击回看" : "身份证(" + cardSide + ")：点击回看";
+    }
+
+    public static CardType forAction(String action) {
+        return ID_CARD.action.equals(action) ? ID_CARD : BANK;
+    }
+}
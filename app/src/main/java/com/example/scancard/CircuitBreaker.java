@@ -0,0 +1,77 @@
+package com.example.scancard;
+
+/**
+ * 熔断器：连续失败达到阈值后打开，冷却期内直接拒绝请求（快速失败）；
+ * 冷却结束进入半开状态，只放一个探测请求，成功则恢复，失败则重新打开。
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public interface Clock {
+        long currentTimeMillis();
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.currentTimeMillis() - openedAt < openMillis) return false;
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                // 半开：同一时间只放一个探测请求
+                if (probeInFlight) return false;
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.currentTimeMillis();
+            consecutiveFailures = 0;
+        }
+    }
+
+    /**
+     * 拿到放行后请求没有结果就结束（比如被取消）：不计成败，但半开状态的探测名额要还回去，
+     * 否则熔断器会一直停在半开、拒绝所有请求
+     */
+    public synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN) probeInFlight = false;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.scancard;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Objects;
+
+/**
+ * 历史列表适配器：RecyclerView 复用条目，新数据通过 DiffUtil 只刷新变化的部分；
+ * 有照片的记录显示缩略图（ImageLoader 后台加载）
+ */
+public class HistoryAdapter extends ListAdapter<HistoryStore.Item, HistoryAdapter.Holder> {
+
+    public interface OnItemClick {
+        void onClick(HistoryStore.Item item);
+    }
+
+    private static final DiffUtil.ItemCallback<HistoryStore.Item> DIFF =
+            new DiffUtil.ItemCallback<HistoryStore.Item>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull HistoryStore.Item a, @NonNull HistoryStore.Item b) {
+                    return a.id == b.id;
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull HistoryStore.Item a, @NonNull HistoryStore.Item b) {
+                    // 识别结果写入后不变，但照片被清理时 photo_path 会置空，所以展示用到的字段都要比
+                    return a.timeMillis == b.timeMillis
+                            && Objects.equals(a.photoPath, b.photoPath)
+                            && Objects.equals(a.brief, b.brief)
+                            && Objects.equals(a.detail, b.detail);
+                }
+            };
+
+    private final OnItemClick onItemClick;
+
+    public HistoryAdapter(OnItemClick onItemClick) {
+        super(DIFF);
+        this.onItemClick = onItemClick;
+    }
+
+    @NonNull
+    @Override
+    public Holder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_history, parent, false);
+        return new Holder(v);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull Holder holder, int position) {
+        HistoryStore.Item it = getItem(position);
+        holder.text.setText("[" + it.time + "] " + it.brief);
+        ImageLoader.loadThumbnail(holder.thumb, it.photoPath);
+        // 点击历史回看当时的结果
+        holder.itemView.setOnClickListener(v -> onItemClick.onClick(it));
+    }
+
+    static class Holder extends RecyclerView.ViewHolder {
+        final TextView text;
+        final ImageView thumb;
+
+        Holder(View v) {
+            super(v);
+            text = v.findViewById(R.id.tv_history_item);
+            thumb = v.findViewById(R.id.iv_history_thumb);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.scancard;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * 本地数据库：
+ * - history：识别历史，每条记录一行，按卡类型 + 时间建索引
+ * - ocr_jobs：离线待识别队列（版本 2 新增）
+ * - history.photo_path：保留的相机照片（版本 3 新增，照片被清理后置空）
+ * - ocr_jobs.next_attempt_at / failed_reason：重试退避和识别失败状态（版本 4 新增）
+ */
+public class HistoryDbHelper extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "ocr_history.db";
+    private static final int DB_VERSION = 4;
+
+    public static final String TABLE = "history";
+
+    public static final String COL_ID = "_id";
+    public static final String COL_KIND = "kind";            // HistoryStore.KEY_IDCARD / KEY_BANK
+    public static final String COL_CREATED_AT = "created_at"; // 毫秒时间戳
+    public static final String COL_BRIEF = "brief";
+    public static final String COL_DETAIL = "detail";
+    public static final String COL_CARD_SIDE = "card_side";
+    public static final String COL_CARD_NO = "card_no";
+    public static final String COL_BANK_INFO = "bank_info";
+    public static final String COL_HOLDER_NAME = "holder_name";
+    public static final String COL_ID_NUM = "id_num";
+    public static final String COL_PHOTO_PATH = "photo_path";
+
+    public static final String TABLE_JOBS = "ocr_jobs";
+
+    public static final String JOB_ID = "_id";
+    public static final String JOB_PHOTO_PATH = "photo_path";
+    public static final String JOB_ACTION = "action";
+    public static final String JOB_VERSION = "version";
+    public static final String JOB_CARD_SIDE = "card_side";
+    public static final String JOB_CREATED_AT = "created_at";
+    public static final String JOB_ATTEMPTS = "attempts";
+    public static final String JOB_NEXT_ATTEMPT_AT = "next_attempt_at"; // 毫秒时间戳，之前不自动重试
+    public static final String JOB_FAILED_REASON = "failed_reason";     // 非空表示不再自动重试，等用户处理
+
+    private static HistoryDbHelper instance;
+
+    public static synchronized HistoryDbHelper get(Context ctx) {
+        if (instance == null) {
+            instance = new HistoryDbHelper(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private HistoryDbHelper(Context ctx) {
+        super(ctx, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " (" +
+                COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COL_KIND + " TEXT NOT NULL, " +
+                COL_CREATED_AT + " INTEGER NOT NULL, " +
+                COL_BRIEF + " TEXT, " +
+                COL_DETAIL + " TEXT, " +
+                COL_CARD_SIDE + " TEXT, " +
+                COL_CARD_NO + " TEXT, " +
+                COL_BANK_INFO + " TEXT, " +
+                COL_HOLDER_NAME + " TEXT, " +
+                COL_ID_NUM + " TEXT, " +
+                COL_PHOTO_PATH + " TEXT)");
+        db.execSQL("CREATE INDEX idx_history_kind_time ON " + TABLE +
+                " (" + COL_KIND + ", " + COL_CREATED_AT + ")");
+        db.execSQL("CREATE INDEX idx_history_time ON " + TABLE + " (" + COL_CREATED_AT + ")");
+        createJobsTable(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            createJobsTable(db);
+        }
+        if (oldVersion < 3) {
+            db.execSQL("ALTER TABLE " + TABLE + " ADD COLUMN " + COL_PHOTO_PATH + " TEXT");
+        }
+        if (oldVersion >= 2 && oldVersion < 4) {
+            db.execSQL("ALTER TABLE " + TABLE_JOBS + " ADD COLUMN " + JOB_NEXT_ATTEMPT_AT +
+                    " INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE " + TABLE_JOBS + " ADD COLUMN " + JOB_FAILED_REASON + " TEXT");
+        }
+    }
+
+    private static void createJobsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_JOBS + " (" +
+                JOB_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                JOB_PHOTO_PATH + " TEXT NOT NULL, " +
+                JOB_ACTION + " TEXT NOT NULL, " +
+                JOB_VERSION + " TEXT NOT NULL, " +
+                JOB_CARD_SIDE + " TEXT, " +
+                JOB_CREATED_AT + " INTEGER NOT NULL, " +
+                JOB_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, " +
+                JOB_NEXT_ATTEMPT_AT + " INTEGER NOT NULL DEFAULT 0, " +
+                JOB_FAILED_REASON + " TEXT)");
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.scancard;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 历史列表：后台线程分页读取，滑到底自动加载下一页；
+ * 新识别结果直接插到最前面，交给 DiffUtil 做增量刷新，不再整列表重建。
+ * 两个识别页面共用。
+ */
+public class HistoryListController {
+
+    // 距离底部还剩几条时开始加载下一页
+    private static final int PREFETCH = 5;
+
+    private final Context appContext;
+    private final String kind;
+    private final RecyclerView recyclerView;
+    private final TextView emptyView;
+    private final HistoryAdapter adapter;
+    private final LinearLayoutManager layoutManager;
+
+    // 以下字段只在主线程读写
+    private final List<HistoryStore.Item> items = new ArrayList<>();
+    private String query = "";
+    private boolean loading;
+    private boolean hasMore = true;
+    private int generation;   // 查询条件变化后丢弃旧的异步结果
+
+    public HistoryListController(Context ctx, String kind, RecyclerView recyclerView, TextView emptyView,
+                                 HistoryAdapter.OnItemClick onItemClick) {
+        this.appContext = ctx.getApplicationContext();
+        this.kind = kind;
+        this.recyclerView = recyclerView;
+        this.emptyView = emptyView;
+        this.adapter = new HistoryAdapter(onItemClick);
+        this.layoutManager = new LinearLayoutManager(ctx);
+
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0) return;
+                int last = layoutManager.findLastVisibleItemPosition();
+                if (last >= items.size() - PREFETCH) loadMore();
+            }
+        });
+    }
+
+    /**
+     * 重新加载第一页（进入页面、修改检索词时调用）
+     */
+    public void refresh() {
+        generation++;
+        loading = false;
+        hasMore = true;
+        loadPage(0, true);
+    }
+
+    public void setQuery(String q) {
+        String next = q == null ? "" : q.trim();
+        if (next.equals(query)) return;
+        query = next;
+        refresh();
+    }
+
+    public void loadMore() {
+        if (loading || !hasMore) return;
+        loadPage(items.size(), false);
+    }
+
+    /**
+     * 新的识别结果插到最前面（检索状态下不插，检索结果由检索词决定）
+     */
+    public void prepend(HistoryStore.Item item) {
+        if (!query.isEmpty()) return;
+        items.add(0, item);
+        submit(() -> recyclerView.scrollToPosition(0));
+    }
+
+    private void loadPage(int offset, boolean replace) {
+        loading = true;
+        final int gen = generation;
+        final String q = query;
+        final int limit = HistoryStore.PAGE_SIZE;
+
+        AppExecutors.diskIO().execute(() -> {
+            List<HistoryStore.Item> page;
+            if (q.isEmpty()) {
+                page = HistoryStore.load(appContext, kind, offset, limit);
+            } else {
+                // 检索结果按相关记录一次取出（上限 offset + limit），再截取这一页
+                List<HistoryStore.Item> all = HistoryStore.search(appContext, kind, q, offset + limit);
+                page = all.size() > offset ? all.subList(offset, all.size()) : new ArrayList<>();
+            }
+
+            List<HistoryStore.Item> result = new ArrayList<>(page);
+            AppExecutors.main(() -> {
+                if (gen != generation) return;   // 已经过期
+                loading = false;
+                hasMore = result.size() == limit;
+                if (replace) items.clear();
+                items.addAll(result);
+                submit(null);
+            });
+        });
+    }
+
+    private void submit(Runnable after) {
+        // ListAdapter 需要新的 List 实例才会做 diff
+        adapter.submitList(new ArrayList<>(items), after);
+        boolean empty = items.isEmpty();
+        emptyView.setVisibility(empty ? View.VISIBLE : View.GONE);
+        emptyView.setText(query.isEmpty() ? "暂无历史记录" : "没有匹配的记录");
+    }
+}
@@ -1,46 +1,84 @@
 package com.example.scancard;
 
+import android.content.ContentValues;
 import android.content.Context;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 
+/**
+ * 识别历史：SQLite 存储，新增一条就是插入一行（不再整表读出再写回），支持分页读取。
+ * 第一次使用时把旧版 SharedPreferences 里的 JSON 历史迁移进来。
+ */
 public class HistoryStore {
 
-    // SharedPreferences 名称
+    // 旧版 SharedPreferences 名称（仅用于迁移）
     private static final String SP_NAME = "ocr_history_sp";
+    private static final String KEY_MIGRATED = "migrated_to_db";
 
     public static final String KEY_IDCARD = "history_idcard";
     public static final String KEY_BANK = "history_bank";
 
-    // 最多保存 5 条
-    private static final int MAX = 5;
+    // 默认每页条数
+    public static final int PAGE_SIZE = 20;
+
+    private static volatile boolean migrated;
+
+    // 检索索引：第一次搜索时从数据库建立，之后每次 add 增量更新
+    private static HistorySearchIndex searchIndex;
 
     public static class Item {
-        public String time;   // 时间
+        public long id;
+        public String kind;       // KEY_IDCARD / KEY_BANK
+        public long timeMillis;
+        public String time;       // 时间（展示用）
         public String brief;
-        public String detail; // 详细结果（点击历史时回看）
+        public String detail;     // 详细结果（点击历史时回看）
+
+        // 结构化字段（按卡类型部分为空）
+        public String cardSide;
+        public String cardNo;
+        public String bankInfo;
+        public String holderName;
+        public String idNum;
+
+        public String photoPath;  // 相机原图（相册导入、照片已被清理时为空）
     }
 
+    /**
+     * 读取最新一页
+     */
     public static ArrayList<Item> load(Context ctx, String key) {
+        return load(ctx, key, 0, PAGE_SIZE);
+    }
+
+    /**
+     * 按时间倒序分页读取
+     */
+    public static ArrayList<Item> load(Context ctx, String key, int offset, int limit) {
         ArrayList<Item> list = new ArrayList<>();
         try {
-            String s = ctx.getSharedPreferences(SP_NAME, Context.MODE_PRIVATE)
-                    .getString(key, "[]");
-            JSONArray arr = new JSONArray(s);
-
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject obj = arr.getJSONObject(i);
-                Item it = new Item();
-                it.time = obj.optString("time");
-                it.brief = obj.optString("brief");
-                it.detail = obj.optString("detail");
-                list.add(it);
+            SQLiteDatabase db = db(ctx);
+            Cursor c = db.query(HistoryDbHelper.TABLE, null,
+                    HistoryDbHelper.COL_KIND + " = ?", new String[]{key},
+                    null, null,
+                    HistoryDbHelper.COL_CREATED_AT + " DESC, " + HistoryDbHelper.COL_ID + " DESC",
+                    offset + "," + limit);
+            try {
+                while (c.moveToNext()) {
+                    list.add(fromCursor(c));
+                }
+            } finally {
+                c.close();
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -48,41 +86,231 @@ public class HistoryStore {
         return list;
     }
 
-    public static void add(Context ctx, String key, String brief, String detail) {
-        ArrayList<Item> list = load(ctx, key);
+    public static long count(Context ctx, String key) {
+        return DatabaseUtils.queryNumEntries(db(ctx), HistoryDbHelper.TABLE,
+                HistoryDbHelper.COL_KIND + " = ?", new String[]{key});
+    }
+
+    /**
+     * 取出结构化字段生成历史记录，detail 为展示文本；brief 由调用方填写
+     */
+    public static Item fromResult(String kind, OcrResult result, String display) {
+        Item it = new Item();
+        it.kind = kind;
+        it.detail = display;
+        if (result.isError()) return it;
 
-        Item it = new Item(); // 创建新记录
-        it.time = new SimpleDateFormat("MM-dd HH:mm", Locale.getDefault())
-                .format(new Date());
+        if (result instanceof BankCardResult) {
+            BankCardResult r = (BankCardResult) result;
+            it.cardNo = r.cardNo;
+            it.bankInfo = r.bankInfo;
+        } else if (result instanceof IdCardResult) {
+            IdCardResult r = (IdCardResult) result;
+            it.holderName = r.name;
+            it.idNum = r.idNum;
+        }
+        return it;
+    }
+
+    public static void add(Context ctx, String key, String brief, String detail) {
+        Item it = new Item();
+        it.kind = key;
         it.brief = brief;
         it.detail = detail;
+        add(ctx, it);
+    }
 
-        list.add(0, it); // 新记录放在最前面
-
-        while (list.size() > MAX) {
-            list.remove(list.size() - 1); // 超过 5 条就删最旧的
+    /**
+     * 插入一条记录，返回新记录 id（失败返回 -1）
+     */
+    public static long add(Context ctx, Item it) {
+        if (it.timeMillis == 0) it.timeMillis = System.currentTimeMillis();
+        it.time = formatTime(it.timeMillis);
+        try {
+            it.id = db(ctx).insert(HistoryDbHelper.TABLE, null, toValues(it));
+        } catch (Exception e) {
+            e.printStackTrace();
+            it.id = -1;
         }
+        if (it.id >= 0) {
+            synchronized (HistoryStore.class) {
+                if (searchIndex != null) {
+                    searchIndex.add(it.id, it.kind, it.cardNo, it.idNum, it.holderName, it.bankInfo);
+                }
+            }
+        }
+        return it.id;
+    }
 
-        save(ctx, key, list);
+    /**
+     * 按卡号 / 身份证号 / 姓名 / 银行名称检索（子串匹配），最新在前
+     */
+    public static ArrayList<Item> search(Context ctx, String key, String query, int limit) {
+        List<Long> ids = searchIndex(ctx).search(key, query, limit);
+        return loadByIds(ctx, ids);
     }
 
-    private static void save(Context ctx, String key, ArrayList<Item> list) {
+    private static synchronized HistorySearchIndex searchIndex(Context ctx) {
+        if (searchIndex != null) return searchIndex;
+
+        HistorySearchIndex index = new HistorySearchIndex();
+        Cursor c = db(ctx).query(HistoryDbHelper.TABLE,
+                new String[]{HistoryDbHelper.COL_ID, HistoryDbHelper.COL_KIND,
+                        HistoryDbHelper.COL_CARD_NO, HistoryDbHelper.COL_ID_NUM,
+                        HistoryDbHelper.COL_HOLDER_NAME, HistoryDbHelper.COL_BANK_INFO},
+                null, null, null, null, HistoryDbHelper.COL_ID + " ASC");
         try {
-            JSONArray arr = new JSONArray();
-            for (Item it : list) {
-                JSONObject obj = new JSONObject();
-                obj.put("time", it.time);
-                obj.put("brief", it.brief);
-                obj.put("detail", it.detail);
-                arr.put(obj);
+            while (c.moveToNext()) {
+                index.add(c.getLong(0), c.getString(1),
+                        c.getString(2), c.getString(3), c.getString(4), c.getString(5));
             }
+        } finally {
+            c.close();
+        }
+        searchIndex = index;
+        return index;
+    }
+
+    private static ArrayList<Item> loadByIds(Context ctx, List<Long> ids) {
+        ArrayList<Item> list = new ArrayList<>();
+        if (ids.isEmpty()) return list;
+
+        StringBuilder in = new StringBuilder();
+        String[] args = new String[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) in.append(',');
+            in.append('?');
+            args[i] = String.valueOf(ids.get(i));
+        }
 
-            ctx.getSharedPreferences(SP_NAME, Context.MODE_PRIVATE)
-                    .edit()
-                    .putString(key, arr.toString())
-                    .apply();
+        HashMap<Long, Item> byId = new HashMap<>();
+        Cursor c = db(ctx).query(HistoryDbHelper.TABLE, null,
+                HistoryDbHelper.COL_ID + " IN (" + in + ")", args, null, null, null);
+        try {
+            while (c.moveToNext()) {
+                Item it = fromCursor(c);
+                byId.put(it.id, it);
+            }
+        } finally {
+            c.close();
+        }
+        // 保持索引给出的顺序
+        for (Long id : ids) {
+            Item it = byId.get(id);
+            if (it != null) list.add(it);
+        }
+        return list;
+    }
+
+    private static SQLiteDatabase db(Context ctx) {
+        SQLiteDatabase db = HistoryDbHelper.get(ctx).getWritableDatabase();
+        if (!migrated) {
+            migrateFromPrefs(ctx, db);
+        }
+        return db;
+    }
+
+    private static ContentValues toValues(Item it) {
+        ContentValues v = new ContentValues();
+        v.put(HistoryDbHelper.COL_KIND, it.kind);
+        v.put(HistoryDbHelper.COL_CREATED_AT, it.timeMillis);
+        v.put(HistoryDbHelper.COL_BRIEF, it.brief);
+        v.put(HistoryDbHelper.COL_DETAIL, it.detail);
+        v.put(HistoryDbHelper.COL_CARD_SIDE, it.cardSide);
+        v.put(HistoryDbHelper.COL_CARD_NO, it.cardNo);
+        v.put(HistoryDbHelper.COL_BANK_INFO, it.bankInfo);
+        v.put(HistoryDbHelper.COL_HOLDER_NAME, it.holderName);
+        v.put(HistoryDbHelper.COL_ID_NUM, it.idNum);
+        v.put(HistoryDbHelper.COL_PHOTO_PATH, it.photoPath);
+        return v;
+    }
+
+    private static Item fromCursor(Cursor c) {
+        Item it = new Item();
+        it.id = c.getLong(c.getColumnIndexOrThrow(HistoryDbHelper.COL_ID));
+        it.kind = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.COL_KIND));
+        it.timeMillis = c.getLong(c.getColumnIndexOrThrow(HistoryDbHelper.COL_CREATED_AT));
+        it.time = formatTime(it.timeMillis);
+        it.brief = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.COL_BRIEF));
+        it.detail = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.COL_DETAIL));
+        it.cardSide = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.COL_CARD_SIDE));
+        it.cardNo = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.COL_CARD_NO));
+        it.bankInfo = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.COL_BANK_INFO));
+        it.holderName = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.COL_HOLDER_NAME));
+        it.idNum = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.COL_ID_NUM));
+        it.photoPath = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.COL_PHOTO_PATH));
+        return it;
+    }
+
+    private static String formatTime(long millis) {
+        return new SimpleDateFormat("MM-dd HH:mm", Locale.getDefault()).format(new Date(millis));
+    }
+
+    /**
+     * 一次性迁移：旧版把最近 5 条以 JSON 数组存在 SharedPreferences 里
+     */
+    private static synchronized void migrateFromPrefs(Context ctx, SQLiteDatabase db) {
+        if (migrated) return;
+
+        SharedPreferences sp = ctx.getApplicationContext()
+                .getSharedPreferences(SP_NAME, Context.MODE_PRIVATE);
+        if (sp.getBoolean(KEY_MIGRATED, false)) {
+            migrated = true;
+            return;
+        }
+
+        boolean copied = false;
+        db.beginTransaction();
+        try {
+            for (String key : new String[]{KEY_IDCARD, KEY_BANK}) {
+                List<LegacyHistoryCodec.Entry> old = LegacyHistoryCodec.decode(sp.getString(key, "[]"));
+                // 旧数组新记录在前，倒着插入保证 id 和时间顺序一致
+                for (int i = old.size() - 1; i >= 0; i--) {
+                    LegacyHistoryCodec.Entry e = old.get(i);
+                    Item it = new Item();
+                    it.kind = key;
+                    it.timeMillis = parseLegacyTime(e.time, i);
+                    it.brief = e.brief;
+                    it.detail = e.detail;
+                    db.insert(HistoryDbHelper.TABLE, null, toValues(it));
+                }
+            }
+            db.setTransactionSuccessful();
+            copied = true;
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            try {
+                db.endTransaction();
+            } catch (Exception e) {
+                // 提交失败：事务已回滚
+                e.printStackTrace();
+                copied = false;
+            }
+        }
+
+        // 本次进程不再重试；失败时旧数据和标记都不动，下次启动重新迁移
+        migrated = true;
+        if (!copied) return;
+        sp.edit()
+                .remove(KEY_IDCARD)
+                .remove(KEY_BANK)
+                .putBoolean(KEY_MIGRATED, true)
+                .apply();
+    }
+
+    // 旧格式 "MM-dd HH:mm" 没有年份：按今年算，落在将来就算去年
+    private static long parseLegacyTime(String time, int index) {
+        try {
+            Calendar now = Calendar.getInstance();
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(new SimpleDateFormat("MM-dd HH:mm", Locale.getDefault()).parse(time));
+            cal.set(Calendar.YEAR, now.get(Calendar.YEAR));
+            if (cal.after(now)) cal.add(Calendar.YEAR, -1);
+            return cal.getTimeInMillis();
+        } catch (Exception e) {
+            // 解析不了就按原顺序排在现在之前
+            return System.currentTimeMillis() - (index + 1) * 60_000L;
         }
     }
 }
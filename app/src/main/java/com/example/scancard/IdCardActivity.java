@@ -4,18 +4,17 @@ import android.Manifest;
 import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
+import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Base64;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.RadioGroup;
 import android.widget.TextView;
@@ -24,29 +23,44 @@ import android.widget.Toast;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.FileProvider;
 
-import org.json.JSONObject;
-
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.InputStream;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 public class IdCardActivity extends AppCompatActivity {
 
+    // 号码校验失败时最多自动重新打开相机几次，之后只提示，避免一直循环
+    private static final int MAX_AUTO_RESCANS = 2;
+
     private RadioGroup rgSide;              // 正反面选择
     private Button btnCamera;               // 拍照
+    private Button btnPair;                 // 双面识别
+    private Button btnPreview;              // 取景自动识别
+    private Button btnBatch;                // 批量导入
     private ProgressBar progress;           // 加载圈
     private ImageView ivPhoto;              // 预览
     private Button btnCopy;                 // 复制
     private TextView tvResult;              // 结果
-    private LinearLayout layoutHistory;     // 历史容器
+    private EditText etSearch;              // 历史检索
+    private TextView tvQueue;               // 离线队列状态
+    private HistoryListController history;  // 历史列表
 
     private Uri photoUri;                   // 相机输出 Uri
-    private final Handler uiHandler = new Handler(Looper.getMainLooper()); // 主线程 handler
+    private File photoFile;                 // 相机输出文件（没网时入离线队列）
+    private OcrPipeline pipeline;           // 单张识别
+    private BatchOcrPipeline batch;         // 进行中的批量任务
+    private int autoRescans;                // 号码校验失败后连续自动重拍的次数，识别成功后清零
+    private IdCardPairScan pair;            // 进行中的双面识别
+    private String pairSide;                // 双面模式下相机正在拍的那一面；单面拍照为 null
+    private String pendingRetake;           // 拍另一面期间失败的一面，相机回来后再重拍
+    private final OcrJobQueue.Listener queueListener = this::showQueue;
+    private int lastQueueDepth = -1;
+    private int queueFailed;
 
     // 申请相机权限
     private final ActivityResultLauncher<String> requestCameraPermissionLauncher =
@@ -55,6 +69,7 @@ public class IdCardActivity extends AppCompatActivity {
                     openCameraAndTakePhoto();
                 } else {
                     Toast.makeText(this, "未获得相机权限，无法拍照", Toast.LENGTH_SHORT).show();
+                    if (pair != null) cancelPair("未获得相机权限，双面识别已取消");
                 }
             });
 
@@ -62,10 +77,41 @@ public class IdCardActivity extends AppCompatActivity {
     private final ActivityResultLauncher<Uri> takePictureLauncher =
             registerForActivityResult(new ActivityResultContracts.TakePicture(), success -> {
                 if (success) {
-                    ivPhoto.setImageURI(photoUri);     // 显示预览
-                    startOcrFromUri(photoUri);         // 开始识别
+                    if (pairSide != null) {
+                        ImageLoader.loadPreview(ivPhoto, photoUri);   // 后台解码预览
+                        onPairSideCaptured();          // 双面模式：这一面马上开始识别
+                    } else {
+                        // 后台只解码一次：预览和识别用同一张图
+                        Uri uri = photoUri;
+                        File photo = photoFile;
+                        setLoading(true);
+                        ImageLoader.loadCaptured(this, ivPhoto, uri, CardType.ID_CARD.spec,
+                                frame -> startOcrFromUri(uri, frame, photo));
+                    }
                 } else {
                     Toast.makeText(this, "拍照取消/失败", Toast.LENGTH_SHORT).show();
+                    if (pairSide != null) cancelPair("双面识别已取消");
+                }
+            });
+
+    // 取景自动识别：识别和写历史都在取景页里完成，这里只展示结果
+    private final ActivityResultLauncher<Intent> previewScanLauncher =
+            registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), result -> {
+                Intent data = result.getData();
+                if (data == null) return;
+                if (result.getResultCode() == RESULT_OK) {
+                    tvResult.setText(data.getStringExtra(PreviewScanActivity.EXTRA_DETAIL));
+                    history.refresh();
+                } else if (data.hasExtra(PreviewScanActivity.EXTRA_ERROR)) {
+                    tvResult.setText("识别异常：" + data.getStringExtra(PreviewScanActivity.EXTRA_ERROR));
+                }
+            });
+
+    // 相册多选：选中的图片走批量流水线
+    private final ActivityResultLauncher<String> pickImagesLauncher =
+            registerForActivityResult(new ActivityResultContracts.GetMultipleContents(), uris -> {
+                if (uris != null && !uris.isEmpty()) {
+                    startBatch(uris);
                 }
             });
 
@@ -73,16 +119,30 @@ public class IdCardActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_id_card); // 绑定身份证布局
+        pipeline = new OcrPipeline(this);
+        // 用户拍照的同时把连接建好，拍完第一张不用再等 DNS / TLS
+        TencentOcrClient.prewarm();
 
         rgSide = findViewById(R.id.rg_idcard_side);
         btnCamera = findViewById(R.id.btn_idcard_camera);
+        btnPair = findViewById(R.id.btn_idcard_pair);
+        btnPreview = findViewById(R.id.btn_idcard_preview);
+        btnBatch = findViewById(R.id.btn_idcard_batch);
         progress = findViewById(R.id.progress_idcard);
         ivPhoto = findViewById(R.id.iv_idcard_photo);
         btnCopy = findViewById(R.id.btn_idcard_copy);
         tvResult = findViewById(R.id.tv_idcard_result);
-        layoutHistory = findViewById(R.id.layout_idcard_history);
-
-        renderHistory(); //进入页面加载历史
+        etSearch = findViewById(R.id.et_idcard_search);
+        tvQueue = findViewById(R.id.tv_idcard_queue);
+
+        // 点击历史回看当时的结果
+        history = new HistoryListController(this, HistoryStore.KEY_IDCARD,
+                findViewById(R.id.rv_idcard_history), findViewById(R.id.tv_idcard_history_empty),
+                it -> {
+                    tvResult.setText(it.detail);
+                    PhotoStore.get(this).touch(it.photoPath);
+                });
+        history.refresh(); // 进入页面异步加载历史
 
         // 拍照按钮：先检查权限，再拍照
         btnCamera.setOnClickListener(v -> {
@@ -94,6 +154,36 @@ public class IdCardActivity extends AppCompatActivity {
             }
         });
 
+        // 双面识别：先拍人像面，拍完立即上传，同时提示翻面拍国徽面
+        btnPair.setOnClickListener(v -> startPair());
+
+        // 输入关键字即时检索历史
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                history.setQuery(s.toString());
+            }
+        });
+
+        // 离线队列：点一下立即重试
+        tvQueue.setOnClickListener(v -> onQueueClicked());
+        OcrJobQueue.get(this).addListener(queueListener);
+
+        // 取景自动识别按钮：相机权限在取景页里申请
+        btnPreview.setOnClickListener(v -> previewScanLauncher.launch(
+                PreviewScanActivity.intent(this, CardType.ID_CARD, getCardSideOnce())));
+
+        // 批量导入按钮
+        btnBatch.setOnClickListener(v -> pickImagesLauncher.launch("image/*"));
+
         // 复制按钮
         btnCopy.setOnClickListener(v -> {
             String text = tvResult.getText().toString();
@@ -108,12 +198,9 @@ public class IdCardActivity extends AppCompatActivity {
      */
     private void openCameraAndTakePhoto() {
         try {
-            // 1) 创建保存照片的目录（App 私有目录，不需要读写权限）
-            File dir = new File(getExternalFilesDir("Pictures"), "ocr"); // Pictures/ocr
-            if (!dir.exists()) dir.mkdirs();
-
-            // 2) 创建照片文件名（时间戳避免重名）
-            File file = new File(dir, "idcard_" + System.currentTimeMillis() + ".jpg");
+            // 1) 2) 在照片目录（App 私有目录 Pictures/ocr，不需要读写权限）里新建文件，由 PhotoStore 统一清理
+            File file = PhotoStore.get(this).newPhotoFile("idcard");
+            photoFile = file;
 
             // 3) 用 FileProvider 把文件转成安全的 Uri（给相机用）
             photoUri = FileProvider.getUriForFile(
@@ -136,181 +223,223 @@ public class IdCardActivity extends AppCompatActivity {
         return (checkedId == R.id.rb_idcard_back) ? "BACK" : "FRONT";
     }
 
-    private void startOcrFromUri(@NonNull Uri uri) {
+    private void startOcrFromUri(@NonNull Uri uri, Bitmap frame, File photo) {
         setLoading(true); // 进入识别中状态
 
-        String cardSide = getCardSideOnce();
-
-        new Thread(() -> {
-            try {
-                // 1) 读取并压缩图片，避免太大
-                Bitmap bitmap = decodeBitmapFromUri(uri, 1200, 1200);
-                if (bitmap == null) {
-                    uiHandler.post(() -> {
+        // 识别流程在共享线程池上跑；页面销毁时自动取消，不会再回调
+        pipeline.submit(this, new OcrPipeline.Request(CardType.ID_CARD, uri, frame, getCardSideOnce(), photo),
+                new OcrPipeline.Callback() {
+                    @Override
+                    public void onSuccess(HistoryStore.Item item) {
                         setLoading(false);
-                        tvResult.setText("读取图片失败：bitmap=null");
-                        Toast.makeText(this, "识别失败", Toast.LENGTH_SHORT).show();
-                    });
-                    return;
-                }
-
-                // 2) 转 Base64
-                String imageBase64 = bitmapToBase64(bitmap, 80); // JPEG 压缩后 Base64
-
-                // 3) 拼请求体
-                JSONObject body = new JSONObject();
-                body.put("ImageBase64", imageBase64);
-                body.put("CardSide", cardSide);
-
-                // 4) 发请求
-                String respJson = TencentOcrClient.callOcr(
-                        "IDCardOCR",
-                        "2018-11-19",
-                        body.toString()
-                );
-
-                // 5) 解析展示
-                String display = parseIdCard(respJson);
-
-                // 6) 写入历史（最近5条）
-                String brief = "身份证(" + cardSide + ")：点击回看";
-                HistoryStore.add(this, HistoryStore.KEY_IDCARD, brief, display);
-
-                // 7) 回主线程更新 UI
-                uiHandler.post(() -> {
-                    setLoading(false);
-                    tvResult.setText(display);
-                    renderHistory();
-                });
-
-            } catch (Exception e) {
-                e.printStackTrace();
-                uiHandler.post(() -> {
-                    setLoading(false);
-                    tvResult.setText("识别异常：" + e.getMessage());
-                    Toast.makeText(this, "识别失败", Toast.LENGTH_SHORT).show();
+                        autoRescans = 0;
+                        tvResult.setText(item.detail);
+                        // 写库失败（id < 0）的记录不进列表，和批量识别一致
+                        if (item.id >= 0) history.prepend(item);
+                    }
+
+                    @Override
+                    public void onFailure(Exception error, boolean queuedOffline) {
+                        setLoading(false);
+                        if (error instanceof ImageQualityException) {
+                            // 没有上传，提示原因让用户重拍
+                            tvResult.setText("请重拍：" + error.getMessage());
+                            Toast.makeText(IdCardActivity.this, error.getMessage(), Toast.LENGTH_SHORT).show();
+                            return;
+                        }
+                        if (error instanceof BadReadException) {
+                            // 号码读错了：没写历史，拍照来的直接重新打开相机
+                            tvResult.setText("身份证号校验不通过，请重拍：" + error.getMessage());
+                            if (photo != null && autoRescans < MAX_AUTO_RESCANS) {
+                                autoRescans++;
+                                Toast.makeText(IdCardActivity.this, "身份证号可能识别错了，请重拍", Toast.LENGTH_SHORT).show();
+                                openCameraAndTakePhoto();
+                            }
+                            return;
+                        }
+                        tvResult.setText(queuedOffline
+                                ? "网络不可用，已加入离线队列，联网后自动识别"
+                                : "识别异常：" + error.getMessage());
+                        Toast.makeText(IdCardActivity.this, "识别失败", Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onQualityWarning(String message) {
+                        Toast.makeText(IdCardActivity.this, message, Toast.LENGTH_SHORT).show();
+                    }
                 });
-            }
-        }).start();
     }
 
-    private void setLoading(boolean loading) {
-        // 识别中显示进度并禁用按钮（防止用户连点多次请求）
-        progress.setVisibility(loading ? View.VISIBLE : View.GONE);
-        btnCamera.setEnabled(!loading);
-        btnCopy.setEnabled(!loading);
-        rgSide.setEnabled(!loading);
+    private void startPair() {
+        pair = new IdCardPairScan(this, this, pipeline, pairListener);
+        pendingRetake = null;
+        setLoading(true);
+        takePairSide(IdCardPairScan.FRONT);
     }
 
-    private void renderHistory() {
-        layoutHistory.removeAllViews(); // 清空容器
-
-        ArrayList<HistoryStore.Item> list = HistoryStore.load(this, HistoryStore.KEY_IDCARD);
-
-        if (list.isEmpty()) {
-            TextView tv = new TextView(this);
-            tv.setText("暂无历史记录");
-            tv.setPadding(12, 12, 12, 12);
-            layoutHistory.addView(tv);
-            return;
+    private void takePairSide(String side) {
+        pairSide = side;
+        tvResult.setText("双面识别：请拍" + sideName(side));
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
+                == PackageManager.PERMISSION_GRANTED) {
+            openCameraAndTakePhoto();
+        } else {
+            requestCameraPermissionLauncher.launch(Manifest.permission.CAMERA);
         }
+    }
 
-        for (HistoryStore.Item it : list) {
-            TextView tv = new TextView(this);
-            tv.setPadding(18, 14, 18, 14);
-            tv.setBackgroundColor(0xFFEFEFEF);
-            tv.setText("[" + it.time + "] " + it.brief);
+    // 相机返回：提交这一面，然后拍还没拍的一面（或刚才失败要重拍的一面）
+    private void onPairSideCaptured() {
+        String side = pairSide;
+        pairSide = null;
+        pair.submit(side, photoUri, photoFile);
+
+        String other = IdCardPairScan.FRONT.equals(side) ? IdCardPairScan.BACK : IdCardPairScan.FRONT;
+        if (pendingRetake != null) {
+            String retake = pendingRetake;
+            pendingRetake = null;
+            takePairSide(retake);
+        } else if (!pair.isDone(other) && !pair.isRunning(other)) {
+            Toast.makeText(this, "请翻到" + sideName(other), Toast.LENGTH_SHORT).show();
+            takePairSide(other);
+        } else {
+            tvResult.setText("双面识别中…");
+        }
+    }
 
-            // 点击历史回看当时的结果
-            tv.setOnClickListener(v -> tvResult.setText(it.detail));
+    private void cancelPair(String message) {
+        if (pair != null) pair.cancel();
+        pair = null;
+        pairSide = null;
+        pendingRetake = null;
+        setLoading(false);
+        tvResult.setText(message);
+    }
 
-            LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(
-                    LinearLayout.LayoutParams.MATCH_PARENT,
-                    LinearLayout.LayoutParams.WRAP_CONTENT
-            );
-            lp.setMargins(0, 0, 0, 10);
-            tv.setLayoutParams(lp);
+    private static String sideName(String side) {
+        return IdCardPairScan.FRONT.equals(side) ? "人像面" : "国徽面";
+    }
 
-            layoutHistory.addView(tv);
+    private final IdCardPairScan.Listener pairListener = new IdCardPairScan.Listener() {
+        @Override
+        public void onSideDone(String side) {
+            if (pairSide == null) tvResult.setText(sideName(side) + "已识别，等待另一面…");
         }
-    }
 
-    private String parseIdCard(String responseJson) {
-        try {
-            JSONObject root = new JSONObject(responseJson);
-            JSONObject resp = root.getJSONObject("Response");
-
-            if (resp.has("Error")) {
-                JSONObject err = resp.getJSONObject("Error");
-                return "调用失败：\nCode=" + err.optString("Code") +
-                        "\nMessage=" + err.optString("Message") +
-                        "\nRequestId=" + resp.optString("RequestId");
+        @Override
+        public void onSideFailed(String side, Exception error) {
+            boolean retake = error instanceof BadReadException || error instanceof ImageQualityException;
+            if (!retake || autoRescans >= MAX_AUTO_RESCANS) {
+                cancelPair(sideName(side) + "识别失败：" + error.getMessage());
+                return;
             }
+            // 只重拍失败的这一面，另一面的结果保留
+            autoRescans++;
+            Toast.makeText(IdCardActivity.this, sideName(side) + "需要重拍：" + error.getMessage(), Toast.LENGTH_SHORT).show();
+            if (pairSide != null) {
+                pendingRetake = side;   // 相机正在拍另一面
+            } else {
+                takePairSide(side);
+            }
+        }
 
-            String name = resp.optString("Name");
-            String sex = resp.optString("Sex");
-            String nation = resp.optString("Nation");
-            String birth = resp.optString("Birth");
-            String address = resp.optString("Address");
-            String idNum = resp.optString("IdNum");
-            String authority = resp.optString("Authority");
-            String validDate = resp.optString("ValidDate");
-
-            StringBuilder sb = new StringBuilder();
-            sb.append("身份证识别结果\n\n");
-            if (!name.isEmpty()) sb.append("姓名：").append(name).append("\n");
-            if (!sex.isEmpty()) sb.append("性别：").append(sex).append("\n");
-            if (!nation.isEmpty()) sb.append("民族：").append(nation).append("\n");
-            if (!birth.isEmpty()) sb.append("出生：").append(birth).append("\n");
-            if (!address.isEmpty()) sb.append("住址：").append(address).append("\n");
-            if (!idNum.isEmpty()) sb.append("身份证号：").append(idNum).append("\n");
-            if (!authority.isEmpty()) sb.append("签发机关：").append(authority).append("\n");
-            if (!validDate.isEmpty()) sb.append("有效期限：").append(validDate).append("\n");
-
-            sb.append("\nRequestId：").append(resp.optString("RequestId"));
-            return sb.toString();
+        @Override
+        public void onQualityWarning(String side, String message) {
+            Toast.makeText(IdCardActivity.this, sideName(side) + "：" + message, Toast.LENGTH_SHORT).show();
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "解析失败：\n" + responseJson;
+        @Override
+        public void onMerged(HistoryStore.Item item) {
+            pair = null;
+            autoRescans = 0;
+            setLoading(false);
+            tvResult.setText(item.detail);
+            // 写库失败（id < 0）的记录不进列表，和批量识别一致
+            if (item.id >= 0) history.prepend(item);
         }
+    };
+
+    private void startBatch(List<Uri> uris) {
+        setLoading(true);
+        tvResult.setText("批量识别中：0/" + uris.size());
+
+        batch = new BatchOcrPipeline(this, BatchOcrPipeline.Config.idCard(getCardSideOnce()), new BatchOcrPipeline.Listener() {
+            @Override
+            public void onItemDone(int index, int done, int total, HistoryStore.Item item, Exception error) {
+                tvResult.setText("批量识别中：" + done + "/" + total +
+                        (error == null ? "" : "\n第 " + (index + 1) + " 张失败：" + error.getMessage()));
+                // 和单张识别一样插到最前面，已经加载的分页保持不动
+                if (error == null && item.id >= 0) history.prepend(item);
+            }
+
+            @Override
+            public void onFinished(int total, int failed, long elapsedMs, double itemsPerSecond) {
+                batch = null;
+                setLoading(false);
+                tvResult.setText(String.format(Locale.getDefault(),
+                        "批量识别完成：共 %d 张，失败 %d 张\n耗时 %.1f 秒，吞吐 %.2f 张/秒",
+                        total, failed, elapsedMs / 1000.0, itemsPerSecond));
+            }
+        });
+        batch.start(uris);
     }
 
-    private Bitmap decodeBitmapFromUri(Uri uri, int reqWidth, int reqHeight) {
-        try {
-            BitmapFactory.Options opts = new BitmapFactory.Options();
-            opts.inJustDecodeBounds = true;
-            InputStream is1 = getContentResolver().openInputStream(uri);
-            BitmapFactory.decodeStream(is1, null, opts);
-            if (is1 != null) is1.close();
-
-            opts.inSampleSize = calculateInSampleSize(opts, reqWidth, reqHeight);
-            opts.inJustDecodeBounds = false;
-
-            InputStream is2 = getContentResolver().openInputStream(uri);
-            Bitmap bitmap = BitmapFactory.decodeStream(is2, null, opts);
-            if (is2 != null) is2.close();
-            return bitmap;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (batch != null) batch.cancel();
+        if (pair != null) pair.cancel();
+        OcrJobQueue.get(this).removeListener(queueListener);
+    }
+
+    private void showQueue(int depth, long oldestCreatedAt, int failed) {
+        // 队列变短说明有任务补识别完了，刷新历史
+        if (lastQueueDepth > depth) history.refresh();
+        lastQueueDepth = depth;
+        queueFailed = failed;
+
+        if (depth == 0 && failed == 0) {
+            tvQueue.setVisibility(View.GONE);
+            return;
         }
+        StringBuilder text = new StringBuilder();
+        if (depth > 0) {
+            long minutes = (System.currentTimeMillis() - oldestCreatedAt) / 60_000;
+            text.append("离线队列：").append(depth).append(" 条，最早 ").append(minutes).append(" 分钟前");
+        }
+        if (failed > 0) {
+            if (text.length() > 0) text.append("；");
+            text.append(failed).append(" 张识别失败");
+        }
+        text.append(failed > 0 ? "（点击处理）" : "（点击重试）");
+        tvQueue.setVisibility(View.VISIBLE);
+        tvQueue.setText(text);
     }
 
-    private int calculateInSampleSize(BitmapFactory.Options options, int reqWidth, int reqHeight) {
-        int height = options.outHeight;
-        int width = options.outWidth;
-        int inSampleSize = 1;
-        while ((height / inSampleSize) > reqHeight || (width / inSampleSize) > reqWidth) {
-            inSampleSize *= 2;
+    // 有失败的任务时让用户选：再试一次，或丢弃后重新拍
+    private void onQueueClicked() {
+        OcrJobQueue queue = OcrJobQueue.get(this);
+        if (queueFailed == 0) {
+            queue.retryNow();
+            return;
         }
-        return inSampleSize;
+        new AlertDialog.Builder(this)
+                .setTitle(queueFailed + " 张照片识别失败")
+                .setMessage("可能是照片模糊或网络多次失败。可以再试一次，或丢弃后重新拍摄。")
+                .setPositiveButton("再试一次", (d, w) -> queue.retryFailed())
+                .setNegativeButton("丢弃", (d, w) -> queue.dismissFailed())
+                .setNeutralButton("取消", null)
+                .show();
     }
 
-    private String bitmapToBase64(Bitmap bitmap, int jpegQuality) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, jpegQuality, baos);
-        byte[] bytes = baos.toByteArray();
-        return Base64.encodeToString(bytes, Base64.NO_WRAP);
+    private void setLoading(boolean loading) {
+        // 识别中显示进度并禁用按钮（防止用户连点多次请求）
+        progress.setVisibility(loading ? View.VISIBLE : View.GONE);
+        btnCamera.setEnabled(!loading);
+        btnPair.setEnabled(!loading);
+        btnPreview.setEnabled(!loading);
+        btnBatch.setEnabled(!loading);
+        btnCopy.setEnabled(!loading);
+        rgSide.setEnabled(!loading);
     }
 }
@@ -0,0 +1,157 @@
+package com.example.scancard;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 身份证双面识别：人像面、国徽面各自一个 OcrPipeline.recognize() 任务，拍完一面立刻开始识别，
+ * 用户翻面拍另一面的同时前一面已经在上传，两面的请求在线程池上并行，总耗时约等于一次往返。
+ * 两面都成功后合并成一条记录、写一条历史；一面失败只重试 / 重拍这一面，另一面的结果保留。
+ * 只在主线程调用，回调也在主线程。
+ */
+public class IdCardPairScan {
+
+    public static final String FRONT = "FRONT";
+    public static final String BACK = "BACK";
+    // 历史记录里的 cardSide
+    public static final String BOTH = "BOTH";
+
+    // 网络错误时这一面自动重发几次，之后交给用户
+    private static final int MAX_NETWORK_RETRIES = 1;
+
+    public interface Listener {
+        // 这一面识别完成（另一面可能还在跑）
+        void onSideDone(String side);
+
+        // 这一面失败，需要重拍（读错 / 画面不合格）或稍后重试；另一面不受影响
+        void onSideFailed(String side, Exception error);
+
+        void onQualityWarning(String side, String message);
+
+        // 两面都成功，已写入历史
+        void onMerged(HistoryStore.Item item);
+    }
+
+    private static class Side {
+        final String name;
+        Uri uri;
+        File photo;
+        OcrPipeline.Job job;
+        IdCardResult result;
+        int retries;
+
+        Side(String name) {
+            this.name = name;
+        }
+    }
+
+    private final Context appContext;
+    private final LifecycleOwner owner;
+    private final OcrPipeline pipeline;
+    private final Listener listener;
+    private final Side front = new Side(FRONT);
+    private final Side back = new Side(BACK);
+    private long startNanos;
+    private boolean merged;
+
+    public IdCardPairScan(Context ctx, LifecycleOwner owner, OcrPipeline pipeline, Listener listener) {
+        this.appContext = ctx.getApplicationContext();
+        this.owner = owner;
+        this.pipeline = pipeline;
+        this.listener = listener;
+    }
+
+    /**
+     * 提交（或重拍后重新提交）一面；这一面之前的任务和结果作废
+     */
+    public void submit(String sideName, Uri uri, File photo) {
+        Side side = side(sideName);
+        if (side.job != null) side.job.cancel();
+        side.uri = uri;
+        side.photo = photo;
+        side.result = null;
+        side.retries = 0;
+        if (startNanos == 0) startNanos = System.nanoTime();
+        start(side);
+    }
+
+    public boolean isDone(String sideName) {
+        return side(sideName).result != null;
+    }
+
+    public boolean isRunning(String sideName) {
+        return side(sideName).job != null;
+    }
+
+    public void cancel() {
+        if (front.job != null) front.job.cancel();
+        if (back.job != null) back.job.cancel();
+        front.job = null;
+        back.job = null;
+    }
+
+    private Side side(String name) {
+        return FRONT.equals(name) ? front : back;
+    }
+
+    private void start(Side side) {
+        OcrPipeline.Request request = new OcrPipeline.Request(CardType.ID_CARD, side.uri, side.name, side.photo);
+        side.job = pipeline.recognize(owner, request, new OcrPipeline.ResultCallback() {
+            @Override
+            public void onResult(OcrResult result) {
+                side.job = null;
+                side.result = (IdCardResult) result;
+                listener.onSideDone(side.name);
+                if (front.result != null && back.result != null) merge();
+            }
+
+            @Override
+            public void onFailure(Exception error, boolean queuedOffline) {
+                side.job = null;
+                if (error instanceof IOException && side.retries < MAX_NETWORK_RETRIES) {
+                    // 网络抖动：只重发这一面
+                    side.retries++;
+                    start(side);
+                    return;
+                }
+                listener.onSideFailed(side.name, error);
+            }
+
+            @Override
+            public void onQualityWarning(String message) {
+                listener.onQualityWarning(side.name, message);
+            }
+        });
+    }
+
+    // 两面都有结果：合并、写一条历史
+    private void merge() {
+        if (merged) return;
+        merged = true;
+        IdCardResult result = IdCardResult.merge(front.result, back.result);
+        long start = startNanos;
+        AppExecutors.diskIO().execute(() -> {
+            long t = System.nanoTime();
+            String display = OcrResultFormatter.format(result);
+            HistoryStore.Item item = HistoryStore.fromResult(HistoryStore.KEY_IDCARD, result, display);
+            item.brief = "身份证(双面)：点击回看";
+            item.cardSide = BOTH;
+            // 历史只记一张照片：保留按人像面提交的那张，另一张之后按孤儿清理
+            if (front.photo != null) item.photoPath = front.photo.getAbsolutePath();
+            HistoryStore.add(appContext, item);
+            ScanMetrics.get().since(ScanMetrics.PERSIST, t);
+            ScanMetrics.get().since(ScanMetrics.PAIR_TOTAL, start);
+            if (item.id >= 0) PhotoStore.get(appContext).onKept(item.photoPath);
+            AppExecutors.main(() -> {
+                // 已写入历史；页面已销毁就不回调了
+                if (owner.getLifecycle().getCurrentState() != Lifecycle.State.DESTROYED) listener.onMerged(item);
+            });
+        });
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.scancard;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * 按字节预算压缩图片：
+ * 1) inSampleSize 粗缩放（保证不小于目标尺寸），中间图的内存从 BitmapPool 复用
+ * 2) 精确缩放到目标长边
+ * 3) 在 [minQuality, maxQuality] 里二分找满足预算的最高 JPEG 质量
+ * 4) 最低质量还超预算时再缩小尺寸，但不低于卡片要求的最小分辨率
+ * 上传前可先 cropCard() 只保留卡片区域，桌面背景不再占用字节预算。
+ * 压缩结果放在池化的 SpoolBuffer 里，用完 release()。
+ */
+public class ImageEncoder {
+
+    private static final String TAG = "ImageEncoder";
+
+    // 每轮最多试几次质量
+    private static final int MAX_PROBES = 6;
+    // 尺寸不够小时每次缩到原来的 80%
+    private static final float DOWNSCALE_STEP = 0.8f;
+
+    private static final ImageQualityAnalyzer QUALITY = new ImageQualityAnalyzer();
+    private static final CardDetector DETECTOR = new CardDetector();
+
+    public static class Spec {
+        public final int targetBytes;    // JPEG 字节预算
+        public final int maxLongSide;    // 理想长边
+        public final int minLongSide;    // 保证文字可识别的最小长边
+        public final int minQuality;
+        public final int maxQuality;
+
+        public Spec(int targetBytes, int maxLongSide, int minLongSide, int minQuality, int maxQuality) {
+            this.targetBytes = targetBytes;
+            this.maxLongSide = maxLongSide;
+            this.minLongSide = minLongSide;
+            this.minQuality = minQuality;
+            this.maxQuality = maxQuality;
+        }
+
+        // 身份证字多、住址小字，需要更高分辨率
+        public static final Spec ID_CARD = new Spec(300 * 1024, 1600, 1000, 55, 90);
+        // 银行卡主要是凸印卡号，分辨率要求低一些
+        public static final Spec BANK_CARD = new Spec(200 * 1024, 1280, 800, 55, 90);
+    }
+
+    public static class Result {
+        public final int width;
+        public final int height;
+        public final int quality;
+        public final int probes;         // 一共压缩了几次
+        private final SpoolBuffer jpeg;
+
+        Result(SpoolBuffer jpeg, int width, int height, int quality, int probes) {
+            this.jpeg = jpeg;
+            this.width = width;
+            this.height = height;
+            this.quality = quality;
+            this.probes = probes;
+        }
+
+        public int bytes() {
+            return jpeg.length();
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            jpeg.copyTo(out);
+        }
+
+        public void release() {
+            jpeg.release();
+        }
+
+        /**
+         * 把 JPEG 流式拼成 OCR 请求体，之后本对象的缓冲即被归还
+         */
+        public OcrPayload toPayload(Map<String, String> fields) throws IOException {
+            try {
+                return OcrPayload.build(this::writeTo, fields);
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return width + "x" + height + " q=" + quality + " " + bytes() + "B (" + probes + " probes)";
+        }
+    }
+
+    /**
+     * 读取并精确缩放到 spec.maxLongSide（原图更小则保持原尺寸）
+     */
+    public static Bitmap decodeScaled(Context ctx, Uri uri, Spec spec) {
+        Bitmap bitmap = decodeSampled(ctx, uri, spec.maxLongSide);
+        return bitmap != null ? scaleToLongSide(bitmap, spec.maxLongSide) : null;
+    }
+
+    /**
+     * 只做粗缩放：取最大的 2 的幂，使解码后长边仍 >= minLongSide；解码内存从 BitmapPool 复用
+     */
+    public static Bitmap decodeSampled(Context ctx, Uri uri, int minLongSide) {
+        try {
+            BitmapFactory.Options opts = new BitmapFactory.Options();
+            opts.inJustDecodeBounds = true;
+            InputStream is1 = ctx.getContentResolver().openInputStream(uri);
+            BitmapFactory.decodeStream(is1, null, opts);
+            if (is1 != null) is1.close();
+            if (opts.outWidth <= 0 || opts.outHeight <= 0) return null;
+
+            int longSide = Math.max(opts.outWidth, opts.outHeight);
+            int inSampleSize = 1;
+            while (longSide / (inSampleSize * 2) >= minLongSide) {
+                inSampleSize *= 2;
+            }
+            return BitmapPool.decode(() -> ctx.getContentResolver().openInputStream(uri),
+                    opts.outWidth, opts.outHeight, inSampleSize);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 精确缩放；缩放后原 bitmap 还回 BitmapPool，调用方之后不要再用它
+     */
+    public static Bitmap scaleToLongSide(Bitmap bitmap, int longSide) {
+        int w = bitmap.getWidth();
+        int h = bitmap.getHeight();
+        int current = Math.max(w, h);
+        if (current <= longSide) return bitmap;
+
+        float scale = longSide / (float) current;
+        int dw = Math.max(1, Math.round(w * scale));
+        int dh = Math.max(1, Math.round(h * scale));
+        Bitmap scaled = BitmapPool.get(dw, dh);
+        new Canvas(scaled).drawBitmap(bitmap, null, new Rect(0, 0, dw, dh), new Paint(Paint.FILTER_BITMAP_FLAG));
+        BitmapPool.put(bitmap);
+        return scaled;
+    }
+
+    /**
+     * 缩小出一份新图（界面显示用，不进 BitmapPool），原 bitmap 不受影响
+     */
+    public static Bitmap scaledCopy(Bitmap bitmap, int longSide) {
+        int w = bitmap.getWidth();
+        int h = bitmap.getHeight();
+        float scale = Math.min(1f, longSide / (float) Math.max(w, h));
+        Bitmap copy = Bitmap.createScaledBitmap(bitmap,
+                Math.max(1, Math.round(w * scale)), Math.max(1, Math.round(h * scale)), true);
+        return copy != bitmap ? copy : bitmap.copy(Bitmap.Config.ARGB_8888, false);
+    }
+
+    /**
+     * 分析用的小图像素：先缩到分析尺寸再取像素（不拷贝整张大图），质量检查和卡片检测共用
+     */
+    public static class AnalysisFrame {
+        public final int[] pixels;
+        public final int width;
+        public final int height;
+        public final float scale;        // 原 bitmap 像素 / 小图像素
+
+        AnalysisFrame(int[] pixels, int width, int height, float scale) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+        }
+    }
+
+    public static AnalysisFrame analysisFrame(Bitmap bitmap) {
+        int w = bitmap.getWidth();
+        int h = bitmap.getHeight();
+        Bitmap small = bitmap;
+        int longSide = Math.max(w, h);
+        if (longSide > ImageQualityAnalyzer.ANALYSIS_SIDE) {
+            float scale = ImageQualityAnalyzer.ANALYSIS_SIDE / (float) longSide;
+            int sw = Math.max(3, Math.round(w * scale));
+            int sh = Math.max(3, Math.round(h * scale));
+            small = BitmapPool.get(sw, sh);
+            new Canvas(small).drawBitmap(bitmap, null, new Rect(0, 0, sw, sh), new Paint(Paint.FILTER_BITMAP_FLAG));
+        }
+        int sw = small.getWidth();
+        int sh = small.getHeight();
+        int[] pixels = new int[sw * sh];
+        small.getPixels(pixels, 0, sw, 0, 0, sw, sh);
+        if (small != bitmap) BitmapPool.put(small);
+        return new AnalysisFrame(pixels, sw, sh, w / (float) sw);
+    }
+
+    /**
+     * 上传前的质量检查，原 bitmap 不受影响
+     */
+    public static ImageQualityAnalyzer.Report analyzeQuality(AnalysisFrame frame) {
+        return QUALITY.analyze(frame.pixels, frame.width, frame.height);
+    }
+
+    /**
+     * 找到卡片时裁剪并透视校正成 ID-1 比例的横向图，宽度取卡片在原图里的宽度（文字分辨率不变），
+     * 原 bitmap 还回 BitmapPool；找不到卡片时原样返回整张图
+     */
+    public static Bitmap cropCard(Bitmap bitmap, AnalysisFrame frame) {
+        CardDetector.Quad quad = DETECTOR.detect(frame.pixels, frame.width, frame.height);
+        if (quad == null) return bitmap;
+        quad = quad.scale(frame.scale);
+
+        int outW = Math.round(quad.width());
+        int outH = Math.round((float) (outW / CardDetector.ID1_ASPECT));
+        if (outW < 3 || outH < 3) return bitmap;
+
+        float[] dst = {0, 0, outW, 0, outW, outH, 0, outH};
+        Matrix matrix = new Matrix();
+        if (!matrix.setPolyToPoly(quad.corners, 0, dst, 0, 4)) return bitmap;
+
+        Bitmap out = BitmapPool.get(outW, outH);
+        new Canvas(out).drawBitmap(bitmap, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+        Log.d(TAG, "card " + quad + " -> " + outW + "x" + outH);
+        BitmapPool.put(bitmap);
+        return out;
+    }
+
+    /**
+     * 按预算压缩。传入的 bitmap 可能在内部被缩小，最后都还回 BitmapPool，调用方之后不要再用它。
+     */
+    public static Result compress(Bitmap bitmap, Spec spec) throws IOException {
+        Bitmap current = bitmap;
+        int totalProbes = 0;
+        try {
+            while (true) {
+                SpoolBuffer best = SpoolBuffer.acquire();
+                SpoolBuffer scratch = SpoolBuffer.acquire();
+                int bestQuality = -1;
+                int lo = spec.minQuality;
+                int hi = spec.maxQuality;
+                int probes = 0;
+
+                // 先试最高质量，小图往往一次就满足
+                int q = hi;
+                while (lo <= hi && probes < MAX_PROBES) {
+                    scratch.reset();
+                    compressTo(current, q, scratch);
+                    probes++;
+                    if (scratch.length() <= spec.targetBytes) {
+                        bestQuality = q;
+                        SpoolBuffer t = best;
+                        best = scratch;
+                        scratch = t;
+                        lo = q + 1;
+                    } else {
+                        hi = q - 1;
+                    }
+                    q = (lo + hi) >>> 1;
+                }
+                totalProbes += probes;
+
+                int longSide = Math.max(current.getWidth(), current.getHeight());
+                boolean canShrink = longSide > spec.minLongSide;
+
+                if (bestQuality >= 0 || !canShrink) {
+                    if (bestQuality < 0) {
+                        // 最小分辨率 + 最低质量仍超预算：按最低质量交付，交给服务端判断
+                        best.reset();
+                        compressTo(current, spec.minQuality, best);
+                        bestQuality = spec.minQuality;
+                        totalProbes++;
+                    }
+                    scratch.release();
+                    Result r = new Result(best, current.getWidth(), current.getHeight(), bestQuality, totalProbes);
+                    Log.d(TAG, "encoded " + r);
+                    return r;
+                }
+
+                best.release();
+                scratch.release();
+                int next = Math.max(spec.minLongSide, Math.round(longSide * DOWNSCALE_STEP));
+                current = scaleToLongSide(current, next);
+            }
+        } finally {
+            BitmapPool.put(current);
+        }
+    }
+
+    private static void compressTo(Bitmap bitmap, int quality, OutputStream out) throws IOException {
+        if (!bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out)) {
+            throw new IOException("JPEG 压缩失败");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.scancard;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.view.View;
+import android.widget.ImageView;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * 界面用的图片解码，全部在 AppExecutors.image() 上做，主线程不再解码整张相机原图：
+ * - loadCaptured：刚拍的照片只解码一次（识别要的尺寸），从同一张图缩一份给预览，原图交给识别流水线
+ * - loadPreview：只要预览（双面识别时每一面的请求各自读文件）
+ * - loadThumbnail：历史列表缩略图，走 ThumbnailCache
+ * 结果回主线程；ImageView 的 tag 记着最后一次请求，复用的列表条目不会显示到旧图。
+ */
+public class ImageLoader {
+
+    public interface Decoded {
+        // 主线程；解码失败时 frame 为 null
+        void onDecoded(Bitmap frame);
+    }
+
+    // View 还没量出尺寸时预览按这个长边解码
+    private static final int DEFAULT_PREVIEW_SIDE = 1080;
+
+    /**
+     * 解码到 spec 尺寸：预览显示缩小的一份，frame 交给回调（之后归识别流水线，用完回收）
+     */
+    public static void loadCaptured(LifecycleOwner owner, ImageView view, Uri uri,
+                                    ImageEncoder.Spec spec, Decoded callback) {
+        Context ctx = view.getContext().getApplicationContext();
+        int side = previewSide(view);
+        view.setTag(uri);
+        AppExecutors.image().execute(() -> {
+            Bitmap frame = ImageEncoder.decodeScaled(ctx, uri, spec);
+            Bitmap preview = frame != null ? ImageEncoder.scaledCopy(frame, side) : null;
+            AppExecutors.main(() -> {
+                if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+                    BitmapPool.put(frame);
+                    return;
+                }
+                if (uri.equals(view.getTag())) view.setImageBitmap(preview);
+                callback.onDecoded(frame);
+            });
+        });
+    }
+
+    public static void loadPreview(ImageView view, Uri uri) {
+        Context ctx = view.getContext().getApplicationContext();
+        int side = previewSide(view);
+        view.setTag(uri);
+        AppExecutors.image().execute(() -> {
+            Bitmap sampled = ImageEncoder.decodeSampled(ctx, uri, side);
+            Bitmap preview = null;
+            if (sampled != null) {
+                preview = ImageEncoder.scaledCopy(sampled, side);
+                BitmapPool.put(sampled);
+            }
+            Bitmap shown = preview;
+            AppExecutors.main(() -> {
+                if (uri.equals(view.getTag())) view.setImageBitmap(shown);
+            });
+        });
+    }
+
+    /**
+     * photoPath 为空（相册导入 / 照片已清理）时隐藏缩略图
+     */
+    public static void loadThumbnail(ImageView view, String photoPath) {
+        view.setTag(photoPath);
+        if (photoPath == null) {
+            view.setImageDrawable(null);
+            view.setVisibility(View.GONE);
+            return;
+        }
+        view.setVisibility(View.VISIBLE);
+        ThumbnailCache cache = ThumbnailCache.get(view.getContext());
+        Bitmap cached = cache.memoryGet(photoPath);
+        if (cached != null) {
+            view.setImageBitmap(cached);
+            return;
+        }
+        view.setImageDrawable(null);
+        AppExecutors.image().execute(() -> {
+            Bitmap thumb = cache.load(photoPath);
+            AppExecutors.main(() -> {
+                if (!photoPath.equals(view.getTag())) return;
+                if (thumb != null) {
+                    view.setImageBitmap(thumb);
+                } else {
+                    view.setVisibility(View.GONE);
+                }
+            });
+        });
+    }
+
+    private static int previewSide(ImageView view) {
+        int side = Math.max(view.getWidth(), view.getHeight());
+        return side > 0 ? side : DEFAULT_PREVIEW_SIDE;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.scancard;
+
+/**
+ * 图片质量不合格（模糊 / 反光 / 没拍到卡片），没有上传，需要用户重拍
+ */
+public class ImageQualityException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public final transient ImageQualityAnalyzer.Report report;   // 只在进程内传递，不参与序列化
+
+    public ImageQualityException(ImageQualityAnalyzer.Report report) {
+        super(report.problem);
+        this.report = report;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.scancard;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 本地校验用的两份索引（bin_index.bin、region_index.bin）的进程级单例：资源不压缩（见 build.gradle 的 noCompress），
+ * 直接把 APK 里那一段内存映射进来，不占 Java 堆。第一次用到时才在识别线程上加载，不拖慢页面启动；
+ * 加载失败时返回 null，识别照常进行只是不做对应的校验。
+ */
+public class IndexAssets {
+
+    private static BinIndex bins;
+    private static boolean binsFailed;
+    private static RegionIndex regions;
+    private static boolean regionsFailed;
+
+    public static synchronized BinIndex bins(Context ctx) {
+        if (bins == null && !binsFailed) {
+            try {
+                bins = BinIndex.load(map(ctx.getApplicationContext(), "bin_index.bin"));
+            } catch (IOException e) {
+                e.printStackTrace();
+                binsFailed = true;
+            }
+        }
+        return bins;
+    }
+
+    public static synchronized RegionIndex regions(Context ctx) {
+        if (regions == null && !regionsFailed) {
+            try {
+                regions = RegionIndex.load(map(ctx.getApplicationContext(), "region_index.bin"));
+            } catch (IOException e) {
+                e.printStackTrace();
+                regionsFailed = true;
+            }
+        }
+        return regions;
+    }
+
+    private static ByteBuffer map(Context ctx, String asset) throws IOException {
+        try (AssetFileDescriptor afd = ctx.getAssets().openFd(asset);
+             FileInputStream in = afd.createInputStream()) {
+            return in.getChannel().map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getLength());
+        } catch (IOException compressed) {
+            // 资源被压缩时 openFd 会失败：退回整块读进内存
+            try (InputStream in = ctx.getAssets().open(asset)) {
+                byte[] buf = new byte[64 * 1024];
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                int n;
+                while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+                return ByteBuffer.wrap(out.toByteArray());
+            }
+        }
+    }
+}
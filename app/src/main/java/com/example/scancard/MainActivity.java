@@ -2,6 +2,7 @@ package com.example.scancard;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.Button;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -12,6 +13,7 @@ public class MainActivity extends AppCompatActivity {
 
     private Button btnToIdCard;
     private Button btnToBankCard;
+    private Button btnToMetrics;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -20,6 +22,7 @@ public class MainActivity extends AppCompatActivity {
 
         btnToIdCard = findViewById(R.id.btn_to_idcard);
         btnToBankCard = findViewById(R.id.btn_to_bankcard);
+        btnToMetrics = findViewById(R.id.btn_to_metrics);
 
         btnToIdCard.setOnClickListener(v -> {
             startActivity(new Intent(MainActivity.this, IdCardActivity.class));
@@ -28,5 +31,13 @@ public class MainActivity extends AppCompatActivity {
         btnToBankCard.setOnClickListener(v -> {
             startActivity(new Intent(MainActivity.this, BankCardActivity.class));
         });
+
+        // 调试包才显示性能数据入口
+        if (BuildConfig.DEBUG) {
+            btnToMetrics.setVisibility(View.VISIBLE);
+            btnToMetrics.setOnClickListener(v -> {
+                startActivity(new Intent(MainActivity.this, MetricsActivity.class));
+            });
+        }
     }
 }
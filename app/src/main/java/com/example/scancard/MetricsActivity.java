@@ -0,0 +1,63 @@
+package com.example.scancard;
+
+import android.content.ClipData;
+import android.content.ClipboardManager;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+/**
+ * 调试页：查看各阶段耗时分位数和数据量，导出 JSON
+ */
+public class MetricsActivity extends AppCompatActivity {
+
+    private TextView tvMetrics;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+
+        tvMetrics = findViewById(R.id.tv_metrics);
+        Button btnRefresh = findViewById(R.id.btn_metrics_refresh);
+        Button btnExport = findViewById(R.id.btn_metrics_export);
+        Button btnReset = findViewById(R.id.btn_metrics_reset);
+
+        btnRefresh.setOnClickListener(v -> render());
+
+        // 导出：复制到剪贴板，同时弹出分享
+        btnExport.setOnClickListener(v -> {
+            String json = ScanMetrics.get().toJson();
+            ClipboardManager cm = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
+            cm.setPrimaryClip(ClipData.newPlainText("Scan metrics", json));
+
+            Intent send = new Intent(Intent.ACTION_SEND);
+            send.setType("application/json");
+            send.putExtra(Intent.EXTRA_TEXT, json);
+            startActivity(Intent.createChooser(send, "导出性能数据"));
+        });
+
+        btnReset.setOnClickListener(v -> {
+            ScanMetrics.get().reset();
+            render();
+            Toast.makeText(this, "已清空", Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        render();
+    }
+
+    private void render() {
+        ScanMetrics metrics = ScanMetrics.get();
+        String text = metrics.isEmpty() ? "暂无数据，先去识别几张证件\n" : metrics.formatText();
+        tvMetrics.setText(text + "\n接入地域（* 为当前）\n" + TencentOcrClient.describeRegions());
+    }
+}
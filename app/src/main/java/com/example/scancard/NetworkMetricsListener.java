@@ -0,0 +1,104 @@
+package com.example.scancard;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * OkHttp 网络阶段计时：DNS / 建连 / TLS / 上传 / 等待服务端 / 下载，写入 ScanMetrics。
+ * 每个 Call 一个实例，所以字段不需要同步。
+ */
+public class NetworkMetricsListener extends EventListener {
+
+    // 预热请求的 tag：不计入统计，否则 HEAD 请求会拉低网络各段的耗时
+    public static final String PREWARM = "prewarm";
+
+    public static final Factory FACTORY = call ->
+            PREWARM.equals(call.request().tag(String.class)) ? EventListener.NONE : new NetworkMetricsListener();
+
+    private final ScanMetrics metrics = ScanMetrics.get();
+
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long tlsStart;
+    private long requestStart;
+    private long requestEnd;
+    private long responseStart;
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        metrics.since(ScanMetrics.NET_DNS, dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        tlsStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        metrics.since(ScanMetrics.NET_TLS, tlsStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        metrics.since(ScanMetrics.NET_CONNECT, connectStart);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestEnd = metrics.since(ScanMetrics.NET_UPLOAD, requestStart);
+        metrics.recordBytes(ScanMetrics.BYTES_REQUEST, byteCount);
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        responseStart = System.nanoTime();
+        if (requestEnd != 0) metrics.recordNanos(ScanMetrics.NET_WAIT, responseStart - requestEnd);
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        metrics.since(ScanMetrics.NET_DOWNLOAD, responseStart);
+        metrics.recordBytes(ScanMetrics.BYTES_RESPONSE, byteCount);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        metrics.since(ScanMetrics.NET_CALL, callStart);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        metrics.since(ScanMetrics.NET_CALL, callStart);
+    }
+}
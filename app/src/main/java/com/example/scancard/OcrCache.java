@@ -0,0 +1,287 @@
+package com.example.scancard;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OCR 结果缓存，挡在 TencentOcrClient 前面：
+ * - key = SHA-256(action | version | 请求体哈希)，请求体里已经包含图片和 CardSide
+ * - 内存 LRU + 磁盘（带过期时间和总大小上限）两级
+ * - 相同请求同时进来只发一次网络请求，其余等待同一个结果
+ * - 返回 Response.Error 的结果一律不缓存
+ * - 返回 OcrReply：网络结果用客户端已经解析好的，磁盘命中时解析一次，内存里存解析后的结果
+ */
+public class OcrCache {
+
+    public interface Fetcher {
+        OcrReply fetch(String action, String version, OcrPayload payload, CancelToken cancel) throws Exception;
+    }
+
+    private static final int MEMORY_ENTRIES = 32;
+    private static final long DISK_TTL_MS = 24 * 60 * 60 * 1000L;
+    private static final long DISK_MAX_BYTES = 4 * 1024 * 1024L;
+
+    // 进行中的请求，连同发起方的取消标记：发起方取消了，等待的调用方要自己重新发
+    private static final class Flight {
+        final FutureTask<OcrReply> task;
+        final CancelToken cancel;
+
+        Flight(FutureTask<OcrReply> task, CancelToken cancel) {
+            this.task = task;
+            this.cancel = cancel;
+        }
+
+        boolean cancelled() {
+            return cancel != null && cancel.isCancelled();
+        }
+    }
+
+    private static OcrCache instance;
+
+    private final File dir;
+    private final long ttlMs;
+    private final long maxDiskBytes;
+    private final Fetcher fetcher;
+    private final Map<String, OcrReply> memory;
+    private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public static synchronized OcrCache get(Context ctx) {
+        if (instance == null) {
+            File dir = new File(ctx.getApplicationContext().getCacheDir(), "ocr_cache");
+            instance = new OcrCache(dir, DISK_TTL_MS, MEMORY_ENTRIES, TencentOcrClient::fetch);
+        }
+        return instance;
+    }
+
+    OcrCache(File dir, long ttlMs, final int memoryEntries, Fetcher fetcher) {
+        this(dir, ttlMs, DISK_MAX_BYTES, memoryEntries, fetcher);
+    }
+
+    OcrCache(File dir, long ttlMs, long maxDiskBytes, final int memoryEntries, Fetcher fetcher) {
+        this.dir = dir;
+        this.ttlMs = ttlMs;
+        this.maxDiskBytes = maxDiskBytes;
+        this.fetcher = fetcher;
+        this.memory = new LinkedHashMap<String, OcrReply>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OcrReply> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        if (!dir.exists()) dir.mkdirs();
+    }
+
+    public OcrReply call(String action, String version, OcrPayload payload) throws Exception {
+        return call(action, version, payload, null);
+    }
+
+    /**
+     * cancel 只作用于本次调用自己发起的网络请求，合并等待别人的结果时不会中断等待。
+     * 被合并的请求如果被它的发起方取消，等待的调用方会接手重新发起，不会收到别人的取消。
+     */
+    public OcrReply call(String action, String version, OcrPayload payload, CancelToken cancel) throws Exception {
+        return call(action, version, payload, cancel, fetcher);
+    }
+
+    /**
+     * 只查缓存（内存 + 磁盘），不发请求；没有返回 null。
+     * 批量流水线先查一下，命中就不用签名和上传。
+     */
+    public OcrReply peek(String action, String version, OcrPayload payload) {
+        String key = key(action, version, payload);
+        OcrReply cached = memoryGet(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+        return diskLoad(key, action);
+    }
+
+    /**
+     * 指定这次未命中时怎么取（比如发送已经签好名的请求），缓存和合并照常
+     */
+    public OcrReply call(String action, String version, OcrPayload payload, CancelToken cancel,
+                       Fetcher fetcher) throws Exception {
+        String key = key(action, version, payload);
+
+        while (true) {
+            OcrReply cached = memoryGet(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+
+            FutureTask<OcrReply> task = new FutureTask<>(() -> load(key, action, version, payload, cancel, fetcher));
+            Flight flight = new Flight(task, cancel);
+            Flight existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                try {
+                    task.run();
+                    return await(task);
+                } finally {
+                    inFlight.remove(key, flight);
+                }
+            }
+
+            // 同样的请求已经在路上，等它的结果
+            coalesced.incrementAndGet();
+            try {
+                return await(existing.task);
+            } catch (Exception e) {
+                // 发起方自己取消的（CancellationException 或 OkHttp 的 IOException 都有可能）：
+                // 清掉这条，下一轮由本调用方重新发起；其他失败照常抛给所有等待方
+                if (!existing.cancelled()) throw e;
+                coalesced.decrementAndGet();
+                inFlight.remove(key, existing);
+                if (cancel != null) cancel.throwIfCancelled();
+            }
+        }
+    }
+
+    private static String key(String action, String version, OcrPayload payload) {
+        return Tc3Signer.sha256Hex(action + "|" + version + "|" + payload.sha256Hex());
+    }
+
+    private OcrReply load(String key, String action, String version, OcrPayload payload,
+                          CancelToken cancel, Fetcher fetcher) throws Exception {
+        OcrReply fromDisk = diskLoad(key, action);
+        if (fromDisk != null) return fromDisk;
+
+        misses.incrementAndGet();
+        OcrReply reply = fetcher.fetch(action, version, payload, cancel);
+        if (reply.isSuccess()) {
+            memoryPut(key, reply);
+            diskPut(key, reply.json);
+        }
+        return reply;
+    }
+
+    // 磁盘命中：解析一次放进内存，之后的命中直接用解析好的结果
+    private OcrReply diskLoad(String key, String action) {
+        String json = diskGet(key);
+        if (json == null) return null;
+        diskHits.incrementAndGet();
+        OcrReply reply = new OcrReply(json, OcrResultParser.read(action, json));
+        memoryPut(key, reply);
+        return reply;
+    }
+
+    private static OcrReply await(FutureTask<OcrReply> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    private OcrReply memoryGet(String key) {
+        synchronized (memory) {
+            return memory.get(key);
+        }
+    }
+
+    private void memoryPut(String key, OcrReply value) {
+        synchronized (memory) {
+            memory.put(key, value);
+        }
+    }
+
+    private String diskGet(String key) {
+        File f = new File(dir, key + ".json");
+        if (!f.exists()) return null;
+        if (System.currentTimeMillis() - f.lastModified() > ttlMs) {
+            f.delete();
+            return null;
+        }
+        try (InputStream in = new FileInputStream(f)) {
+            byte[] data = new byte[(int) f.length()];
+            int off = 0;
+            while (off < data.length) {
+                int n = in.read(data, off, data.length - off);
+                if (n < 0) break;
+                off += n;
+            }
+            return new String(data, 0, off, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void diskPut(String key, String value) {
+        File tmp = new File(dir, key + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            e.printStackTrace();
+            tmp.delete();
+            return;
+        }
+        // 先写临时文件再改名，避免读到写了一半的文件
+        if (!tmp.renameTo(new File(dir, key + ".json"))) {
+            tmp.delete();
+        }
+        prune();
+    }
+
+    // 删掉过期的文件；剩下的总大小超过上限时，从最早写入的开始删
+    private void prune() {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        long now = System.currentTimeMillis();
+        long total = 0;
+        int live = 0;
+        for (int i = 0; i < files.length; i++) {
+            File f = files[i];
+            if (now - f.lastModified() > ttlMs) {
+                f.delete();
+            } else if (f.getName().endsWith(".json")) {
+                total += f.length();
+                files[live++] = f;
+            }
+        }
+        if (total <= maxDiskBytes) return;
+        File[] byAge = Arrays.copyOf(files, live);
+        Arrays.sort(byAge, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : byAge) {
+            if (total <= maxDiskBytes) break;
+            long len = f.length();
+            if (f.delete()) total -= len;
+        }
+    }
+
+    public long hits() {
+        return memoryHits.get() + diskHits.get() + coalesced.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public String stats() {
+        return "缓存命中：内存 " + memoryHits.get() + " / 磁盘 " + diskHits.get() +
+                " / 合并 " + coalesced.get() + "，未命中 " + misses.get();
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.scancard;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 离线识别队列：没网时把拍好的照片（路径 + 接口参数）存进数据库，进程被杀也不会丢；
+ * 网络恢复后自动按 (接口, 卡面) 分组，用批量流水线限并发补识别，结果照常写进历史。
+ * 网络错误按次数退避重试，超过上限或图片本身识别不了的任务标记为失败留在库里（照片不会被清理），
+ * 由用户在队列提示上选择再试或丢弃。
+ */
+public class OcrJobQueue {
+
+    public static class Job {
+        public long id;
+        public String photoPath;
+        public String action;
+        public String version;
+        public String cardSide;
+        public long createdAt;
+        public int attempts;
+    }
+
+    public interface Listener {
+        // 主线程回调：待补识别条数、其中最早一条的入队时间（没有时为 0）、识别失败等用户处理的条数
+        void onQueueChanged(int depth, long oldestCreatedAt, int failed);
+    }
+
+    // 网络错误最多自动重试的次数，之后转为失败
+    static final int MAX_ATTEMPTS = 5;
+    // 第 n 次失败后等 30s * 2^(n-1) 再自动重试，最长 30 分钟
+    static final long BASE_BACKOFF_MS = 30_000;
+    static final long MAX_BACKOFF_MS = 30 * 60_000;
+
+    private static OcrJobQueue instance;
+
+    private final Context appContext;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    // 网络回调和点击都会触发 drain，同一时间只允许一轮
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduledDrain = this::drain;
+
+    public static synchronized OcrJobQueue get(Context ctx) {
+        if (instance == null) {
+            instance = new OcrJobQueue(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private OcrJobQueue(Context appContext) {
+        this.appContext = appContext;
+    }
+
+    /**
+     * 监听网络，恢复时自动补识别；启动时如果有网也先跑一遍
+     */
+    public void startMonitoring() {
+        ConnectivityManager cm = (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return;
+        cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                drain();
+            }
+        });
+        if (isOnline()) drain();
+    }
+
+    public void enqueue(File photo, String action, String version, String cardSide) {
+        AppExecutors.diskIO().execute(() -> {
+            ContentValues v = new ContentValues();
+            v.put(HistoryDbHelper.JOB_PHOTO_PATH, photo.getAbsolutePath());
+            v.put(HistoryDbHelper.JOB_ACTION, action);
+            v.put(HistoryDbHelper.JOB_VERSION, version);
+            v.put(HistoryDbHelper.JOB_CARD_SIDE, cardSide);
+            v.put(HistoryDbHelper.JOB_CREATED_AT, System.currentTimeMillis());
+            db().insert(HistoryDbHelper.TABLE_JOBS, null, v);
+            publish();
+        });
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+        AppExecutors.diskIO().execute(this::publish);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    /**
+     * 补识别已到重试时间的任务（已在进行中则忽略）；网络恢复时自动调用
+     */
+    public void drain() {
+        drain(false);
+    }
+
+    /**
+     * 用户点了重试：不等退避时间，所有待补识别的任务都跑一遍
+     */
+    public void retryNow() {
+        drain(true);
+    }
+
+    /**
+     * 识别失败的任务重新放回队列，从头计重试次数
+     */
+    public void retryFailed() {
+        AppExecutors.diskIO().execute(() -> {
+            ContentValues v = new ContentValues();
+            v.putNull(HistoryDbHelper.JOB_FAILED_REASON);
+            v.put(HistoryDbHelper.JOB_ATTEMPTS, 0);
+            v.put(HistoryDbHelper.JOB_NEXT_ATTEMPT_AT, 0);
+            db().update(HistoryDbHelper.TABLE_JOBS, v, HistoryDbHelper.JOB_FAILED_REASON + " IS NOT NULL", null);
+            publish();
+            AppExecutors.main(this::retryNow);
+        });
+    }
+
+    /**
+     * 丢弃识别失败的任务；照片不再被引用，下次清理时删除
+     */
+    public void dismissFailed() {
+        AppExecutors.diskIO().execute(() -> {
+            db().delete(HistoryDbHelper.TABLE_JOBS, HistoryDbHelper.JOB_FAILED_REASON + " IS NOT NULL", null);
+            publish();
+        });
+    }
+
+    private void drain(boolean ignoreBackoff) {
+        if (!draining.compareAndSet(false, true)) return;
+        handler.removeCallbacks(scheduledDrain);
+        AppExecutors.diskIO().execute(() -> {
+            List<Job> jobs = loadPending(ignoreBackoff ? Long.MAX_VALUE : System.currentTimeMillis());
+            if (jobs.isEmpty()) {
+                draining.set(false);
+                scheduleNextDrain();
+                return;
+            }
+
+            // 同一接口、同一卡面的任务放进一个批次
+            Map<String, List<Job>> groups = new LinkedHashMap<>();
+            for (Job j : jobs) {
+                String key = j.action + "|" + j.version + "|" + j.cardSide;
+                List<Job> g = groups.get(key);
+                if (g == null) {
+                    g = new ArrayList<>();
+                    groups.put(key, g);
+                }
+                g.add(j);
+            }
+            AppExecutors.main(() -> runGroups(new ArrayList<>(groups.values()), 0));
+        });
+    }
+
+    // 各批次依次执行，批次内部由流水线并发
+    private void runGroups(List<List<Job>> groups, int next) {
+        if (next >= groups.size()) {
+            draining.set(false);
+            AppExecutors.diskIO().execute(this::scheduleNextDrain);
+            return;
+        }
+        List<Job> group = groups.get(next);
+        Job first = group.get(0);
+
+        List<Uri> uris = new ArrayList<>();
+        for (Job j : group) uris.add(Uri.fromFile(new File(j.photoPath)));
+
+        BatchOcrPipeline.Config config = BatchOcrPipeline.Config.forAction(first.action, first.cardSide);
+        config.version = first.version;
+        // 补传时放低并发，不和前台识别抢带宽
+        config.decodeThreads = 1;
+        config.encodeThreads = 1;
+        config.uploadThreads = 2;
+        config.maxInFlight = 3;
+
+        new BatchOcrPipeline(appContext, config, new BatchOcrPipeline.Listener() {
+            @Override
+            public void onItemDone(int index, int done, int total, HistoryStore.Item item, Exception error) {
+                Job job = group.get(index);
+                AppExecutors.diskIO().execute(() -> {
+                    if (error == null) {
+                        remove(job.id);
+                    } else if (error instanceof IOException && job.attempts + 1 < MAX_ATTEMPTS) {
+                        // 还是没网 / 服务不可用：退避后再试
+                        markAttempt(job.id, job.attempts + 1);
+                    } else {
+                        // 重试次数用完，或图片本身识别不了：留着等用户再试或丢弃
+                        markFailed(job.id, error);
+                    }
+                    publish();
+                });
+            }
+
+            @Override
+            public void onFinished(int total, int failed, long elapsedMs, double itemsPerSecond) {
+                runGroups(groups, next + 1);
+            }
+        }).start(uris);
+    }
+
+    private boolean isOnline() {
+        ConnectivityManager cm = (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return false;
+        NetworkCapabilities caps = cm.getNetworkCapabilities(cm.getActiveNetwork());
+        return caps != null && caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+
+    private SQLiteDatabase db() {
+        return HistoryDbHelper.get(appContext).getWritableDatabase();
+    }
+
+    // 未标记失败、且到了重试时间的任务
+    private List<Job> loadPending(long now) {
+        List<Job> jobs = new ArrayList<>();
+        Cursor c = db().query(HistoryDbHelper.TABLE_JOBS, null,
+                HistoryDbHelper.JOB_FAILED_REASON + " IS NULL AND " + HistoryDbHelper.JOB_NEXT_ATTEMPT_AT + " <= ?",
+                new String[]{String.valueOf(now)}, null, null, HistoryDbHelper.JOB_ID + " ASC");
+        try {
+            while (c.moveToNext()) {
+                Job j = new Job();
+                j.id = c.getLong(c.getColumnIndexOrThrow(HistoryDbHelper.JOB_ID));
+                j.photoPath = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.JOB_PHOTO_PATH));
+                j.action = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.JOB_ACTION));
+                j.version = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.JOB_VERSION));
+                j.cardSide = c.getString(c.getColumnIndexOrThrow(HistoryDbHelper.JOB_CARD_SIDE));
+                j.createdAt = c.getLong(c.getColumnIndexOrThrow(HistoryDbHelper.JOB_CREATED_AT));
+                j.attempts = c.getInt(c.getColumnIndexOrThrow(HistoryDbHelper.JOB_ATTEMPTS));
+                jobs.add(j);
+            }
+        } finally {
+            c.close();
+        }
+        return jobs;
+    }
+
+    private void remove(long id) {
+        db().delete(HistoryDbHelper.TABLE_JOBS, HistoryDbHelper.JOB_ID + " = ?",
+                new String[]{String.valueOf(id)});
+    }
+
+    private void markAttempt(long id, int attempts) {
+        ContentValues v = new ContentValues();
+        v.put(HistoryDbHelper.JOB_ATTEMPTS, attempts);
+        v.put(HistoryDbHelper.JOB_NEXT_ATTEMPT_AT, System.currentTimeMillis() + backoffMs(attempts));
+        db().update(HistoryDbHelper.TABLE_JOBS, v, HistoryDbHelper.JOB_ID + " = ?",
+                new String[]{String.valueOf(id)});
+    }
+
+    private void markFailed(long id, Exception error) {
+        String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        ContentValues v = new ContentValues();
+        v.put(HistoryDbHelper.JOB_FAILED_REASON, reason);
+        db().update(HistoryDbHelper.TABLE_JOBS, v, HistoryDbHelper.JOB_ID + " = ?",
+                new String[]{String.valueOf(id)});
+    }
+
+    static long backoffMs(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(BASE_BACKOFF_MS << shift, MAX_BACKOFF_MS);
+    }
+
+    // 在 diskIO 线程查最近一条待重试任务的时间，到点自动 drain（网络回调之外的兜底）
+    private void scheduleNextDrain() {
+        Cursor c = db().rawQuery("SELECT MIN(" + HistoryDbHelper.JOB_NEXT_ATTEMPT_AT + ") FROM " +
+                HistoryDbHelper.TABLE_JOBS + " WHERE " + HistoryDbHelper.JOB_FAILED_REASON + " IS NULL", null);
+        long next = 0;
+        try {
+            if (c.moveToFirst() && !c.isNull(0)) next = c.getLong(0);
+        } finally {
+            c.close();
+        }
+        if (next == 0) return;
+        long delay = Math.max(next - System.currentTimeMillis(), 0);
+        handler.removeCallbacks(scheduledDrain);
+        handler.postDelayed(scheduledDrain, delay);
+    }
+
+    // 在 diskIO 线程查询统计，回到主线程通知
+    private void publish() {
+        if (listeners.isEmpty()) return;
+        int depth = 0;
+        long oldest = 0;
+        int failed = 0;
+        String pending = HistoryDbHelper.JOB_FAILED_REASON + " IS NULL";
+        Cursor c = db().rawQuery("SELECT SUM(" + pending + "), MIN(CASE WHEN " + pending + " THEN " +
+                HistoryDbHelper.JOB_CREATED_AT + " END), SUM(NOT " + pending + ") FROM " +
+                HistoryDbHelper.TABLE_JOBS, null);
+        try {
+            if (c.moveToFirst()) {
+                depth = c.getInt(0);
+                oldest = c.isNull(1) ? 0 : c.getLong(1);
+                failed = c.getInt(2);
+            }
+        } finally {
+            c.close();
+        }
+        final int d = depth;
+        final long o = oldest;
+        final int f = failed;
+        AppExecutors.main(() -> {
+            for (Listener l : listeners) l.onQueueChanged(d, o, f);
+        });
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.scancard;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 单张识别引擎：读取（或直接用预览帧）-> 质量检查 -> 裁出卡片 -> 压缩 -> 请求体 -> 调用（先查缓存）-> 解析 -> 写历史，两个识别页共用。
+ * - 跑在 AppExecutors.ocr() 这个有界线程池上，不再每次 new Thread()
+ * - 绑定页面生命周期：页面销毁时自动取消，正在进行的 OkHttp 请求一并中断
+ * - 回调在主线程，任务取消或页面已销毁后不再回调
+ */
+public class OcrPipeline {
+
+    public static class Request {
+        public final CardType type;
+        public final Uri uri;
+        public final Bitmap frame;      // 已解码的图（预览自动拍摄的帧 / 拍照后预览解码的图）；有它时不读 uri
+        public final String cardSide;   // 身份证正反面，银行卡为 null
+        public final File photo;        // 相机原图；网络不可用时进离线队列（相册图片传 null）
+
+        public Request(CardType type, Uri uri, String cardSide, File photo) {
+            this(type, uri, null, cardSide, photo);
+        }
+
+        /**
+         * 预览帧直接识别；frame 交给流水线，用完会被回收
+         */
+        public Request(CardType type, Bitmap frame, String cardSide) {
+            this(type, null, frame, cardSide, null);
+        }
+
+        /**
+         * 拍照后已在 ImageLoader 里解码好的图：frame 交给流水线（用完会被回收），uri / photo 照常用于离线队列和历史
+         */
+        public Request(CardType type, Uri uri, Bitmap frame, String cardSide, File photo) {
+            this.type = type;
+            this.uri = uri;
+            this.frame = frame;
+            this.cardSide = cardSide;
+            this.photo = photo;
+        }
+    }
+
+    /**
+     * 两种回调共有的部分，回调都在主线程执行
+     */
+    public interface Listener {
+        // queuedOffline：网络不可用，照片已加入离线队列
+        void onFailure(Exception error, boolean queuedOffline);
+
+        // 质量检查有问题但仍会上传（结果可能不准），识别继续进行
+        void onQualityWarning(String message);
+    }
+
+    // submit()：识别并写入历史
+    public interface Callback extends Listener {
+        // item.detail 即展示文本
+        void onSuccess(HistoryStore.Item item);
+    }
+
+    /**
+     * recognize()：只识别不写历史，由调用方合并后再写（身份证双面）。
+     * 只回调通过本地校验的结果，接口返回错误按失败回调；失败时不进离线队列
+     */
+    public interface ResultCallback extends Listener {
+        void onResult(OcrResult result);
+    }
+
+    public static class Job {
+        final Request request;
+        final CancelToken token = new CancelToken();
+        final boolean save;     // false：recognize()，不写历史
+        volatile Listener callback;
+        volatile Future<?> future;
+
+        // 只在主线程访问
+        Lifecycle lifecycle;
+        LifecycleEventObserver observer;
+
+        Job(Request request, boolean save, Listener callback) {
+            this.request = request;
+            this.save = save;
+            this.callback = callback;
+        }
+
+        public void cancel() {
+            token.cancel();
+            callback = null;   // 不再持有页面
+            Future<?> f = future;
+            if (f != null) f.cancel(true);
+        }
+
+        public boolean isCancelled() {
+            return token.isCancelled();
+        }
+    }
+
+    private final Context appContext;
+
+    public OcrPipeline(Context ctx) {
+        this.appContext = ctx.getApplicationContext();
+    }
+
+    /**
+     * 在主线程调用；owner 销毁时任务自动取消
+     */
+    public Job submit(LifecycleOwner owner, Request request, Callback callback) {
+        return start(owner, new Job(request, true, callback));
+    }
+
+    /**
+     * 同 submit()，但只识别不写历史
+     */
+    public Job recognize(LifecycleOwner owner, Request request, ResultCallback callback) {
+        return start(owner, new Job(request, false, callback));
+    }
+
+    private Job start(LifecycleOwner owner, Job job) {
+        job.lifecycle = owner.getLifecycle();
+        job.observer = (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) job.cancel();
+        };
+        job.lifecycle.addObserver(job.observer);
+
+        // 连接可能已被回收：趁解码压缩的时间重新预热
+        TencentOcrClient.prewarm();
+        try {
+            job.future = AppExecutors.ocr().submit(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            job.lifecycle.removeObserver(job.observer);
+            job.callback.onFailure(new IllegalStateException("识别任务太多，请稍后再试"), false);
+        }
+        return job;
+    }
+
+    private void run(Job job) {
+        long start = System.nanoTime();
+        try {
+            OcrResult result = recognize(job);
+            if (job.save) {
+                HistoryStore.Item item = persist(job.request, result);
+                deliver(job, cb -> ((Callback) cb).onSuccess(item));
+            } else {
+                if (result.isError()) throw new IllegalStateException(OcrResultFormatter.format(result));
+                deliver(job, cb -> ((ResultCallback) cb).onResult(result));
+            }
+            ScanMetrics.get().since(ScanMetrics.TOTAL, start);
+        } catch (Exception e) {
+            if (job.isCancelled()) {
+                // 取消引起的中断 / CancellationException：不回调
+                deliver(job, null);
+                return;
+            }
+            e.printStackTrace();
+            Request r = job.request;
+            boolean queued = job.save && e instanceof IOException && r.photo != null;
+            if (queued) {
+                OcrJobQueue.get(appContext).enqueue(r.photo, r.type.action, CardType.VERSION, r.cardSide);
+            }
+            deliver(job, cb -> cb.onFailure(e, queued));
+        }
+    }
+
+    // 1) ~ 6)：识别 + 本地校验
+    private OcrResult recognize(Job job) throws Exception {
+        Request r = job.request;
+        ScanMetrics metrics = ScanMetrics.get();
+        long t = System.nanoTime();
+        job.token.throwIfCancelled();
+
+        // 1) 读取并精确缩放图片（已解码的图在内存里，只需缩放）
+        Bitmap bitmap = r.frame != null
+                ? ImageEncoder.scaleToLongSide(r.frame, r.type.spec.maxLongSide)
+                : ImageEncoder.decodeScaled(appContext, r.uri, r.type.spec);
+        if (bitmap == null) {
+            throw new IllegalStateException("读取图片失败：bitmap=null");
+        }
+        t = metrics.since(ScanMetrics.DECODE, t);
+
+        // 2) 质量检查：模糊 / 反光 / 没拍到卡片直接让用户重拍，不浪费一次上传和接口调用
+        ImageEncoder.AnalysisFrame frame = ImageEncoder.analysisFrame(bitmap);
+        ImageQualityAnalyzer.Report quality = ImageEncoder.analyzeQuality(frame);
+        t = metrics.since(ScanMetrics.QUALITY, t);
+        if (quality.verdict == ImageQualityAnalyzer.Verdict.REJECT) {
+            BitmapPool.put(bitmap);
+            throw new ImageQualityException(quality);
+        }
+        if (quality.verdict == ImageQualityAnalyzer.Verdict.WARN) {
+            deliverWarning(job, quality.problem);
+        }
+
+        // 3) 只保留卡片区域并透视校正；没找到卡片就用整张图
+        bitmap = ImageEncoder.cropCard(bitmap, frame);
+        t = metrics.since(ScanMetrics.CROP, t);
+
+        // 4) 按字节预算选 JPEG 质量，再流式拼成请求体（边写边算哈希）
+        Map<String, String> fields = null;
+        if (r.cardSide != null) {
+            fields = new LinkedHashMap<>();
+            fields.put("CardSide", r.cardSide);
+        }
+        ImageEncoder.Result jpeg = ImageEncoder.compress(bitmap, r.type.spec);
+        metrics.recordBytes(ScanMetrics.BYTES_JPEG, jpeg.bytes());
+        t = metrics.since(ScanMetrics.JPEG, t);
+        OcrPayload payload = jpeg.toPayload(fields);
+        t = metrics.since(ScanMetrics.PAYLOAD, t);
+
+        // 5) 调腾讯云 OCR（可被 job.cancel() 中断）
+        OcrReply reply;
+        try {
+            job.token.throwIfCancelled();
+            reply = OcrCache.get(appContext).call(r.type.action, CardType.VERSION, payload, job.token);
+        } finally {
+            payload.release();
+        }
+        t = metrics.since(ScanMetrics.OCR_CALL, t);
+
+        // 6) 客户端收到时已经流式解析成结构化结果，这里只做本地校验
+        OcrResult result = reply.result;
+        // 卡号 / 身份证号读错的结果不入库，交给页面重拍
+        if (result instanceof BankCardResult) {
+            BankCardValidator.Check check = BankCardValidator.check(
+                    (BankCardResult) result, IndexAssets.bins(appContext));
+            if (check.isBadRead()) throw new BadReadException(check.message);
+        } else if (result instanceof IdCardResult) {
+            IdCardValidator.Check check = IdCardValidator.check(
+                    (IdCardResult) result, IndexAssets.regions(appContext));
+            if (check.isBadRead()) throw new BadReadException(check.message);
+        }
+        metrics.since(ScanMetrics.PARSE, t);
+        return result;
+    }
+
+    // 7) 生成展示文本并写入历史
+    private HistoryStore.Item persist(Request r, OcrResult result) {
+        long t = System.nanoTime();
+        String display = OcrResultFormatter.format(result);
+        HistoryStore.Item item = HistoryStore.fromResult(r.type.historyKey, result, display);
+        item.brief = r.type.brief(r.cardSide);
+        item.cardSide = r.cardSide;
+        if (r.photo != null) item.photoPath = r.photo.getAbsolutePath();
+        HistoryStore.add(appContext, item);
+        ScanMetrics.get().since(ScanMetrics.PERSIST, t);
+        if (item.id >= 0) PhotoStore.get(appContext).onKept(item.photoPath);
+        return item;
+    }
+
+    private interface Delivery {
+        void to(Listener callback);
+    }
+
+    // 中途提示，不解除生命周期绑定
+    private static void deliverWarning(Job job, String message) {
+        AppExecutors.main(() -> {
+            Listener cb = job.callback;
+            if (cb == null || job.isCancelled()) return;
+            if (job.lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) return;
+            cb.onQualityWarning(message);
+        });
+    }
+
+    // 回主线程：解除生命周期绑定；没取消、页面还在才回调
+    private static void deliver(Job job, Delivery delivery) {
+        AppExecutors.main(() -> {
+            job.lifecycle.removeObserver(job.observer);
+            Listener cb = job.callback;
+            if (delivery == null || cb == null || job.isCancelled()) return;
+            if (job.lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) return;
+            delivery.to(cb);
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.scancard;
+
+/**
+ * 一次识别的返回：原文（写磁盘缓存用）+ 按接口解析好的结果。
+ * 原文只在客户端收到时（或从磁盘缓存读出时）解析一遍，重试判断、是否缓存、页面展示都用这一份。
+ */
+public class OcrReply {
+
+    public final String json;
+    // BankCardOCR 为 BankCardResult，IDCardOCR 为 IdCardResult
+    public final OcrResult result;
+
+    public OcrReply(String json, OcrResult result) {
+        this.json = json;
+        this.result = result;
+    }
+
+    // 能解析且没有 Response.Error 才算成功（缓存只存成功结果）
+    public boolean isSuccess() {
+        return !result.isError();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.scancard;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * 把 OcrPayload 直接写进 OkHttp 的 socket，不再额外复制一份 byte[]。
+ * 可重复写（重试时 OkHttp 会再调 writeTo）。
+ */
+public class OcrRequestBody extends RequestBody {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final OcrPayload payload;
+
+    public OcrRequestBody(OcrPayload payload) {
+        this.payload = payload;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return payload.length();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        payload.writeTo(sink.outputStream());
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.scancard;
+
+import java.io.IOException;
+
+/**
+ * OCR 服务暂不可用（熔断中或重试耗尽），属于可稍后重试的错误
+ */
+public class OcrUnavailableException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public OcrUnavailableException(String message) {
+        super(message);
+    }
+
+    public OcrUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.scancard;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 相机照片目录（Pictures/ocr）管理：
+ * - 只保留被历史记录或离线队列引用的照片，识别失败 / 重拍留下的孤儿照片过了宽限期就删
+ * - 总大小超过预算时，按最近使用时间淘汰历史照片（历史记录保留，只清掉照片路径）
+ * - 可选：识别成功后把照片重新压成较小的存档 JPEG
+ * 清理在 diskIO 线程上做，多次触发合并成一次；具体删哪些由 PhotoBudget 计算。
+ */
+public class PhotoStore {
+
+    private static final String DIR = "ocr";
+
+    // 刚拍的照片可能还在识别，还没来得及写历史 / 入队
+    private static final long GRACE_MS = 10 * 60_000L;
+
+    // 存档 JPEG：长边仍够再识别一次，体积约为相机原图的 1/5 ~ 1/10
+    private static final int ARCHIVE_LONG_SIDE = 1600;
+    private static final int ARCHIVE_QUALITY = 80;
+    // 小于这个大小的认为已经压过，不再重复压
+    private static final long ARCHIVE_MIN_BYTES = 600 * 1024;
+
+    // 照片目录的总大小上限
+    public volatile long budgetBytes = 100L * 1024 * 1024;
+    // 识别成功后是否把照片压成存档 JPEG
+    public volatile boolean archive = true;
+
+    private static PhotoStore instance;
+
+    private final Context appContext;
+    private final AtomicBoolean trimScheduled = new AtomicBoolean();
+
+    public static synchronized PhotoStore get(Context ctx) {
+        if (instance == null) {
+            instance = new PhotoStore(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PhotoStore(Context appContext) {
+        this.appContext = appContext;
+    }
+
+    /**
+     * 新建一个相机输出文件（文件本身由相机写入）
+     */
+    public File newPhotoFile(String prefix) {
+        File dir = dir();
+        if (!dir.exists()) dir.mkdirs();
+        return new File(dir, prefix + "_" + System.currentTimeMillis() + ".jpg");
+    }
+
+    /**
+     * 照片目录下的文件才归这里管理；相册图片等其它 Uri 返回 null
+     */
+    public String pathOf(Uri uri) {
+        if (uri == null || !"file".equals(uri.getScheme()) || uri.getPath() == null) return null;
+        File f = new File(uri.getPath());
+        return dir().equals(f.getParentFile()) ? f.getAbsolutePath() : null;
+    }
+
+    /**
+     * 照片已写入历史：按需压成存档 JPEG，再顺便清理一次目录
+     */
+    public void onKept(String path) {
+        if (path == null) return;
+        AppExecutors.diskIO().execute(() -> {
+            if (archive) archive(new File(path));
+            trimNow();
+        });
+    }
+
+    /**
+     * 回看历史：更新最近使用时间，LRU 淘汰时排得靠后
+     */
+    public void touch(String path) {
+        if (path == null) return;
+        AppExecutors.diskIO().execute(() -> new File(path).setLastModified(System.currentTimeMillis()));
+    }
+
+    /**
+     * 后台清理一次；已经排队的话不再重复提交
+     */
+    public void trim() {
+        if (!trimScheduled.compareAndSet(false, true)) return;
+        AppExecutors.diskIO().execute(() -> {
+            trimScheduled.set(false);
+            trimNow();
+        });
+    }
+
+    private File dir() {
+        return new File(appContext.getExternalFilesDir("Pictures"), DIR);
+    }
+
+    // diskIO 线程
+    private void trimNow() {
+        File[] files = dir().listFiles();
+        if (files == null || files.length == 0) return;
+        try {
+            List<PhotoBudget.Photo> photos = new ArrayList<>();
+            for (File f : files) {
+                if (f.isFile()) photos.add(new PhotoBudget.Photo(f.getAbsolutePath(), f.length(), f.lastModified()));
+            }
+            SQLiteDatabase db = HistoryDbHelper.get(appContext).getWritableDatabase();
+            Set<String> pinned = paths(db, HistoryDbHelper.TABLE_JOBS, HistoryDbHelper.JOB_PHOTO_PATH);
+            Set<String> referenced = paths(db, HistoryDbHelper.TABLE, HistoryDbHelper.COL_PHOTO_PATH);
+
+            PhotoBudget.Plan plan = PhotoBudget.plan(photos, pinned, referenced,
+                    budgetBytes, System.currentTimeMillis(), GRACE_MS);
+            for (String path : plan.orphans) new File(path).delete();
+            if (!plan.evicted.isEmpty()) {
+                db.beginTransaction();
+                try {
+                    ContentValues v = new ContentValues();
+                    v.putNull(HistoryDbHelper.COL_PHOTO_PATH);
+                    for (String path : plan.evicted) {
+                        db.update(HistoryDbHelper.TABLE, v, HistoryDbHelper.COL_PHOTO_PATH + " = ?",
+                                new String[]{path});
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                // 先清引用再删文件：中途被杀最多留下孤儿，下次清理时删掉
+                ThumbnailCache thumbs = ThumbnailCache.get(appContext);
+                for (String path : plan.evicted) {
+                    new File(path).delete();
+                    thumbs.remove(path);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static Set<String> paths(SQLiteDatabase db, String table, String column) {
+        Set<String> paths = new HashSet<>();
+        Cursor c = db.query(true, table, new String[]{column}, column + " IS NOT NULL",
+                null, null, null, null, null);
+        try {
+            while (c.moveToNext()) paths.add(c.getString(0));
+        } finally {
+            c.close();
+        }
+        return paths;
+    }
+
+    // 重新压成存档 JPEG：先写临时文件再改名，失败时原图不动
+    private void archive(File file) {
+        if (!file.isFile() || file.length() < ARCHIVE_MIN_BYTES) return;
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            Bitmap bitmap = ImageEncoder.decodeScaled(appContext, Uri.fromFile(file),
+                    new ImageEncoder.Spec(0, ARCHIVE_LONG_SIDE, 0, ARCHIVE_QUALITY, ARCHIVE_QUALITY));
+            if (bitmap == null) return;
+            // 重新编码会丢掉 EXIF，方向直接转进像素里
+            bitmap = applyOrientation(bitmap, file);
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, ARCHIVE_QUALITY, out);
+            } finally {
+                BitmapPool.put(bitmap);
+            }
+            // 保留原来的最近使用时间
+            tmp.setLastModified(file.lastModified());
+            if (tmp.length() >= file.length() || !tmp.renameTo(file)) tmp.delete();
+        } catch (Exception e) {
+            e.printStackTrace();
+            tmp.delete();
+        }
+    }
+
+    /**
+     * 按 EXIF 方向把像素转正；转了的话原 bitmap 被回收
+     */
+    static Bitmap applyOrientation(Bitmap bitmap, File file) throws IOException {
+        int orientation = new ExifInterface(file.getAbsolutePath())
+                .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        int degrees;
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                degrees = 90;
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                degrees = 180;
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                degrees = 270;
+                break;
+            default:
+                return bitmap;
+        }
+        Matrix m = new Matrix();
+        m.postRotate(degrees);
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), m, true);
+        if (rotated != bitmap) bitmap.recycle();
+        return rotated;
+    }
+}
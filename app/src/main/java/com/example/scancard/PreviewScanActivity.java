@@ -0,0 +1,253 @@
+package com.example.scancard;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+import android.os.Bundle;
+import android.util.Size;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.core.content.ContextCompat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 预览自动拍摄：CameraX 取景，低分辨率 YUV 帧交给 AutoCaptureAnalyzer，卡片放稳后自动挑最清晰的一帧，
+ * 直接以 Bitmap 送进 OcrPipeline（不经过系统相机、不写 JPEG 再读回来）。
+ * 识别成功后带着展示文本返回；号码 / 卡号读错或画面质量不合格时自动继续取景重拍。
+ */
+public class PreviewScanActivity extends AppCompatActivity {
+
+    public static final String EXTRA_TYPE = "type";            // CardType.name()
+    public static final String EXTRA_CARD_SIDE = "card_side";
+    // 返回值
+    public static final String EXTRA_DETAIL = "detail";        // 识别成功：展示文本
+    public static final String EXTRA_ERROR = "error";          // 识别失败：原因
+
+    // 分析帧目标尺寸：卡片占画面六成时卡面约 770px 宽，够检测挑帧，也够 OCR
+    private static final Size ANALYSIS_SIZE = new Size(1280, 720);
+    private static final int MAX_AUTO_RESCANS = 2;
+
+    private PreviewView previewView;
+    private ProgressBar progress;
+    private TextView tvHint;
+
+    private CardType type;
+    private String cardSide;
+    private OcrPipeline pipeline;
+    private ImageAnalysis analysis;
+    private int autoRescans;
+
+    // 分析线程：单线程，AutoCaptureAnalyzer 和下面几个字段只在这个线程上访问
+    private final ExecutorService analysisExecutor =
+            Executors.newSingleThreadExecutor(AppExecutors.named("camera-analysis"));
+    private final AutoCaptureAnalyzer analyzer = new AutoCaptureAnalyzer();
+    private Bitmap best;                    // 当前稳定期里最清晰的一帧
+    private int bestRotation;
+    private String lastHint;
+
+    private final ActivityResultLauncher<String> requestCameraPermissionLauncher =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
+                if (isGranted) {
+                    startCamera();
+                } else {
+                    Toast.makeText(this, "未获得相机权限，无法拍照", Toast.LENGTH_SHORT).show();
+                    finish();
+                }
+            });
+
+    public static Intent intent(Context ctx, CardType type, String cardSide) {
+        return new Intent(ctx, PreviewScanActivity.class)
+                .putExtra(EXTRA_TYPE, type.name())
+                .putExtra(EXTRA_CARD_SIDE, cardSide);
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_preview_scan);
+        previewView = findViewById(R.id.pv_preview_scan);
+        progress = findViewById(R.id.progress_preview_scan);
+        tvHint = findViewById(R.id.tv_preview_scan_hint);
+
+        type = CardType.valueOf(getIntent().getStringExtra(EXTRA_TYPE));
+        cardSide = getIntent().getStringExtra(EXTRA_CARD_SIDE);
+        pipeline = new OcrPipeline(this);
+        // 对准卡片的这一两秒正好把连接建好
+        TencentOcrClient.prewarm();
+
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
+                == PackageManager.PERMISSION_GRANTED) {
+            startCamera();
+        } else {
+            requestCameraPermissionLauncher.launch(Manifest.permission.CAMERA);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        analysisExecutor.execute(this::dropBest);
+        analysisExecutor.shutdown();
+    }
+
+    private void startCamera() {
+        ListenableFuture<ProcessCameraProvider> future = ProcessCameraProvider.getInstance(this);
+        future.addListener(() -> {
+            try {
+                bindCamera(future.get());
+            } catch (Exception e) {
+                e.printStackTrace();
+                Toast.makeText(this, "打开相机失败", Toast.LENGTH_SHORT).show();
+                finish();
+            }
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    private void bindCamera(ProcessCameraProvider provider) {
+        Preview preview = new Preview.Builder().build();
+        preview.setSurfaceProvider(previewView.getSurfaceProvider());
+
+        ResolutionSelector selector = new ResolutionSelector.Builder()
+                .setResolutionStrategy(new ResolutionStrategy(ANALYSIS_SIZE,
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                .build();
+        // 分析跟不上时相机只保留最新一帧，旧帧直接丢掉，不排队
+        analysis = new ImageAnalysis.Builder()
+                .setResolutionSelector(selector)
+                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
+                .build();
+        analysis.setAnalyzer(analysisExecutor, this::analyze);
+
+        provider.unbindAll();
+        provider.bindToLifecycle(this, CameraSelector.DEFAULT_BACK_CAMERA, preview, analysis);
+    }
+
+    // 分析线程
+    private void analyze(ImageProxy image) {
+        try {
+            ImageProxy.PlaneProxy y = image.getPlanes()[0];
+            AutoCaptureAnalyzer.Step step = analyzer.offer(y.getBuffer(), image.getWidth(), image.getHeight(),
+                    y.getRowStride(), image.getImageInfo().getTimestamp() / 1_000_000);
+            switch (step.state) {
+                case SKIPPED:
+                    return;
+                case SEARCHING:
+                    dropBest();
+                    break;
+                default:
+                    // 只有刷新最佳帧时才转 Bitmap，其余帧只读 Y 平面
+                    if (step.newBest) {
+                        dropBest();
+                        best = image.toBitmap();
+                        bestRotation = image.getImageInfo().getRotationDegrees();
+                    }
+                    break;
+            }
+            if (step.state == AutoCaptureAnalyzer.State.CAPTURE) {
+                Bitmap frame = upright(best, bestRotation);
+                best = null;
+                AppExecutors.main(() -> capture(frame));
+            } else {
+                showHint(step.hint);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            image.close();
+        }
+    }
+
+    private void dropBest() {
+        if (best != null) {
+            best.recycle();
+            best = null;
+        }
+    }
+
+    private void showHint(String hint) {
+        if (hint == null || hint.equals(lastHint)) return;
+        lastHint = hint;
+        AppExecutors.main(() -> tvHint.setText(hint));
+    }
+
+    // 传感器方向 -> 画面方向；src 被回收
+    private static Bitmap upright(Bitmap src, int rotation) {
+        if (rotation == 0) return src;
+        Matrix m = new Matrix();
+        m.postRotate(rotation);
+        Bitmap out = Bitmap.createBitmap(src, 0, 0, src.getWidth(), src.getHeight(), m, true);
+        if (out != src) src.recycle();
+        return out;
+    }
+
+    // 主线程：停止取景分析，把这一帧送去识别
+    private void capture(Bitmap frame) {
+        if (isFinishing() || isDestroyed()) {
+            frame.recycle();
+            return;
+        }
+        analysis.clearAnalyzer();
+        progress.setVisibility(View.VISIBLE);
+        tvHint.setText("识别中…");
+
+        pipeline.submit(this, new OcrPipeline.Request(type, frame, cardSide), new OcrPipeline.Callback() {
+            @Override
+            public void onSuccess(HistoryStore.Item item) {
+                setResult(RESULT_OK, new Intent().putExtra(EXTRA_DETAIL, item.detail));
+                finish();
+            }
+
+            @Override
+            public void onFailure(Exception error, boolean queuedOffline) {
+                progress.setVisibility(View.GONE);
+                boolean retake = error instanceof BadReadException || error instanceof ImageQualityException;
+                if (retake && autoRescans < MAX_AUTO_RESCANS) {
+                    // 读错了 / 画面不合格：不退出，继续取景重拍
+                    autoRescans++;
+                    Toast.makeText(PreviewScanActivity.this, error.getMessage(), Toast.LENGTH_SHORT).show();
+                    resumeScanning();
+                    return;
+                }
+                setResult(RESULT_CANCELED, new Intent().putExtra(EXTRA_ERROR, error.getMessage()));
+                finish();
+            }
+
+            @Override
+            public void onQualityWarning(String message) {
+                Toast.makeText(PreviewScanActivity.this, message, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void resumeScanning() {
+        tvHint.setText("请重新对准卡片");
+        // 排在分析线程上，和正在处理的帧不会交错
+        analysisExecutor.execute(() -> {
+            analyzer.reset();
+            lastHint = null;
+        });
+        analysis.setAnalyzer(analysisExecutor, this::analyze);
+    }
+}
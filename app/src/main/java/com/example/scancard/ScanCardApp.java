@@ -0,0 +1,16 @@
+package com.example.scancard;
+
+import android.app.Application;
+
+/**
+ * 进程级初始化：开始监听网络，联网后自动补识别离线队列；后台清理一次照片目录
+ */
+public class ScanCardApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        OcrJobQueue.get(this).startMonitoring();
+        PhotoStore.get(this).trim();
+    }
+}
@@ -1,55 +1,722 @@
 package com.example.scancard;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Dns;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 
+/**
+ * 腾讯云 OCR 调用：
+ * - 每个接口一个令牌桶，把请求速率压在 QPS 配额以内
+ * - 网络异常 / 可重试错误码按带抖动的指数退避重试，每次重试都重新签名（时间戳更新）
+ * - 服务持续出错时熔断，冷却期内直接失败，不再打到服务端
+ * - 进入识别页面时预热：提前解析 DNS、建好 TLS 连接、算好当天的签名密钥，拍完照直接发请求
+ * - 多地域接入：偶尔用 HEAD 探测各地域往返延迟，真实调用的成败被动计入，每次请求发往最快的健康地域
+ *   （RegionSelector），按该地域的域名签名；网络异常重试时换一个地域
+ * - 异步调用（callAsync）：请求走 OkHttp 的 enqueue，限流等待和退避用定时器调度，不占调用线程；
+ *   每次调用有总时限，到点中断进行中的请求；同步版本只是等异步结果
+ */
 public class TencentOcrClient {
 
     private static final String SECRET_ID = BuildConfig.SECRET_ID;
     private static final String SECRET_KEY = BuildConfig.API_KEY;
 
-    private static final String HOST = "ocr.tencentcloudapi.com";
-    private static final String ENDPOINT = "https://" + HOST + "/";
     private static final String SERVICE = "ocr";
+    // 只配一个接入点时用的地域
+    private static final String REGION = "ap-guangzhou";
+    // 地域 -> 就近接入域名；按优先顺序，还没测出延迟时用第一个
+    private static final Map<String, String> REGIONS = new LinkedHashMap<>();
     private static final String CONTENT_TYPE = "application/json; charset=utf-8";
 
-    private static final OkHttpClient client = new OkHttpClient();
+    // 腾讯云 OCR 默认 QPS 配额（控制台可调整）
+    private static final double DEFAULT_QPS = 10;
+    private static final Map<String, Double> QPS = new HashMap<>();
+
+    static {
+        QPS.put("IDCardOCR", 20.0);
+        QPS.put("BankCardOCR", 10.0);
+
+        REGIONS.put("ap-guangzhou", "https://ocr.ap-guangzhou.tencentcloudapi.com/");
+        REGIONS.put("ap-shanghai", "https://ocr.ap-shanghai.tencentcloudapi.com/");
+        REGIONS.put("ap-beijing", "https://ocr.ap-beijing.tencentcloudapi.com/");
+    }
+
+    public static class RetryPolicy {
+        public int maxAttempts = 3;
+        public long baseDelayMs = 300;
+        public long maxDelayMs = 3000;
+
+        // 熔断：连续失败多少次后打开、打开多久
+        public int breakerThreshold = 5;
+        public long breakerOpenMs = 30_000;
+
+        // 一次调用（含限流等待、重试、退避）的总时限
+        public long callTimeoutMs = 30_000;
+    }
+
+    // 连接保活时间：拍照 + 压缩一般在这个时间内完成，预热的连接不会被回收
+    private static final long KEEP_ALIVE_MS = 5 * 60_000;
+    private static final long DNS_TTL_MS = 10 * 60_000;
+    // 两次预热的最小间隔，避免反复进出页面时重复发请求
+    private static final long PREWARM_INTERVAL_MS = 30_000;
+    // OkHttp 执行请求的固定线程数，也是同时在途的请求上限；多出来的排在 Dispatcher 队列里，不占线程
+    private static final int DISPATCHER_THREADS = 8;
+    // 提前签好的请求超过这个时间就重签（服务端只认 5 分钟内的时间戳，留足余量）
+    private static final long PRESIGNED_MAX_AGE_MS = 60_000;
+
+    // 限流等待、退避重试、调用时限共用的定时器；只做调度，不做 I/O
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "ocr-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private static final TencentOcrClient DEFAULT = new TencentOcrClient(
+            REGIONS,
+            newHttpClient(new CachingDns(Dns.SYSTEM, DNS_TTL_MS))
+                    .eventListenerFactory(NetworkMetricsListener.FACTORY)
+                    .build(),
+            new Tc3Signer(SECRET_ID, SECRET_KEY, SERVICE), new RetryPolicy());
+
+    private final Map<String, String> endpoints;   // 地域 -> 接入地址
+    private final RegionSelector regions;
+    private final OkHttpClient client;
+    private final Tc3Signer signer;
+    private final RetryPolicy retry;
+    private final CircuitBreaker breaker;
+    private final Map<String, TokenBucket> limiters = new HashMap<>();
+    private final Random random = new Random();
+    // 以下按地域记录，单调时钟毫秒，受 this 保护
+    private final Map<String, Long> lastPrewarmMs = new HashMap<>();   // 最近一次发起预热
+    private final Map<String, Long> lastResponseMs = new HashMap<>();  // 最近一次收到响应（连接还热）
+
+    // 秒级时间戳来源（单测里替换）
+    LongSupplier clockSeconds = () -> System.currentTimeMillis() / 1000;
+
+    TencentOcrClient(String endpoint, OkHttpClient client, Tc3Signer signer, RetryPolicy retry) {
+        this(Collections.singletonMap(REGION, endpoint), client, signer, retry);
+    }
+
+    TencentOcrClient(Map<String, String> endpoints, OkHttpClient client, Tc3Signer signer, RetryPolicy retry) {
+        this.endpoints = new LinkedHashMap<>(endpoints);
+        this.regions = new RegionSelector(new ArrayList<>(endpoints.keySet()), new RegionSelector.Settings());
+        this.client = client;
+        this.signer = signer;
+        this.retry = retry;
+        this.breaker = new CircuitBreaker(retry.breakerThreshold, retry.breakerOpenMs);
+    }
+
+    /**
+     * 全局共用的 OkHttp 配置：只连几个地域的域名，所以连接池不用大，但空闲连接要留得久；
+     * 优先 HTTP/2，同一条连接上并发多路请求（批量识别时不用多开连接）
+     */
+    static OkHttpClient.Builder newHttpClient(Dns dns) {
+        Dispatcher dispatcher = new Dispatcher(Executors.newFixedThreadPool(DISPATCHER_THREADS, r -> {
+            Thread t = new Thread(r, "ocr-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        dispatcher.setMaxRequests(DISPATCHER_THREADS);
+        dispatcher.setMaxRequestsPerHost(DISPATCHER_THREADS);
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(4, KEEP_ALIVE_MS, TimeUnit.MILLISECONDS))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .dns(dns)
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(20, TimeUnit.SECONDS)
+                .writeTimeout(20, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 打开识别页面时调用：后台预热连接和签名密钥，不阻塞调用线程
+     */
+    public static void prewarm() {
+        DEFAULT.warmUp();
+    }
+
+    /**
+     * 调试页展示：各地域的延迟 / 出错估计，* 为当前使用的地域
+     */
+    public static String describeRegions() {
+        return DEFAULT.regions.describe();
+    }
 
     public static String callOcr(String action, String version, String payloadJson) throws Exception {
-        long timestamp = System.currentTimeMillis() / 1000; // 秒级时间戳
+        return DEFAULT.call(action, version, payloadJson);
+    }
 
-        // 生成 TC3 签名 Authorization
-        String authorization = Tc3Signer.buildAuthorization(
-                SECRET_ID,
-                SECRET_KEY,
-                SERVICE,
-                HOST,
-                action,
-                payloadJson,
-                timestamp
-        );
+    /**
+     * 流式请求体版本：payload 的哈希在写入时已经算好，直接拿来签名
+     */
+    public static String callOcr(String action, String version, OcrPayload payload) throws Exception {
+        return DEFAULT.call(action, version, payload, null);
+    }
+
+    /**
+     * 可取消版本：cancel 后进行中的请求立即中断，抛 CancellationException
+     */
+    public static String callOcr(String action, String version, OcrPayload payload,
+                                 CancelToken cancel) throws Exception {
+        return DEFAULT.call(action, version, payload, cancel);
+    }
 
+    /**
+     * 和可取消的 callOcr 一样，另外带上收到返回时已经解析好的结果（按 action 解析成银行卡 / 身份证结果）
+     */
+    public static OcrReply fetch(String action, String version, OcrPayload payload,
+                                 CancelToken cancel) throws Exception {
+        return DEFAULT.fetchReply(action, version, payload, cancel);
+    }
+
+    /**
+     * 异步版本：立即返回，结果在 OkHttp 线程上完成。
+     * - timeoutMs：总时限（<= 0 用 RetryPolicy.callTimeoutMs），到点中断请求；
+     *   已经拿到过可重试的错误响应时返回它，否则抛 OcrUnavailableException
+     * - future.cancel() 或 cancel.cancel() 都会中断进行中的请求，以 CancellationException 结束
+     * payload 要等 future 完成后再 release。
+     */
+    public static CompletableFuture<String> callOcrAsync(String action, String version, OcrPayload payload,
+                                                         long timeoutMs, CancelToken cancel) {
+        return DEFAULT.callAsync(action, version, payload, timeoutMs, cancel);
+    }
+
+    CompletableFuture<String> callAsync(String action, String version, OcrPayload payload,
+                                        long timeoutMs, CancelToken cancel) {
+        return callAsync(action, version, new OcrRequestBody(payload), payload.sha256Hex(), timeoutMs, cancel);
+    }
+
+    CompletableFuture<String> callAsync(String action, String version, String payloadJson,
+                                        long timeoutMs, CancelToken cancel) {
+        RequestBody body = RequestBody.create(payloadJson, MediaType.parse(CONTENT_TYPE));
+        return callAsync(action, version, body, Tc3Signer.sha256Hex(payloadJson), timeoutMs, cancel);
+    }
+
+    /**
+     * 签好名、还没发出的请求（批量流水线里签名和上传分成两段）。
+     * 发送时太旧会自动重签；重试时照常按新地域、新时间戳重签。
+     */
+    public static class Signed {
+        final String action;
+        final String version;
+        final RequestBody body;
+        final String payloadSha256Hex;
+        final String region;
+        final Request request;
+        final long signedAtNanos;
+
+        Signed(String action, String version, RequestBody body, String payloadSha256Hex,
+               String region, Request request) {
+            this.action = action;
+            this.version = version;
+            this.body = body;
+            this.payloadSha256Hex = payloadSha256Hex;
+            this.region = region;
+            this.request = request;
+            this.signedAtNanos = System.nanoTime();
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - signedAtNanos < TimeUnit.MILLISECONDS.toNanos(PRESIGNED_MAX_AGE_MS);
+        }
+    }
+
+    /**
+     * 选地域并签名，不发请求
+     */
+    public static Signed sign(String action, String version, OcrPayload payload) throws Exception {
+        return DEFAULT.presign(action, version, payload);
+    }
+
+    /**
+     * 发送提前签好的请求；和 callOcr 一样带重试、熔断和总时限
+     */
+    public static String callOcr(Signed signed, CancelToken cancel) throws Exception {
+        return DEFAULT.call(signed, cancel);
+    }
+
+    /**
+     * 发送提前签好的请求，连同解析好的结果一起返回
+     */
+    public static OcrReply fetch(Signed signed, CancelToken cancel) throws Exception {
+        return DEFAULT.fetchReply(signed, cancel);
+    }
+
+    Signed presign(String action, String version, OcrPayload payload) throws Exception {
+        RequestBody body = new OcrRequestBody(payload);
+        String region = regions.pick();
+        Request request = buildRequest(region, action, version, body, payload.sha256Hex());
+        return new Signed(action, version, body, payload.sha256Hex(), region, request);
+    }
+
+    String call(Signed signed, CancelToken cancel) throws Exception {
+        return await(startCall(new AsyncCall(signed.action, signed.version, signed.body,
+                signed.payloadSha256Hex, retry.callTimeoutMs, cancel, signed)));
+    }
+
+    String call(String action, String version, String payloadJson) throws Exception {
         MediaType mediaType = MediaType.parse(CONTENT_TYPE);
         RequestBody body = RequestBody.create(payloadJson, mediaType);
+        return callWithRetry(action, version, body, Tc3Signer.sha256Hex(payloadJson), null);
+    }
+
+    String call(String action, String version, OcrPayload payload, CancelToken cancel) throws Exception {
+        return callWithRetry(action, version, new OcrRequestBody(payload), payload.sha256Hex(), cancel);
+    }
+
+    /**
+     * 发一个 HEAD 请求把 DNS / TCP / TLS 都走一遍，连接留在池里给后面的识别请求复用。
+     * 要用的地域连接还热（保活期内收到过响应且池里有空闲连接）或刚预热过就跳过；
+     * 返回是否真的发起了预热。
+     */
+    boolean warmUp() {
+        probeRegions();
+        String region = regions.pick();
+        long now = monotonicMs();
+        synchronized (this) {
+            Long answered = lastResponseMs.get(region);
+            if (answered != null && now - answered < KEEP_ALIVE_MS
+                    && client.connectionPool().idleConnectionCount() > 0) {
+                return false;
+            }
+            Long warmed = lastPrewarmMs.get(region);
+            if (warmed != null && now - warmed < PREWARM_INTERVAL_MS) return false;
+            lastPrewarmMs.put(region, now);
+        }
 
-        Request request = new Request.Builder()
-                .url(ENDPOINT)
+        // 签名密钥是纯计算，放在定时器线程上算，和建连并行，不占 OkHttp 的请求线程
+        long timestamp = clockSeconds.getAsLong();
+        TIMER.execute(() -> {
+            try {
+                signer.warmUp(timestamp);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+
+        client.newCall(headRequest(region)).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // 预热失败不影响正常识别，真正请求时再建连
+                synchronized (TencentOcrClient.this) {
+                    lastPrewarmMs.remove(region);
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                // 顺便算一次这个地域的往返延迟
+                regions.recordProbe(region, roundTripMs(response));
+                markResponded(region);
+                response.close();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 后台探测到期的地域（只有一个地域时不用探测）；走 enqueue，不占着线程等响应
+     */
+    void probeRegions() {
+        if (endpoints.size() < 2) return;
+        for (String region : regions.dueForProbe()) {
+            client.newCall(headRequest(region)).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    regions.recordProbe(region, -1);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    regions.recordProbe(region, roundTripMs(response));
+                    markResponded(region);
+                    response.close();
+                }
+            });
+        }
+    }
+
+    /**
+     * 同步探测一次（单测用）。
+     * HEAD 测的是发出请求头到收到响应头的时间：不含 DNS / 建连，冷热连接测出来可比；
+     * 服务端返回什么状态码都算连通。
+     */
+    void probe(String region) {
+        try (Response response = client.newCall(headRequest(region)).execute()) {
+            regions.recordProbe(region, roundTripMs(response));
+            markResponded(region);
+        } catch (IOException e) {
+            regions.recordProbe(region, -1);
+        }
+    }
+
+    private Request headRequest(String region) {
+        return new Request.Builder()
+                .url(endpoints.get(region))
+                .head()
+                .tag(String.class, NetworkMetricsListener.PREWARM)
+                .build();
+    }
+
+    private synchronized void markResponded(String region) {
+        lastResponseMs.put(region, monotonicMs());
+    }
+
+    private static long monotonicMs() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    RegionSelector regions() {
+        return regions;
+    }
+
+    private static long roundTripMs(Response response) {
+        return Math.max(0, response.receivedResponseAtMillis() - response.sentRequestAtMillis());
+    }
+
+    CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    // 同步调用：等异步结果
+    private String callWithRetry(String action, String version, RequestBody body,
+                                 String payloadSha256Hex, CancelToken cancel) throws Exception {
+        return await(callAsync(action, version, body, payloadSha256Hex, retry.callTimeoutMs, cancel));
+    }
+
+    OcrReply fetchReply(Signed signed, CancelToken cancel) throws Exception {
+        return await(new AsyncCall(signed.action, signed.version, signed.body,
+                signed.payloadSha256Hex, retry.callTimeoutMs, cancel, signed));
+    }
+
+    OcrReply fetchReply(String action, String version, OcrPayload payload, CancelToken cancel) throws Exception {
+        return await(new AsyncCall(action, version, new OcrRequestBody(payload), payload.sha256Hex(),
+                retry.callTimeoutMs, cancel, null));
+    }
+
+    // 同步等一次调用，原文和 onResponse 里解析好的结果一起交出去
+    private static OcrReply await(AsyncCall call) throws Exception {
+        String json = await(startCall(call));
+        return new OcrReply(json, call.result);
+    }
+
+    // 调用线程被中断时取消请求；异常解包成调用方原来看到的类型
+    private static String await(CompletableFuture<String> future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    private CompletableFuture<String> callAsync(String action, String version, RequestBody body,
+                                                String payloadSha256Hex, long timeoutMs, CancelToken cancel) {
+        return startCall(new AsyncCall(action, version, body, payloadSha256Hex,
+                timeoutMs > 0 ? timeoutMs : retry.callTimeoutMs, cancel, null));
+    }
+
+    private static CompletableFuture<String> startCall(AsyncCall call) {
+        call.start();
+        return call.future;
+    }
+
+    /**
+     * 一次调用的状态机：next() 发起一次尝试，回调里决定完成还是退避后再 next()。
+     * 同一时刻最多一个请求在途，回调和定时任务之间靠 future 是否已完成来收尾。
+     */
+    private class AsyncCall implements Callback {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        private final String action;
+        private final String version;
+        private final RequestBody body;
+        private final String payloadSha256Hex;
+        private final long timeoutMs;
+        private final CancelToken cancel;             // 调用方的，可能为 null
+        private final CancelToken abort = new CancelToken();   // future 取消 / 超时时中断请求
+        // 重试时避开这次调用里已经失败过的地域
+        private final Set<String> failedRegions = new HashSet<>();
+        private int attempt;
+        private volatile String inFlightRegion;
+        private long attemptStart;
+        private String lastResponse;                  // 最近一次可重试的错误响应，超时时返回
+        private OcrResult lastResult;                 // lastResponse 解析后的结果
+        // 和 future 完成时的响应对应的解析结果，在 complete 之前写入，future.get() 之后读
+        OcrResult result;
+        // 拿到了熔断器放行但还没记成败；调用以任何方式结束时都要还回去，否则半开探测名额泄漏
+        private boolean permitHeld;
+        private ScheduledFuture<?> deadline;
+        private Signed presigned;                     // 第一次尝试直接用（还新鲜的话）
+
+        AsyncCall(String action, String version, RequestBody body, String payloadSha256Hex,
+                  long timeoutMs, CancelToken cancel, Signed presigned) {
+            this.action = action;
+            this.version = version;
+            this.body = body;
+            this.payloadSha256Hex = payloadSha256Hex;
+            this.timeoutMs = timeoutMs;
+            this.cancel = cancel;
+            this.presigned = presigned;
+        }
+
+        void start() {
+            deadline = TIMER.schedule(this::onDeadline, timeoutMs, TimeUnit.MILLISECONDS);
+            future.whenComplete((r, e) -> {
+                deadline.cancel(false);
+                // 取消 / 超时 / 签名出错等没有结果的结束方式，都在这里归还放行
+                synchronized (this) {
+                    if (permitHeld) {
+                        permitHeld = false;
+                        breaker.releaseProbe();
+                    }
+                }
+                // future 被外部 cancel 时中断进行中的请求；正常完成时这是空操作
+                abort.cancel();
+            });
+            next();
+        }
+
+        private synchronized void next() {
+            if (future.isDone()) return;
+            if (isCancelled()) {
+                future.completeExceptionally(new CancellationException("已取消"));
+                return;
+            }
+            // 先限流再问熔断器：半开状态只放一个探测，不能在等令牌时白白占掉
+            long waitNanos = limiter(action).tryAcquire();
+            if (waitNanos > 0) {
+                TIMER.schedule(this::next, waitNanos, TimeUnit.NANOSECONDS);
+                return;
+            }
+            if (!breaker.allowRequest()) {
+                future.completeExceptionally(new OcrUnavailableException("OCR 服务暂时不可用，请稍后再试"));
+                return;
+            }
+            permitHeld = true;
+
+            attempt++;
+            Signed signed = presigned;
+            presigned = null;
+            String region;
+            Call call;
+            try {
+                if (signed != null && signed.isFresh()) {
+                    region = signed.region;
+                    call = client.newCall(signed.request);
+                } else {
+                    region = regions.pick(failedRegions);
+                    call = client.newCall(buildRequest(region, action, version, body, payloadSha256Hex));
+                }
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            inFlightRegion = region;
+            attemptStart = System.nanoTime();
+            abort.attach(call);
+            if (cancel != null) cancel.attach(call);
+            call.enqueue(this);
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            String region = detach(call);
+            synchronized (this) {
+                if (future.isDone()) return;
+                // 主动取消不算服务失败，也不重试（放行在 whenComplete 里归还）
+                if (isCancelled()) {
+                    future.completeExceptionally(new CancellationException("已取消"));
+                    return;
+                }
+                recordFailure(region);
+                if (attempt >= retry.maxAttempts) {
+                    future.completeExceptionally(
+                            new OcrUnavailableException("网络异常，重试 " + attempt + " 次仍失败", e));
+                    return;
+                }
+                retryLater();
+            }
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            int httpCode = response.code();
+            String respStr;
+            try {
+                respStr = response.body() != null ? response.body().string() : "";
+            } catch (IOException e) {
+                onFailure(call, e);
+                return;
+            } finally {
+                response.close();
+            }
+            String region = detach(call);
+            markResponded(region);
+            // 在锁外发起：探测回调不用等这次调用的锁
+            probeRegions();
+
+            synchronized (this) {
+                if (future.isDone()) return;
+                // 整个调用只在这里解析一次：按接口解析成结果对象，顺带拿到 Error.Code
+                OcrResult parsed = OcrResultParser.read(action, respStr);
+                String errorCode = parsed.errorCode;
+                boolean serverFault = httpCode >= 500 || isServerFault(errorCode);
+                if (serverFault) {
+                    recordFailure(region);
+                } else {
+                    permitHeld = false;
+                    breaker.recordSuccess();
+                    regions.recordSuccess(region, (System.nanoTime() - attemptStart) / 1_000_000);
+                }
+
+                boolean retryable = serverFault || isRetryable(errorCode);
+                if (retryable && attempt < retry.maxAttempts) {
+                    lastResponse = respStr;
+                    lastResult = parsed;
+                    retryLater();
+                    return;
+                }
+                result = parsed;
+                future.complete(respStr);
+            }
+        }
+
+        // 到了总时限：有请求在途算这个地域一次失败，然后中断它
+        private void onDeadline() {
+            String region;
+            synchronized (this) {
+                if (future.isDone()) return;
+                region = inFlightRegion;
+                if (region != null) recordFailure(region);
+                if (lastResponse != null) {
+                    result = lastResult;
+                    future.complete(lastResponse);
+                } else {
+                    future.completeExceptionally(
+                            new OcrUnavailableException("识别超时（" + timeoutMs + "ms）"));
+                }
+            }
+        }
+
+        private void recordFailure(String region) {
+            permitHeld = false;
+            breaker.recordFailure();
+            regions.recordFailure(region);
+            failedRegions.add(region);
+        }
+
+        private void retryLater() {
+            long delayNanos = backoffNanos(attempt);
+            if (delayNanos > 0) {
+                TIMER.schedule(this::next, delayNanos, TimeUnit.NANOSECONDS);
+            } else {
+                TIMER.execute(this::next);
+            }
+        }
+
+        private String detach(Call call) {
+            abort.detach(call);
+            if (cancel != null) cancel.detach(call);
+            String region = inFlightRegion;
+            inFlightRegion = null;
+            return region;
+        }
+
+        private boolean isCancelled() {
+            return abort.isCancelled() || (cancel != null && cancel.isCancelled());
+        }
+    }
+
+    // 每次都重新取时间戳并按所选地域的域名签名（重试时旧签名可能已过期，地域也可能换了）
+    private Request buildRequest(String region, String action, String version, RequestBody body,
+                                 String payloadSha256Hex) throws Exception {
+        long timestamp = clockSeconds.getAsLong(); // 秒级时间戳
+        String endpoint = endpoints.get(region);
+        String host = HttpUrl.get(endpoint).host();
+
+        // 生成 TC3 签名 Authorization
+        long signStart = System.nanoTime();
+        String authorization = signer.signWithPayloadHash(host, action, payloadSha256Hex, timestamp);
+        ScanMetrics.get().since(ScanMetrics.SIGN, signStart);
+
+        return new Request.Builder()
+                .url(endpoint)
                 .post(body)
                 .addHeader("Content-Type", CONTENT_TYPE)
-                .addHeader("Host", HOST)
+                .addHeader("Host", host)
                 .addHeader("X-TC-Action", action)
                 .addHeader("X-TC-Version", version)
                 .addHeader("X-TC-Timestamp", String.valueOf(timestamp))
-                .addHeader("X-TC-Region", "ap-guangzhou")
+                .addHeader("X-TC-Region", region)
                 .addHeader("Authorization", authorization)
                 .build();
+    }
+
+    private synchronized TokenBucket limiter(String action) {
+        TokenBucket b = limiters.get(action);
+        if (b == null) {
+            Double qps = QPS.get(action);
+            double rate = qps != null ? qps : DEFAULT_QPS;
+            b = new TokenBucket(rate, (int) rate);
+            limiters.put(action, b);
+        }
+        return b;
+    }
+
+    // 指数退避 + 全抖动：在 [0, min(max, base * 2^(n-1))] 里随机取等待时间
+    private long backoffNanos(int attempt) {
+        long cap = Math.min(retry.maxDelayMs, retry.baseDelayMs << Math.min(attempt - 1, 16));
+        synchronized (random) {
+            return (long) (random.nextDouble() * TimeUnit.MILLISECONDS.toNanos(cap));
+        }
+    }
+
+    // 服务端自身的问题：计入熔断
+    private static boolean isServerFault(String code) {
+        return code != null && (code.equals("InternalError") || code.startsWith("InternalError."));
+    }
 
-        Response response = client.newCall(request).execute();
-        String respStr = response.body() != null ? response.body().string() : "";
-        response.close();
-        return respStr;
+    // 稍后重试可能成功的错误码
+    static boolean isRetryable(String code) {
+        if (code == null) return false;
+        return code.startsWith("RequestLimitExceeded")
+                || isServerFault(code)
+                || code.equals("FailedOperation.UnKnowError")
+                || code.equals("AuthFailure.SignatureExpire");
     }
 }
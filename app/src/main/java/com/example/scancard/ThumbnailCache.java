@@ -0,0 +1,98 @@
+package com.example.scancard;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+/**
+ * 历史记录缩略图：内存 LRU + 磁盘（cache/thumbs）两级。
+ * 第一次从相机原图生成（粗缩放解码 -> 缩到长边 LONG_SIDE -> 存成小 JPEG），之后只读几 KB 的缩略图文件。
+ * 原图被 PhotoStore 清理时一并删除对应缩略图。load() 会读写文件，不要在主线程调用。
+ */
+public class ThumbnailCache {
+
+    private static final int LONG_SIDE = 192;
+    private static final int QUALITY = 80;
+    private static final int MEMORY_BYTES = 4 * 1024 * 1024;
+
+    private static ThumbnailCache instance;
+
+    private final Context appContext;
+    private final File dir;
+    // 淘汰时不回收：条目可能还显示在列表里，交给 GC
+    private final LruCache<String, Bitmap> memory = new LruCache<String, Bitmap>(MEMORY_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+
+    public static synchronized ThumbnailCache get(Context ctx) {
+        if (instance == null) {
+            instance = new ThumbnailCache(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ThumbnailCache(Context appContext) {
+        this.appContext = appContext;
+        this.dir = new File(appContext.getCacheDir(), "thumbs");
+    }
+
+    public Bitmap memoryGet(String photoPath) {
+        return memory.get(photoPath);
+    }
+
+    /**
+     * 内存 -> 磁盘 -> 从原图生成；原图已不存在时返回 null
+     */
+    public Bitmap load(String photoPath) {
+        Bitmap thumb = memory.get(photoPath);
+        if (thumb != null) return thumb;
+
+        File file = file(photoPath);
+        if (file.isFile()) thumb = BitmapFactory.decodeFile(file.getAbsolutePath());
+        if (thumb == null) thumb = generate(photoPath, file);
+        if (thumb != null) memory.put(photoPath, thumb);
+        return thumb;
+    }
+
+    public void remove(String photoPath) {
+        memory.remove(photoPath);
+        file(photoPath).delete();
+    }
+
+    private File file(String photoPath) {
+        return new File(dir, Tc3Signer.sha256Hex(photoPath) + ".jpg");
+    }
+
+    private Bitmap generate(String photoPath, File out) {
+        File photo = new File(photoPath);
+        if (!photo.isFile()) return null;
+        Bitmap sampled = ImageEncoder.decodeSampled(appContext, Uri.fromFile(photo), LONG_SIDE);
+        if (sampled == null) return null;
+
+        Bitmap thumb = ImageEncoder.scaledCopy(sampled, LONG_SIDE);
+        BitmapPool.put(sampled);
+        File tmp = new File(dir, out.getName() + ".tmp");
+        try {
+            thumb = PhotoStore.applyOrientation(thumb, photo);
+            if (!dir.exists()) dir.mkdirs();
+            try (OutputStream os = new FileOutputStream(tmp)) {
+                thumb.compress(Bitmap.CompressFormat.JPEG, QUALITY, os);
+            }
+            if (!tmp.renameTo(out)) tmp.delete();
+        } catch (Exception e) {
+            // 写盘失败不影响这次显示，下次再生成
+            e.printStackTrace();
+            tmp.delete();
+        }
+        return thumb;
+    }
+}
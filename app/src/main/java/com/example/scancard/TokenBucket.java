@@ -0,0 +1,63 @@
+package com.example.scancard;
+
+/**
+ * 令牌桶限流：按固定速率补充令牌，桶满为止；每次请求取一个令牌，取不到就等。
+ * 用来把客户端请求速率压在腾讯云接口的 QPS 配额以内。
+ */
+public class TokenBucket {
+
+    public interface Clock {
+        long nanoTime();
+    }
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final Clock clock;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int burst, Clock clock) {
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = permitsPerSecond / 1e9;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.lastRefill = clock.nanoTime();
+    }
+
+    /**
+     * 取一个令牌，成功返回 0；否则返回还需等待的纳秒数（不扣令牌）
+     */
+    public synchronized long tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /**
+     * 阻塞直到拿到令牌
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos = tryAcquire();
+            if (waitNanos == 0) return;
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    private void refill() {
+        long now = clock.nanoTime();
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class CachingDnsTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicBoolean offline = new AtomicBoolean();
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    private CachingDns newDns() {
+        CachingDns dns = new CachingDns(hostname -> {
+            lookups.incrementAndGet();
+            if (offline.get()) throw new UnknownHostException(hostname);
+            return Collections.singletonList(InetAddress.getByAddress(hostname, new byte[]{10, 0, 0, 1}));
+        }, 1000);
+        dns.clockMs = now::get;
+        return dns;
+    }
+
+    @Test
+    public void withinTtl_servedFromCache() throws Exception {
+        CachingDns dns = newDns();
+        List<InetAddress> first = dns.lookup("ocr.tencentcloudapi.com");
+        now.addAndGet(999);
+        assertSame(first, dns.lookup("ocr.tencentcloudapi.com"));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void expired_resolvedAgain() throws Exception {
+        CachingDns dns = newDns();
+        dns.lookup("ocr.tencentcloudapi.com");
+        now.addAndGet(1000);
+        dns.lookup("ocr.tencentcloudapi.com");
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void lookupFails_fallsBackToStaleEntry() throws Exception {
+        CachingDns dns = newDns();
+        List<InetAddress> first = dns.lookup("ocr.tencentcloudapi.com");
+        now.addAndGet(5000);
+        offline.set(true);
+        assertSame(first, dns.lookup("ocr.tencentcloudapi.com"));
+    }
+
+    @Test(expected = UnknownHostException.class)
+    public void lookupFails_withoutCache_throws() throws Exception {
+        offline.set(true);
+        newDns().lookup("ocr.tencentcloudapi.com");
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.scancard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Dns;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用本地 TLS + HTTP/2 服务代替腾讯云，验证预热后的第一次识别直接复用连接
+ */
+public class ConnectionPrewarmTest {
+
+    private static final String OK = "{\"Response\":{\"CardNo\":\"6222020000000000\",\"RequestId\":\"ok\"}}";
+
+    private MockWebServer server;
+    private OkHttpClient http;
+    private TencentOcrClient client;
+    private final AtomicInteger connects = new AtomicInteger();
+    private final AtomicInteger dnsLookups = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        HeldCertificate cert = new HeldCertificate.Builder()
+                .addSubjectAlternativeName("localhost")
+                .build();
+        HandshakeCertificates serverCerts = new HandshakeCertificates.Builder()
+                .heldCertificate(cert)
+                .build();
+        HandshakeCertificates clientCerts = new HandshakeCertificates.Builder()
+                .addTrustedCertificate(cert.certificate())
+                .build();
+
+        server = new MockWebServer();
+        server.useHttps(serverCerts.sslSocketFactory(), false);
+        server.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        server.start();
+
+        Dns countingDns = hostname -> {
+            dnsLookups.incrementAndGet();
+            return Dns.SYSTEM.lookup(hostname);
+        };
+        http = TencentOcrClient.newHttpClient(new CachingDns(countingDns, 60_000))
+                .sslSocketFactory(clientCerts.sslSocketFactory(), clientCerts.trustManager())
+                .eventListener(new EventListener() {
+                    @Override
+                    public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+                        connects.incrementAndGet();
+                    }
+                })
+                .build();
+        client = new TencentOcrClient(server.url("/").toString(), http,
+                new Tc3Signer("AKIDtest", "secret", "ocr"), new TencentOcrClient.RetryPolicy());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        http.dispatcher().executorService().shutdown();
+        http.connectionPool().evictAll();
+        server.shutdown();
+    }
+
+    @Test
+    public void firstCallAfterWarmUp_reusesConnection() throws Exception {
+        server.enqueue(new MockResponse());            // 预热的 HEAD
+        server.enqueue(new MockResponse().setBody(OK));
+
+        assertTrue(client.warmUp());
+        assertEquals("HEAD", server.takeRequest(2, TimeUnit.SECONDS).getMethod());
+        awaitIdleConnection();
+        assertEquals(1, connects.get());
+
+        assertEquals(OK, client.call("BankCardOCR", "2018-11-19", "{}"));
+
+        RecordedRequest post = server.takeRequest();
+        assertEquals("POST", post.getMethod());
+        assertEquals(1, post.getSequenceNumber());     // 同一条连接上的第二个请求
+        assertEquals(1, connects.get());
+        assertEquals(1, dnsLookups.get());
+    }
+
+    @Test
+    public void warmUp_skippedWhileConnectionIdle() throws Exception {
+        server.enqueue(new MockResponse());
+
+        assertTrue(client.warmUp());
+        server.takeRequest(2, TimeUnit.SECONDS);
+        awaitIdleConnection();
+
+        assertFalse(client.warmUp());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void concurrentCalls_shareOneHttp2Connection() throws Exception {
+        for (int i = 0; i < 4; i++) server.enqueue(new MockResponse().setBody(OK));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(pool.submit(() -> client.call("IDCardOCR", "2018-11-19", "{}")));
+        }
+        // get() 把工作线程里的异常抛到测试线程
+        for (Future<String> f : results) assertEquals(OK, f.get(5, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(4, server.getRequestCount());
+        assertEquals(1, http.connectionPool().connectionCount());
+    }
+
+    private void awaitIdleConnection() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (http.connectionPool().idleConnectionCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, http.connectionPool().idleConnectionCount());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HistoryStoreTest {
+
+    @Test
+    public void fromResult_copiesSearchableFields() {
+        IdCardResult id = new IdCardResult();
+        id.name = "张三";
+        id.idNum = "11010519491231002X";
+        HistoryStore.Item it = HistoryStore.fromResult(HistoryStore.KEY_IDCARD, id, "d");
+        assertEquals("张三", it.holderName);
+        assertEquals("11010519491231002X", it.idNum);
+        assertEquals("d", it.detail);
+
+        BankCardResult bank = new BankCardResult();
+        bank.cardNo = "6222020200000000000";
+        bank.bankInfo = "工商银行";
+        it = HistoryStore.fromResult(HistoryStore.KEY_BANK, bank, "d");
+        assertEquals("6222020200000000000", it.cardNo);
+        assertEquals("工商银行", it.bankInfo);
+    }
+
+    @Test
+    public void fromResult_errorKeepsOnlyDisplayText() {
+        BankCardResult r = OcrResultParser.readBank(
+                "{\"Response\":{\"Error\":{\"Code\":\"FailedOperation.OcrFailed\",\"Message\":\"x\"},\"RequestId\":\"e\"}}");
+        HistoryStore.Item it = HistoryStore.fromResult(HistoryStore.KEY_BANK, r, "d");
+        assertNull(it.cardNo);
+        assertEquals("d", it.detail);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.scancard;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OcrCacheTest {
+
+    private static final String OK = "{\"Response\":{\"CardNo\":\"6222020000000000\",\"RequestId\":\"r1\"}}";
+    private static final String ERROR =
+            "{\"Response\":{\"Error\":{\"Code\":\"InternalError\",\"Message\":\"x\"},\"RequestId\":\"r2\"}}";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = tmp.newFolder("ocr_cache");
+    }
+
+    @Test
+    public void repeatedRequest_servedFromMemory() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        OcrCache cache = new OcrCache(dir, 60_000, 8, (a, v, p, c) -> {
+            calls.incrementAndGet();
+            return reply(OK);
+        });
+
+        assertEquals(OK, cache.call("BankCardOCR", "2018-11-19", payload("same")).json);
+        assertEquals(OK, cache.call("BankCardOCR", "2018-11-19", payload("same")).json);
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void diskTier_survivesNewInstance_untilTtl() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        OcrCache.Fetcher fetcher = (a, v, p, c) -> {
+            calls.incrementAndGet();
+            return reply(OK);
+        };
+        new OcrCache(dir, 60_000, 8, fetcher).call("BankCardOCR", "2018-11-19", payload("img"));
+        new OcrCache(dir, 60_000, 8, fetcher).call("BankCardOCR", "2018-11-19", payload("img"));
+        assertEquals(1, calls.get());
+
+        // TTL 为 0：磁盘上的结果已过期
+        new OcrCache(dir, -1, 8, fetcher).call("BankCardOCR", "2018-11-19", payload("img"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void errorResponses_neverCached() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        OcrCache cache = new OcrCache(dir, 60_000, 8, (a, v, p, c) -> {
+            calls.incrementAndGet();
+            return reply(ERROR);
+        });
+
+        cache.call("IDCardOCR", "2018-11-19", payload("blurry"));
+        cache.call("IDCardOCR", "2018-11-19", payload("blurry"));
+        assertEquals(2, calls.get());
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void differentActionOrSide_notShared() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        OcrCache cache = new OcrCache(dir, 60_000, 8, (a, v, p, c) -> {
+            calls.incrementAndGet();
+            return reply(OK);
+        });
+
+        cache.call("IDCardOCR", "2018-11-19", payload("card", "FRONT"));
+        cache.call("IDCardOCR", "2018-11-19", payload("card", "BACK"));
+        cache.call("BankCardOCR", "2018-11-19", payload("card", "FRONT"));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void concurrentIdenticalRequests_shareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        OcrCache cache = new OcrCache(dir, 60_000, 8, (a, v, p, c) -> {
+            calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return reply(OK);
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        Future<?>[] futures = new Future<?>[4];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = pool.submit(() -> cache.call("BankCardOCR", "2018-11-19", payload("tap-twice")));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<?> f : futures) {
+            assertEquals(OK, ((OcrReply) f.get(5, TimeUnit.SECONDS)).json);
+        }
+        pool.shutdown();
+
+        assertEquals(1, calls.get());
+        assertEquals(3, cache.hits());
+    }
+
+    @Test
+    public void leaderCancelled_followerFetchesItself() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CancelToken leaderCancel = new CancelToken();
+        OcrCache cache = new OcrCache(dir, 60_000, 8, (a, v, p, c) -> {
+            if (calls.incrementAndGet() == 1) {
+                leaderStarted.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                c.throwIfCancelled();
+            }
+            return reply(OK);
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<OcrReply> leader = pool.submit(
+                () -> cache.call("BankCardOCR", "2018-11-19", payload("left-page"), leaderCancel));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Future<OcrReply> follower = pool.submit(
+                () -> cache.call("BankCardOCR", "2018-11-19", payload("left-page"), null));
+        Thread.sleep(200);
+        leaderCancel.cancel();
+        release.countDown();
+
+        try {
+            leader.get(5, TimeUnit.SECONDS);
+            fail("发起方已取消");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+        assertEquals(OK, follower.get(5, TimeUnit.SECONDS).json);
+        assertEquals(2, calls.get());
+        pool.shutdown();
+    }
+
+    @Test
+    public void diskTier_evictsOldestOverByteLimit() throws Exception {
+        OcrCache cache = new OcrCache(dir, 60_000, OK.length() * 2L, 8, (a, v, p, c) -> reply(OK));
+
+        cache.call("BankCardOCR", "2018-11-19", payload("first"));
+        File[] first = dir.listFiles();
+        assertEquals(1, first.length);
+        first[0].setLastModified(System.currentTimeMillis() - 10_000);
+        cache.call("BankCardOCR", "2018-11-19", payload("second"));
+        cache.call("BankCardOCR", "2018-11-19", payload("third"));
+
+        assertEquals(2, dir.listFiles().length);
+        assertFalse(first[0].exists());
+    }
+
+    @Test
+    public void diskHit_parsedOnceAndTyped() throws Exception {
+        OcrCache.Fetcher fetcher = (a, v, p, c) -> reply(OK);
+        new OcrCache(dir, 60_000, 8, fetcher).call("BankCardOCR", "2018-11-19", payload("img"));
+
+        OcrCache fresh = new OcrCache(dir, 60_000, 8, fetcher);
+        OcrReply first = fresh.call("BankCardOCR", "2018-11-19", payload("img"));
+        OcrReply again = fresh.call("BankCardOCR", "2018-11-19", payload("img"));
+        assertEquals("6222020000000000", ((BankCardResult) first.result).cardNo);
+        assertSame(first.result, again.result);
+    }
+
+    // 和 TencentOcrClient 一样：收到时按接口解析一次
+    private static OcrReply reply(String json) {
+        return new OcrReply(json, OcrResultParser.read("BankCardOCR", json));
+    }
+
+    private static OcrPayload payload(String image) throws Exception {
+        return payload(image, null);
+    }
+
+    private static OcrPayload payload(String image, String side) throws Exception {
+        java.util.Map<String, String> fields = new java.util.LinkedHashMap<>();
+        if (side != null) fields.put("CardSide", side);
+        return OcrPayload.build(out -> out.write(image.getBytes("UTF-8")), fields);
+    }
+}
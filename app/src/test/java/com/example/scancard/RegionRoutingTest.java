@@ -0,0 +1,161 @@
+package com.example.scancard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 三个本地服务模拟三个地域，各自注入不同延迟，验证请求发往最快的健康地域
+ */
+public class RegionRoutingTest {
+
+    private static final String OK = "{\"Response\":{\"CardNo\":\"6222020000000000\",\"RequestId\":\"ok\"}}";
+    private static final String GZ = "ap-guangzhou";
+    private static final String SH = "ap-shanghai";
+    private static final String BJ = "ap-beijing";
+
+    private final Map<String, FakeRegion> fakes = new LinkedHashMap<>();
+    private OkHttpClient http;
+    private TencentOcrClient client;
+
+    private static class FakeRegion extends Dispatcher {
+        final MockWebServer server = new MockWebServer();
+        volatile long delayMs;
+        volatile boolean down;
+        volatile int posts;
+
+        FakeRegion(long delayMs) {
+            this.delayMs = delayMs;
+            server.setDispatcher(this);
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if (down) return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+            MockResponse response = new MockResponse().setHeadersDelay(delayMs, TimeUnit.MILLISECONDS);
+            // HEAD 探测不能带响应体，否则同一连接上的下一个请求会读乱
+            if (!"POST".equals(request.getMethod())) return response;
+            posts++;
+            return response.setBody(OK);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        fakes.put(GZ, new FakeRegion(150));
+        fakes.put(SH, new FakeRegion(80));
+        fakes.put(BJ, new FakeRegion(10));
+        Map<String, String> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, FakeRegion> e : fakes.entrySet()) {
+            e.getValue().server.start();
+            endpoints.put(e.getKey(), e.getValue().server.url("/").toString());
+        }
+
+        TencentOcrClient.RetryPolicy retry = new TencentOcrClient.RetryPolicy();
+        retry.baseDelayMs = 1;
+        retry.maxDelayMs = 5;
+        retry.breakerThreshold = 10;
+        http = new OkHttpClient.Builder().readTimeout(2, TimeUnit.SECONDS).build();
+        client = new TencentOcrClient(endpoints, http, new Tc3Signer("AKIDtest", "secret", "ocr"), retry);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (FakeRegion f : fakes.values()) f.server.shutdown();
+    }
+
+    @Test
+    public void beforeProbing_usesFirstRegion() throws Exception {
+        assertEquals(OK, client.call("BankCardOCR", "2018-11-19", "{}"));
+        RecordedRequest r = fakes.get(GZ).server.takeRequest();
+        assertEquals(GZ, r.getHeader("X-TC-Region"));
+    }
+
+    @Test
+    public void afterProbing_routesToFastestRegion() throws Exception {
+        probeAll();
+        assertTrue(client.regions().stats(BJ).rttMs() < client.regions().stats(GZ).rttMs());
+
+        client.call("BankCardOCR", "2018-11-19", "{}");
+        client.call("BankCardOCR", "2018-11-19", "{}");
+        assertEquals(2, fakes.get(BJ).posts);
+        assertEquals(0, fakes.get(GZ).posts + fakes.get(SH).posts);
+
+        RecordedRequest post = takePost(fakes.get(BJ));
+        assertEquals(BJ, post.getHeader("X-TC-Region"));
+        assertTrue(post.getHeader("Authorization").startsWith("TC3-HMAC-SHA256"));
+    }
+
+    @Test
+    public void failingRegion_retriedElsewhere_thenCooledDown() throws Exception {
+        probeAll();
+        fakes.get(BJ).down = true;
+
+        // 北京断开：这次调用重试到下一个最快的上海
+        assertEquals(OK, client.call("IDCardOCR", "2018-11-19", "{}"));
+        assertEquals(1, fakes.get(SH).posts);
+
+        // 出错率折算成惩罚后北京不再是最快的，之后直接走上海，不再先试北京
+        client.call("IDCardOCR", "2018-11-19", "{}");
+        int bjRequests = fakes.get(BJ).server.getRequestCount();
+        client.call("IDCardOCR", "2018-11-19", "{}");
+        assertEquals(bjRequests, fakes.get(BJ).server.getRequestCount());
+        assertEquals(3, fakes.get(SH).posts);
+    }
+
+    @Test
+    public void latencyChange_picksUpAfterReprobe() throws Exception {
+        probeAll();
+        fakes.get(BJ).delayMs = 300;
+        for (int i = 0; i < 5; i++) client.probe(BJ);
+
+        client.call("BankCardOCR", "2018-11-19", "{}");
+        assertEquals(1, fakes.get(SH).posts);
+    }
+
+    @Test
+    public void warmUp_notSkippedByIdleConnectionToAnotherRegion() throws Exception {
+        client.regions().dueForProbe();                      // 先不探测，只有真实调用建连
+        client.call("BankCardOCR", "2018-11-19", "{}");      // 广州留下一条空闲连接
+        awaitIdleConnection();
+        assertFalse(client.warmUp());                        // 广州连接还热
+
+        client.regions().recordFailure(GZ);
+        client.regions().recordFailure(GZ);                  // 广州冷却，之后走上海
+        assertTrue(client.warmUp());
+    }
+
+    private void awaitIdleConnection() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (http.connectionPool().idleConnectionCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void probeAll() {
+        for (String region : fakes.keySet()) client.probe(region);
+    }
+
+    private static RecordedRequest takePost(FakeRegion f) throws InterruptedException {
+        RecordedRequest r;
+        do {
+            r = f.server.takeRequest();
+        } while (!"POST".equals(r.getMethod()));
+        return r;
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.scancard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TencentOcrClientTest {
+
+    private static final String OK = "{\"Response\":{\"CardNo\":\"6222020000000000\",\"RequestId\":\"ok\"}}";
+
+    private MockWebServer server;
+    private TencentOcrClient client;
+    private final AtomicLong clock = new AtomicLong(1_700_000_000L);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+
+        TencentOcrClient.RetryPolicy retry = new TencentOcrClient.RetryPolicy();
+        retry.maxAttempts = 3;
+        retry.baseDelayMs = 1;
+        retry.maxDelayMs = 5;
+        retry.breakerThreshold = 3;
+        retry.breakerOpenMs = 60_000;
+
+        OkHttpClient http = new OkHttpClient.Builder()
+                .readTimeout(2, TimeUnit.SECONDS)
+                .build();
+        client = new TencentOcrClient(server.url("/").toString(), http,
+                new Tc3Signer("AKIDtest", "secret", "ocr"), retry);
+        // 每次签名时间戳 +1 秒，验证重试会重新签名
+        client.clockSeconds = clock::incrementAndGet;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void retryableErrorCodes_retriedAndResigned() throws Exception {
+        server.enqueue(new MockResponse().setBody(error("RequestLimitExceeded")));
+        server.enqueue(new MockResponse().setBody(error("InternalError")));
+        server.enqueue(new MockResponse().setBody(OK));
+
+        assertEquals(OK, client.call("BankCardOCR", "2018-11-19", "{}"));
+        assertEquals(3, server.getRequestCount());
+
+        RecordedRequest first = server.takeRequest();
+        RecordedRequest second = server.takeRequest();
+        assertNotEquals(first.getHeader("X-TC-Timestamp"), second.getHeader("X-TC-Timestamp"));
+        assertNotEquals(first.getHeader("Authorization"), second.getHeader("Authorization"));
+        assertEquals("BankCardOCR", second.getHeader("X-TC-Action"));
+    }
+
+    @Test
+    public void nonRetryableError_returnedImmediately() throws Exception {
+        String body = error("FailedOperation.NoBankCard");
+        server.enqueue(new MockResponse().setBody(body));
+
+        assertEquals(body, client.call("BankCardOCR", "2018-11-19", "{}"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void fetch_returnsResultParsedOnReceipt() throws Exception {
+        server.enqueue(new MockResponse().setBody(error("RequestLimitExceeded")));
+        server.enqueue(new MockResponse().setBody(OK));
+        OcrPayload payload = OcrPayload.build(out -> out.write(new byte[]{1, 2, 3}), null);
+        try {
+            OcrReply reply = client.fetchReply("BankCardOCR", "2018-11-19", payload, null);
+            assertEquals(OK, reply.json);
+            assertTrue(reply.result instanceof BankCardResult);
+            assertTrue(reply.isSuccess());
+        } finally {
+            payload.release();
+        }
+    }
+
+    @Test
+    public void transientIoFailure_retried() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+        server.enqueue(new MockResponse().setBody(OK));
+
+        assertEquals(OK, client.call("IDCardOCR", "2018-11-19", "{}"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void retriesExhausted_returnsLastResponse() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setBody(error("RequestLimitExceeded")));
+        }
+        assertEquals(error("RequestLimitExceeded"), client.call("IDCardOCR", "2018-11-19", "{}"));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void breakerOpens_andFailsFastWithoutHittingServer() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503).setBody(error("InternalError")));
+        }
+
+        client.call("IDCardOCR", "2018-11-19", "{}");
+        assertEquals(CircuitBreaker.State.OPEN, client.breaker().state());
+
+        try {
+            client.call("IDCardOCR", "2018-11-19", "{}");
+            fail("熔断期间应直接失败");
+        } catch (OcrUnavailableException expected) {
+            // ok
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void cancel_abortsInFlightCall_withoutRetryOrBreakerFailure() throws Exception {
+        server.enqueue(new MockResponse().setBody(OK).setHeadersDelay(3, TimeUnit.SECONDS));
+        OcrPayload payload = OcrPayload.build(out -> out.write(new byte[]{1, 2, 3}), null);
+        CancelToken cancel = new CancelToken();
+
+        new Thread(() -> {
+            try {
+                server.takeRequest();   // 请求已经发出
+                cancel.cancel();
+            } catch (InterruptedException ignored) {
+            }
+        }).start();
+
+        long start = System.nanoTime();
+        try {
+            client.call("BankCardOCR", "2018-11-19", payload, cancel);
+            fail("取消后应抛 CancellationException");
+        } catch (CancellationException expected) {
+            // ok
+        } finally {
+            payload.release();
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(CircuitBreaker.State.CLOSED, client.breaker().state());
+    }
+
+    @Test
+    public void async_manyConcurrentCalls_onSmallPool() throws Exception {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(2);
+        TencentOcrClient small = new TencentOcrClient(server.url("/").toString(),
+                new OkHttpClient.Builder().dispatcher(dispatcher).build(),
+                new Tc3Signer("AKIDtest", "secret", "ocr"), new TencentOcrClient.RetryPolicy());
+        int n = 10;
+        for (int i = 0; i < n; i++) {
+            server.enqueue(new MockResponse().setBody(OK).setHeadersDelay(50, TimeUnit.MILLISECONDS));
+        }
+
+        // 全部立即返回，调用线程不等网络
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            futures.add(small.callAsync("IDCardOCR", "2018-11-19", "{}", 0, null));
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(200));
+
+        for (CompletableFuture<String> f : futures) {
+            assertEquals(OK, f.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(n, server.getRequestCount());
+    }
+
+    @Test
+    public void async_deadline_abortsSlowCall() throws Exception {
+        server.enqueue(new MockResponse().setBody(OK).setHeadersDelay(3, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        CompletableFuture<String> f = client.callAsync("BankCardOCR", "2018-11-19", "{}", 300, null);
+        try {
+            f.get(2, TimeUnit.SECONDS);
+            fail("超过时限应失败");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof OcrUnavailableException);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void async_deadline_returnsLastRetryableResponse() throws Exception {
+        server.enqueue(new MockResponse().setBody(error("RequestLimitExceeded")));
+        server.enqueue(new MockResponse().setBody(OK).setHeadersDelay(3, TimeUnit.SECONDS));
+
+        CompletableFuture<String> f = client.callAsync("BankCardOCR", "2018-11-19", "{}", 500, null);
+        assertEquals(error("RequestLimitExceeded"), f.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void async_futureCancel_abortsInFlightCall() throws Exception {
+        server.setDispatcher(new SlowWhenAsked());
+
+        CompletableFuture<String> f = client.callAsync("BankCardOCR", "2018-11-19", SLOW, 0, null);
+        server.takeRequest();   // 请求已经发出
+        assertTrue(f.cancel(true));
+
+        // 被取消的请求不占连接、不重试：下一次调用马上拿到结果
+        long start = System.nanoTime();
+        assertEquals(OK, client.call("BankCardOCR", "2018-11-19", "{}"));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+        assertEquals(2, server.getRequestCount());
+        assertEquals(CircuitBreaker.State.CLOSED, client.breaker().state());
+    }
+
+    @Test
+    public void async_futureCancel_duringHalfOpenProbe_releasesProbe() throws Exception {
+        server.setDispatcher(new SlowWhenAsked());
+        TencentOcrClient.RetryPolicy retry = new TencentOcrClient.RetryPolicy();
+        retry.breakerThreshold = 1;
+        retry.breakerOpenMs = 50;
+        TencentOcrClient c = new TencentOcrClient(server.url("/").toString(),
+                new OkHttpClient.Builder().readTimeout(2, TimeUnit.SECONDS).build(),
+                new Tc3Signer("AKIDtest", "secret", "ocr"), retry);
+        c.breaker().recordFailure();
+        Thread.sleep(100);   // 冷却结束，下一个请求是半开探测
+
+        CompletableFuture<String> f = c.callAsync("BankCardOCR", "2018-11-19", SLOW, 0, null);
+        server.takeRequest();
+        assertTrue(f.cancel(true));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, c.breaker().state());
+
+        assertEquals(OK, c.call("BankCardOCR", "2018-11-19", "{}"));
+        assertEquals(CircuitBreaker.State.CLOSED, c.breaker().state());
+    }
+
+    @Test
+    public void async_breakerOpen_failsWithoutRequest() throws Exception {
+        for (int i = 0; i < 3; i++) client.breaker().recordFailure();
+
+        CompletableFuture<String> f = client.callAsync("BankCardOCR", "2018-11-19", "{}", 0, null);
+        try {
+            f.get(1, TimeUnit.SECONDS);
+            fail("熔断期间应直接失败");
+        } catch (ExecutionException expected) {
+            assertSame(OcrUnavailableException.class, expected.getCause().getClass());
+        }
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void cancel_duringHalfOpenProbe_releasesProbe() throws Exception {
+        TencentOcrClient.RetryPolicy retry = new TencentOcrClient.RetryPolicy();
+        retry.breakerThreshold = 1;
+        retry.breakerOpenMs = 50;
+        TencentOcrClient c = new TencentOcrClient(server.url("/").toString(),
+                new OkHttpClient.Builder().readTimeout(2, TimeUnit.SECONDS).build(),
+                new Tc3Signer("AKIDtest", "secret", "ocr"), retry);
+        c.breaker().recordFailure();
+        Thread.sleep(100);   // 冷却结束，下一个请求是半开探测
+
+        server.enqueue(new MockResponse().setBody(OK).setHeadersDelay(3, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody(OK));
+        CancelToken cancel = new CancelToken();
+        new Thread(() -> {
+            try {
+                server.takeRequest();
+                cancel.cancel();
+            } catch (InterruptedException ignored) {
+            }
+        }).start();
+        OcrPayload payload = OcrPayload.build(out -> out.write(new byte[]{1, 2, 3}), null);
+        try {
+            c.call("BankCardOCR", "2018-11-19", payload, cancel);
+            fail("取消后应抛 CancellationException");
+        } catch (CancellationException expected) {
+            // ok
+        } finally {
+            payload.release();
+        }
+        assertEquals(CircuitBreaker.State.HALF_OPEN, c.breaker().state());
+
+        // 探测名额已还回：下一个请求作为新的探测放行，成功后恢复
+        assertEquals(OK, c.call("BankCardOCR", "2018-11-19", "{}"));
+        assertEquals(CircuitBreaker.State.CLOSED, c.breaker().state());
+    }
+
+    @Test
+    public void presigned_firstAttemptSentAsIs_retryResigned() throws Exception {
+        server.enqueue(new MockResponse().setBody(error("RequestLimitExceeded")));
+        server.enqueue(new MockResponse().setBody(OK));
+        OcrPayload payload = OcrPayload.build(out -> out.write(new byte[]{1, 2, 3}), null);
+        try {
+            TencentOcrClient.Signed signed = client.presign("BankCardOCR", "2018-11-19", payload);
+            assertEquals(OK, client.call(signed, null));
+        } finally {
+            payload.release();
+        }
+
+        RecordedRequest first = server.takeRequest();
+        RecordedRequest second = server.takeRequest();
+        assertEquals(String.valueOf(clock.get() - 1), first.getHeader("X-TC-Timestamp"));
+        assertEquals(String.valueOf(clock.get()), second.getHeader("X-TC-Timestamp"));
+    }
+
+    @Test
+    public void circuitBreaker_halfOpenProbe() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(2, 1000, now::get);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertTrue(!breaker.allowRequest());
+
+        now.set(1000);
+        assertTrue(breaker.allowRequest());       // 半开：放一个探测
+        assertTrue(!breaker.allowRequest());      // 其他请求仍被拒绝
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void tokenBucket_limitsRate() {
+        AtomicLong nanos = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 2, nanos::get);
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        long wait = bucket.tryAcquire();
+        assertTrue(wait > 0 && wait <= 100_000_000L);   // 10 QPS：最多等 100ms
+
+        nanos.addAndGet(100_000_000L);
+        assertEquals(0, bucket.tryAcquire());
+    }
+
+    // 请求体是 SLOW 的响应拖 3 秒，其余立即返回；按请求挑响应，不依赖队列顺序
+    private static final String SLOW = "{\"slow\":1}";
+
+    private static class SlowWhenAsked extends okhttp3.mockwebserver.Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            MockResponse response = new MockResponse().setBody(OK);
+            if (SLOW.equals(request.getBody().readUtf8())) response.setHeadersDelay(3, TimeUnit.SECONDS);
+            return response;
+        }
+    }
+
+    private static String error(String code) {
+        return "{\"Response\":{\"Error\":{\"Code\":\"" + code + "\",\"Message\":\"m\"},\"RequestId\":\"r\"}}";
+    }
+}
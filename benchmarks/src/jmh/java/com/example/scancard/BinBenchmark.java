@@ -0,0 +1,72 @@
+package com.example.scancard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BIN 查询 + Luhn 校验：索引规模按完整银联 BIN 表估计（约 1 万条，6~8 位混合），
+ * 用 direct buffer 模拟 App 里的内存映射
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BinBenchmark {
+
+    private BinIndex index;
+    private String[] cards;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random r = new Random(42);
+        List<BinIndex.Entry> entries = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        while (entries.size() < 10_000) {
+            int len = 6 + r.nextInt(3);
+            StringBuilder bin = new StringBuilder("6");
+            while (bin.length() < len) bin.append(r.nextInt(10));
+            if (!seen.add(bin.toString())) continue;
+            String code = String.format("%08d", 1_000_000 + r.nextInt(200) * 10_000);
+            entries.add(new BinIndex.Entry(bin.toString(), code, "银行" + code, BinIndex.DEBIT));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinIndex.write(entries, out);
+        ByteBuffer direct = ByteBuffer.allocateDirect(out.size());
+        direct.put(out.toByteArray()).flip();
+        index = BinIndex.load(direct);
+
+        // 一半命中、一半查不到
+        cards = new String[1024];
+        for (int i = 0; i < cards.length; i++) {
+            String prefix = i % 2 == 0 ? entries.get(r.nextInt(entries.size())).bin : "9";
+            StringBuilder sb = new StringBuilder(prefix);
+            while (sb.length() < 19) sb.append(r.nextInt(10));
+            cards[i] = sb.toString();
+        }
+    }
+
+    @Benchmark
+    public BinIndex.Issuer lookup() {
+        return index.lookup(cards[next++ & 1023]);
+    }
+
+    @Benchmark
+    public boolean luhn() {
+        return BankCardValidator.luhnValid(cards[next++ & 1023]);
+    }
+}
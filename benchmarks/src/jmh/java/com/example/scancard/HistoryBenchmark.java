@@ -0,0 +1,99 @@
+package com.example.scancard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史记录读写，记录数 5 / 1k / 10k：
+ * - legacy*：旧版 SharedPreferences 整块 JSON，新增一条要整表解码再编码
+ * - index*：检索索引的增量添加和查询（SQLite 本身不在 JVM 上测）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HistoryBenchmark {
+
+    private static final String BANK = "history_bank";
+    private static final String IDCARD = "history_idcard";
+
+    @Param({"5", "1000", "10000"})
+    public int records;
+
+    private String legacyJson;
+    private HistorySearchIndex index;
+    private long nextId;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUpLegacy() {
+        List<LegacyHistoryCodec.Entry> list = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            list.add(new LegacyHistoryCodec.Entry("03-08 09:15", "银行卡：点击回看", detail(i)));
+        }
+        legacyJson = LegacyHistoryCodec.encode(list);
+    }
+
+    // 每轮迭代重建索引，避免 indexAdd 不断变大
+    @Setup(Level.Iteration)
+    public void setUpIndex() {
+        random = new Random(records);
+        index = new HistorySearchIndex();
+        for (nextId = 0; nextId < records; nextId++) {
+            addRecord(nextId);
+        }
+    }
+
+    @Benchmark
+    public List<LegacyHistoryCodec.Entry> legacyLoad() throws Exception {
+        return LegacyHistoryCodec.decode(legacyJson);
+    }
+
+    @Benchmark
+    public String legacyAdd() throws Exception {
+        List<LegacyHistoryCodec.Entry> list = LegacyHistoryCodec.decode(legacyJson);
+        list.add(0, new LegacyHistoryCodec.Entry("03-08 09:16", "银行卡：点击回看", detail(records)));
+        list.remove(list.size() - 1);
+        return LegacyHistoryCodec.encode(list);
+    }
+
+    @Benchmark
+    public int indexAdd() {
+        addRecord(nextId++);
+        return index.size();
+    }
+
+    @Benchmark
+    public List<Long> indexSearchCardSuffix() {
+        return index.search(null, String.valueOf(1000 + random.nextInt(9000)), 20);
+    }
+
+    @Benchmark
+    public List<Long> indexSearchName() {
+        return index.search(IDCARD, "张伟", 20);
+    }
+
+    private void addRecord(long id) {
+        if (id % 2 == 0) {
+            index.add(id, BANK, "6222" + (100000000000L + id), null, null, "工商银行");
+        } else {
+            index.add(id, IDCARD, null, "1101051949" + (10000000 + id), (id % 3 == 0 ? "张伟" : "李娜"), null);
+        }
+    }
+
+    private static String detail(int i) {
+        return "银行卡识别结果\n\n卡号：6222" + (100000000000L + i) + "\n银行信息：工商银行(01020000)\n" +
+                "卡类型：借记卡\n有效期：08/2029\n\nRequestId：" + i;
+    }
+}
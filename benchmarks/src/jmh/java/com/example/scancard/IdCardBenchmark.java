@@ -0,0 +1,83 @@
+package com.example.scancard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 身份证人像面本地校验（校验码 + 出生 / 性别比对 + 地区码查询）：
+ * 行政区划表按完整 GB/T 2260 的规模估计（34 个省、每省 15 个地市、每个地市 10 个区县，约 5600 条），
+ * 用 direct buffer 模拟 App 里的内存映射
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IdCardBenchmark {
+
+    private static final int TODAY = 20240301;
+
+    private RegionIndex regions;
+    private IdCardResult[] results;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<Integer, String> m = new TreeMap<>();
+        List<Integer> counties = new ArrayList<>();
+        for (int p = 11; p < 45; p++) {
+            m.put(p * 10000, "省" + p);
+            for (int c = 1; c <= 15; c++) {
+                m.put(p * 10000 + c * 100, "市" + c);
+                for (int d = 1; d <= 10; d++) {
+                    m.put(p * 10000 + c * 100 + d, "区" + d);
+                    counties.add(p * 10000 + c * 100 + d);
+                }
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RegionIndex.write(m, out);
+        ByteBuffer direct = ByteBuffer.allocateDirect(out.size());
+        direct.put(out.toByteArray()).flip();
+        regions = RegionIndex.load(direct);
+
+        Random r = new Random(42);
+        results = new IdCardResult[1024];
+        for (int i = 0; i < results.length; i++) {
+            int year = 1950 + r.nextInt(60), month = 1 + r.nextInt(12), day = 1 + r.nextInt(28);
+            int seq = r.nextInt(1000);
+            String body = String.format("%06d%04d%02d%02d%03d",
+                    counties.get(r.nextInt(counties.size())), year, month, day, seq);
+            IdCardResult result = new IdCardResult();
+            result.idNum = withCheckCode(body);
+            result.birth = year + "/" + month + "/" + day;
+            result.sex = seq % 2 == 1 ? "男" : "女";
+            results[i] = result;
+        }
+    }
+
+    @Benchmark
+    public IdCardValidator.Check check() {
+        return IdCardValidator.check(results[next++ & 1023], regions, TODAY);
+    }
+
+    private static String withCheckCode(String body17) {
+        for (char c : "0123456789X".toCharArray()) {
+            if (IdCardValidator.checksumValid(body17 + c)) return body17 + c;
+        }
+        throw new IllegalStateException();
+    }
+}
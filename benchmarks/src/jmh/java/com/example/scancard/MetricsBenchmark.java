@@ -0,0 +1,49 @@
+package com.example.scancard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阶段计时本身的开销：单线程和批量流水线那样的多线程并发记录
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsBenchmark {
+
+    private final ScanMetrics metrics = new ScanMetrics(512);
+
+    // 导出时各阶段窗口都是满的
+    @Setup
+    public void setUp() {
+        String[] stages = {ScanMetrics.DECODE, ScanMetrics.JPEG, ScanMetrics.PAYLOAD, ScanMetrics.SIGN,
+                ScanMetrics.NET_UPLOAD, ScanMetrics.NET_WAIT, ScanMetrics.PARSE, ScanMetrics.TOTAL};
+        for (String stage : stages) {
+            for (int i = 0; i < 512; i++) metrics.recordNanos(stage, 1_000_000L + i * 997L);
+        }
+    }
+
+    @Benchmark
+    public long recordStage() {
+        return metrics.since(ScanMetrics.PARSE, System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long recordStageContended() {
+        return metrics.since(ScanMetrics.NET_WAIT, System.nanoTime());
+    }
+
+    @Benchmark
+    public String exportJson() {
+        return metrics.toJson();
+    }
+}
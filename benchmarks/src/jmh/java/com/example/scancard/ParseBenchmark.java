@@ -0,0 +1,70 @@
+package com.example.scancard;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 返回解析：银行卡普通返回，身份证返回带 AdvancedInfo（裁剪图 Base64）时按大小取 0 / 64KB / 512KB；
+ * idCardJsonObject 是整棵 JSONObject 树的对照
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParseBenchmark {
+
+    private static final String BANK = "{\"Response\":{\"CardNo\":\"6222020200000000000\"," +
+            "\"BankInfo\":\"工商银行(01020000)\",\"ValidDate\":\"08/2029\",\"CardType\":\"借记卡\"," +
+            "\"CardName\":\"牡丹卡\",\"BorderCutImage\":null,\"CardNoImage\":null," +
+            "\"WarningCode\":[],\"QualityValue\":100,\"RequestId\":\"bank-1\"}}";
+
+    @Param({"0", "64", "512"})
+    public int advancedInfoKb;
+
+    private String idCard;
+
+    @Setup
+    public void setUp() {
+        StringBuilder img = new StringBuilder(advancedInfoKb * 1024);
+        for (int i = 0; i < advancedInfoKb * 1024; i++) img.append((char) ('A' + i % 26));
+        idCard = "{\"Response\":{\"Name\":\"张三\",\"Sex\":\"男\",\"Nation\":\"汉\",\"Birth\":\"1949/12/31\"," +
+                "\"Address\":\"北京市西城区某某街道1号\",\"IdNum\":\"11010519491231002X\"," +
+                "\"Authority\":\"\",\"ValidDate\":\"\"," +
+                "\"AdvancedInfo\":\"{\\\"IdCard\\\":\\\"" + img + "\\\",\\\"WarnInfos\\\":[]}\"," +
+                "\"RequestId\":\"id-1\"}}";
+    }
+
+    @Benchmark
+    public IdCardResult idCard() {
+        return OcrResultParser.readIdCard(idCard);
+    }
+
+    @Benchmark
+    public String idCardJsonObject() throws Exception {
+        JSONObject resp = new JSONObject(idCard).getJSONObject("Response");
+        return resp.optString("Name") + resp.optString("IdNum");
+    }
+
+    @Benchmark
+    public String idCardAndFormat() {
+        return OcrResultFormatter.format(OcrResultParser.readIdCard(idCard));
+    }
+
+    @Benchmark
+    public BankCardResult bank() {
+        return OcrResultParser.readBank(BANK);
+    }
+
+    @Benchmark
+    public String errorCode() {
+        return OcrResultParser.errorCode(idCard);
+    }
+}
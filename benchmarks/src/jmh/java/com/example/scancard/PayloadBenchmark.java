@@ -0,0 +1,58 @@
+package com.example.scancard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求体构造：JPEG -> Base64 -> JSON -> SHA-256。
+ * 流式写入可复用缓冲 vs 旧写法（整块 Base64 字符串 + 拼接 + 再整体算哈希）。
+ * 随机字节和 JPEG 一样基本不可压缩，长度取常见的 300KB ~ 1MB。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadBenchmark {
+
+    @Param({"300", "600", "1024"})
+    public int imageKb;
+
+    private byte[] jpeg;
+    private Map<String, String> fields;
+
+    @Setup
+    public void setUp() {
+        jpeg = new byte[imageKb * 1024];
+        new Random(imageKb).nextBytes(jpeg);
+        fields = new LinkedHashMap<>();
+        fields.put("CardSide", "FRONT");
+    }
+
+    @Benchmark
+    public String streaming() throws Exception {
+        OcrPayload payload = OcrPayload.build(out -> out.write(jpeg), fields);
+        try {
+            return payload.sha256Hex();
+        } finally {
+            payload.release();
+        }
+    }
+
+    @Benchmark
+    public String stringConcat() {
+        String base64 = Base64.getEncoder().encodeToString(jpeg);
+        String json = "{\"ImageBase64\":\"" + base64 + "\",\"CardSide\":\"FRONT\"}";
+        return Tc3Signer.sha256Hex(json);
+    }
+}
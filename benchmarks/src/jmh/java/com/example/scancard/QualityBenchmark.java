@@ -0,0 +1,77 @@
+package com.example.scancard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传前质量检查和卡片检测的耗时：400px 是 App 里缩好后的输入，1200px 是直接传整张解码图。
+ * autoCaptureFrame 是取景自动拍摄每个分析帧的开销（Y 平面 -> 灰度图 -> 检测 + 质量检查）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QualityBenchmark {
+
+    @Param({"400", "1200"})
+    public int longSide;
+
+    private final ImageQualityAnalyzer analyzer = new ImageQualityAnalyzer();
+    private final CardDetector detector = new CardDetector();
+    private AutoCaptureAnalyzer autoCapture;
+    private int[] pixels;
+    private ByteBuffer luma;
+    private int width;
+    private int height;
+    private long frameMs;
+
+    // 灰色背景上一块浅色卡片，卡片上几行深色方块当作文字
+    @Setup
+    public void setUp() {
+        width = longSide;
+        height = longSide * 19 / 30;
+        pixels = new int[width * height];
+        Random r = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean card = x > width / 7 && x < width * 6 / 7 && y > height / 6 && y < height * 5 / 6;
+                boolean text = card && (y / (height / 12)) % 2 == 0 && r.nextInt(3) > 0;
+                int v = text ? 40 : card ? 225 : 110;
+                v = Math.min(255, Math.max(0, v + r.nextInt(9) - 4));
+                pixels[y * width + x] = 0xff000000 | (v << 16) | (v << 8) | v;
+            }
+        }
+        luma = ByteBuffer.allocateDirect(width * height);
+        for (int p : pixels) luma.put((byte) p);
+        luma.flip();
+        // 永不触发拍摄，每一帧都完整分析
+        AutoCaptureAnalyzer.Settings settings = new AutoCaptureAnalyzer.Settings();
+        settings.stableFrames = Integer.MAX_VALUE;
+        autoCapture = new AutoCaptureAnalyzer(settings);
+    }
+
+    @Benchmark
+    public ImageQualityAnalyzer.Report analyze() {
+        return analyzer.analyze(pixels, width, height);
+    }
+
+    @Benchmark
+    public CardDetector.Quad detectCard() {
+        return detector.detect(pixels, width, height);
+    }
+
+    @Benchmark
+    public AutoCaptureAnalyzer.Step autoCaptureFrame() {
+        frameMs += 1000;
+        return autoCapture.offer(luma, width, height, width, frameMs);
+    }
+}
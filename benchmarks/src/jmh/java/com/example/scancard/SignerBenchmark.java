@@ -0,0 +1,52 @@
+package com.example.scancard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TC3 签名吞吐：缓存派生密钥的签名器 vs 每次重新派生的旧写法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SignerBenchmark {
+
+    private static final String HOST = "ocr.tencentcloudapi.com";
+    private static final String ACTION = "IDCardOCR";
+    private static final long TIMESTAMP = 1_700_000_000L;
+
+    private Tc3Signer signer;
+    private String payloadHash;
+    private String smallPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        signer = new Tc3Signer("AKIDz8krbsJ5yKBZQpn74WFkmLPx3EXAMPLE", "Gu5t9xGARNpq86cd98joQYCN3EXAMPLE", "ocr");
+        smallPayload = "{\"ImageUrl\":\"https://example.com/card.jpg\",\"CardSide\":\"FRONT\"}";
+        payloadHash = Tc3Signer.sha256Hex(smallPayload);
+        signer.warmUp(TIMESTAMP);
+    }
+
+    @Benchmark
+    public String signWithPayloadHash() throws Exception {
+        return signer.signWithPayloadHash(HOST, ACTION, payloadHash, TIMESTAMP);
+    }
+
+    @Benchmark
+    public String signSmallPayload() throws Exception {
+        return signer.sign(HOST, ACTION, smallPayload, TIMESTAMP);
+    }
+
+    @Benchmark
+    public String buildAuthorizationUncached() throws Exception {
+        return Tc3Signer.buildAuthorization("AKIDz8krbsJ5yKBZQpn74WFkmLPx3EXAMPLE",
+                "Gu5t9xGARNpq86cd98joQYCN3EXAMPLE", "ocr", HOST, ACTION, smallPayload, TIMESTAMP);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.scancard;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 预览自动拍摄：逐帧分析相机低分辨率 YUV 帧的 Y 平面，卡片在画面里放稳后自动“按快门”。
+ * - 跳帧：离上一次分析不到 minIntervalMs 的帧直接跳过，不读像素（相机端再配合只保留最新帧的背压策略）
+ * - 每帧：缩成小灰度图 -> 找卡片四边形 -> 质量检查；四个角和上一帧相比挪动不超过 maxShift 才算“稳”
+ * - 连续 stableFrames 帧都稳就触发拍摄，交给调用方的是这段时间里最清晰的一帧（newBest 标记的那帧）
+ * 不依赖 Android，可以用录好的帧序列测试；一个实例只在一个分析线程上用。
+ */
+public class AutoCaptureAnalyzer {
+
+    public enum State {
+        SKIPPED,      // 跳帧，没分析
+        SEARCHING,    // 没找到卡片，或画面质量不可用
+        HOLDING,      // 找到卡片，正在等它稳定
+        CAPTURE       // 可以拍了：用最近一次 newBest 的那帧
+    }
+
+    public static class Settings {
+        public long minIntervalMs = 100;
+        public int stableFrames = 5;
+        // 角点允许的帧间位移，占帧长边的比例
+        public double maxShift = 0.02;
+        // WARN 级问题（轻微反光等）的帧参与挑选，但清晰度打折
+        public double warnPenalty = 0.5;
+    }
+
+    public static class Step {
+        public final State state;
+        // 这一帧是当前这段稳定期里最清晰的，调用方应把它留下来（之前留的可以丢了）
+        public final boolean newBest;
+        public final String hint;               // 给用户的提示，可能为 null
+        public final CardDetector.Quad quad;    // 输入帧坐标，没找到卡片为 null
+
+        Step(State state, boolean newBest, String hint, CardDetector.Quad quad) {
+            this.state = state;
+            this.newBest = newBest;
+            this.hint = hint;
+            this.quad = quad;
+        }
+    }
+
+    private static final Step SKIP = new Step(State.SKIPPED, false, null, null);
+
+    private final Settings settings;
+    private final CardDetector detector = new CardDetector();
+    private final ImageQualityAnalyzer quality = new ImageQualityAnalyzer();
+
+    private long lastAnalyzedMs = Long.MIN_VALUE;
+    private float[] lastCorners;
+    private int stable;
+    private double bestScore;
+    private boolean captured;
+
+    public AutoCaptureAnalyzer() {
+        this(new Settings());
+    }
+
+    public AutoCaptureAnalyzer(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * y：Y 平面（像素步长 1），timestampMs：帧时间戳（单调即可）。触发 CAPTURE 后一直返回 SKIPPED，直到 reset()
+     */
+    public Step offer(ByteBuffer y, int width, int height, int rowStride, long timestampMs) {
+        if (captured) return SKIP;
+        if (lastAnalyzedMs != Long.MIN_VALUE && timestampMs - lastAnalyzedMs < settings.minIntervalMs) return SKIP;
+        lastAnalyzedMs = timestampMs;
+
+        GrayImage img = GrayImage.fromLuma(y, width, height, rowStride, ImageQualityAnalyzer.ANALYSIS_SIDE);
+        CardDetector.Quad quad = detector.detect(img);
+        if (quad == null) {
+            restart(null);
+            return new Step(State.SEARCHING, false, "把卡片放进取景框，四个角都要拍到", null);
+        }
+        ImageQualityAnalyzer.Report report = quality.analyze(img);
+        if (report.verdict == ImageQualityAnalyzer.Verdict.REJECT) {
+            restart(null);
+            return new Step(State.SEARCHING, false, report.problem, quad);
+        }
+
+        double limit = settings.maxShift * Math.max(width, height);
+        if (lastCorners == null || maxShift(lastCorners, quad.corners) > limit) {
+            restart(quad.corners);
+        }
+        lastCorners = quad.corners;
+        stable++;
+
+        double score = report.sharpness;
+        if (report.verdict == ImageQualityAnalyzer.Verdict.WARN) score *= settings.warnPenalty;
+        boolean newBest = score > bestScore;
+        if (newBest) bestScore = score;
+
+        if (stable >= settings.stableFrames) {
+            captured = true;
+            return new Step(State.CAPTURE, newBest, null, quad);
+        }
+        return new Step(State.HOLDING, newBest, report.problem != null ? report.problem : "保持不动", quad);
+    }
+
+    /**
+     * 拍完一张（或识别失败要重拍）后重新开始
+     */
+    public void reset() {
+        captured = false;
+        lastAnalyzedMs = Long.MIN_VALUE;
+        restart(null);
+    }
+
+    // 卡片动了：稳定计数和最佳帧从这一帧重新算
+    private void restart(float[] corners) {
+        lastCorners = corners;
+        stable = 0;
+        bestScore = 0;
+    }
+
+    private static double maxShift(float[] a, float[] b) {
+        double max = 0;
+        for (int i = 0; i < 4; i++) {
+            double dx = a[i * 2] - b[i * 2];
+            double dy = a[i * 2 + 1] - b[i * 2 + 1];
+            max = Math.max(max, Math.sqrt(dx * dx + dy * dy));
+        }
+        return max;
+    }
+}
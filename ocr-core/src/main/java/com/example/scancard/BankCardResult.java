@@ -0,0 +1,14 @@
+package com.example.scancard;
+
+/**
+ * BankCardOCR 识别结果（只保留界面和历史用到的字段）
+ */
+public class BankCardResult extends OcrResult {
+    public String cardNo = "";
+    public String bankInfo = "";
+    public String cardType = "";
+    public String cardName = "";
+    public String validDate = "";
+    // 本地 BIN 表查到的发卡行 + 卡种（BankCardValidator 填写，不来自接口）
+    public String binIssuer = "";
+}
@@ -0,0 +1,108 @@
+package com.example.scancard;
+
+/**
+ * 银行卡识别结果的本地校验：卡号长度 + Luhn 校验位 + BIN 发卡行和 BankInfo 是否一致。
+ * 校验通过时顺便用 BIN 补全发卡行 / 卡种；明显读错的结果不应写进历史，让用户重拍。
+ */
+public class BankCardValidator {
+
+    public enum Status {
+        OK,
+        UNKNOWN_BIN,     // 本地 BIN 表里没有（表不全），不算错
+        BAD_LENGTH,
+        LUHN_FAILED,
+        BANK_MISMATCH
+    }
+
+    public static class Check {
+        public final Status status;
+        public final BinIndex.Issuer issuer;   // 查不到时为 null
+        public final String message;
+
+        Check(Status status, BinIndex.Issuer issuer, String message) {
+            this.status = status;
+            this.issuer = issuer;
+            this.message = message;
+        }
+
+        // 读错了：重拍，不入库
+        public boolean isBadRead() {
+            return status == Status.BAD_LENGTH || status == Status.LUHN_FAILED || status == Status.BANK_MISMATCH;
+        }
+    }
+
+    /**
+     * 校验并补全 r（binIssuer，以及腾讯没返回时的 bankInfo / cardType）。r 是错误结果时不校验。
+     */
+    public static Check check(BankCardResult r, BinIndex index) {
+        if (r.isError()) return new Check(Status.OK, null, null);
+
+        String digits = digitsOnly(r.cardNo);
+        if (digits.length() < 12 || digits.length() > 19) {
+            return new Check(Status.BAD_LENGTH, null, "卡号位数不对（" + digits.length() + " 位）");
+        }
+        if (!luhnValid(digits)) {
+            return new Check(Status.LUHN_FAILED, null, "卡号校验位不对，可能有数字识别错了");
+        }
+
+        BinIndex.Issuer issuer = index != null ? index.lookup(digits) : null;
+        if (issuer == null) {
+            return new Check(Status.UNKNOWN_BIN, null, null);
+        }
+        if (!r.bankInfo.isEmpty() && !sameBank(issuer, r.bankInfo)) {
+            return new Check(Status.BANK_MISMATCH, issuer,
+                    "卡号前缀属于" + issuer.bankName + "，但识别出的银行是" + r.bankInfo);
+        }
+
+        r.binIssuer = issuer.bankName + " " + issuer.kindName();
+        if (r.bankInfo.isEmpty()) r.bankInfo = issuer.bankName;
+        if (r.cardType.isEmpty()) r.cardType = issuer.kindName();
+        return new Check(Status.OK, issuer, null);
+    }
+
+    public static boolean luhnValid(String digits) {
+        int sum = 0;
+        boolean dbl = false;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int d = digits.charAt(i) - '0';
+            if (d < 0 || d > 9) return false;
+            if (dbl) {
+                d *= 2;
+                if (d > 9) d -= 9;
+            }
+            sum += d;
+            dbl = !dbl;
+        }
+        return digits.length() > 0 && sum % 10 == 0;
+    }
+
+    // 腾讯返回的卡号带空格，如 "6222 0202 0000 0000 000"
+    public static String digitsOnly(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * BankInfo 形如 "招商银行(03080000)"：有机构代码就比代码，否则比名称（忽略“中国”前缀）
+     */
+    static boolean sameBank(BinIndex.Issuer issuer, String bankInfo) {
+        int open = bankInfo.indexOf('(');
+        if (open < 0) open = bankInfo.indexOf('（');
+        if (open >= 0) {
+            String code = digitsOnly(bankInfo.substring(open));
+            if (code.length() == 8) return code.equals(issuer.bankCode);
+        }
+        String name = open >= 0 ? bankInfo.substring(0, open).trim() : bankInfo.trim();
+        return shortName(name).equals(shortName(issuer.bankName));
+    }
+
+    // “中国工商银行” -> “工商银行”；“中国银行”本身保持不变
+    private static String shortName(String name) {
+        if (name.startsWith("中国") && name.length() > 4) return name.substring(2);
+        return name;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.scancard;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 边写边做 Base64 编码（标准字母表、带 padding、不换行，等价于 Base64.NO_WRAP）。
+ * 不依赖 android.util.Base64，JVM 单测也能用。close() 只补齐末尾，不关闭下游流。
+ */
+public class Base64EncodingStream extends FilterOutputStream {
+
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+                    .getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+
+    // 每次最多攒 3 字节，输出 4 字符；批量写时先攒到 out 缓冲再一次写出
+    private final byte[] outBuf = new byte[4 * 1024];
+    private int outLen;
+    private int pending;      // 已攒的字节数 0..2
+    private int bits;         // 已攒的字节
+    private boolean finished;
+
+    public Base64EncodingStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        bits = (bits << 8) | (b & 0xff);
+        if (++pending == 3) {
+            emit(bits);
+            pending = 0;
+            bits = 0;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int i = off;
+        int end = off + len;
+        // 先补齐上次剩下的
+        while (pending != 0 && i < end) {
+            write(b[i++]);
+        }
+        // 整组 3 字节直接编码
+        while (end - i >= 3) {
+            emit(((b[i] & 0xff) << 16) | ((b[i + 1] & 0xff) << 8) | (b[i + 2] & 0xff));
+            i += 3;
+        }
+        while (i < end) {
+            write(b[i++]);
+        }
+    }
+
+    private void emit(int v) throws IOException {
+        if (outLen + 4 > outBuf.length) {
+            out.write(outBuf, 0, outLen);
+            outLen = 0;
+        }
+        outBuf[outLen++] = ALPHABET[(v >>> 18) & 0x3f];
+        outBuf[outLen++] = ALPHABET[(v >>> 12) & 0x3f];
+        outBuf[outLen++] = ALPHABET[(v >>> 6) & 0x3f];
+        outBuf[outLen++] = ALPHABET[v & 0x3f];
+    }
+
+    /**
+     * 写出末尾不足 3 字节的部分并补 '='
+     */
+    public void finish() throws IOException {
+        if (finished) return;
+        finished = true;
+        if (pending == 1) {
+            int v = bits << 16;
+            emit(v);
+            outBuf[outLen - 2] = '=';
+            outBuf[outLen - 1] = '=';
+        } else if (pending == 2) {
+            int v = bits << 8;
+            emit(v);
+            outBuf[outLen - 1] = '=';
+        }
+        pending = 0;
+        out.write(outBuf, 0, outLen);
+        outLen = 0;
+        out.flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.write(outBuf, 0, outLen);
+        outLen = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.scancard;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 银行卡 BIN（发卡行前缀）索引，二进制格式，App 里直接内存映射 assets/bin_index.bin：
+ * <pre>
+ * int   MAGIC
+ * short 银行数；每个银行：int 机构代码（如 01020000）、UTF 名称
+ * byte  分段数；每段：byte 前缀位数、int 条数，紧跟 条数 x 8 字节记录
+ *       记录：int 前缀（按数值升序）、short 银行序号、byte 卡种、byte 保留
+ * </pre>
+ * 查询时从最长的分段往短查（最长前缀匹配），每段二分查找，直接在 ByteBuffer 上读，不建对象。
+ * 数据源是 ocr-core/data/bins.csv，用 main() 转换：./gradlew :ocr-core:generateBinIndex
+ */
+public class BinIndex {
+
+    private static final int MAGIC = 0x42494E31;   // "BIN1"
+    private static final int RECORD = 8;
+    static final int MIN_LENGTH = 3;
+    static final int MAX_LENGTH = 9;               // int 能放下的最长前缀
+
+    public static final char DEBIT = 'D';
+    public static final char CREDIT = 'C';
+    public static final char SEMI_CREDIT = 'S';     // 准贷记卡
+    public static final char PREPAID = 'P';
+
+    /**
+     * 查询结果：发卡行和卡种
+     */
+    public static class Issuer {
+        public final String bankName;
+        public final String bankCode;   // 8 位机构代码，和腾讯返回的 BankInfo 括号里的一致
+        public final char kind;
+        public final int binLength;
+
+        Issuer(String bankName, String bankCode, char kind, int binLength) {
+            this.bankName = bankName;
+            this.bankCode = bankCode;
+            this.kind = kind;
+            this.binLength = binLength;
+        }
+
+        public String kindName() {
+            switch (kind) {
+                case DEBIT:
+                    return "借记卡";
+                case CREDIT:
+                    return "信用卡";
+                case SEMI_CREDIT:
+                    return "准贷记卡";
+                case PREPAID:
+                    return "预付费卡";
+                default:
+                    return "";
+            }
+        }
+    }
+
+    /**
+     * 写索引时的一条数据
+     */
+    public static class Entry {
+        public final String bin;
+        public final String bankCode;
+        public final String bankName;
+        public final char kind;
+
+        public Entry(String bin, String bankCode, String bankName, char kind) {
+            this.bin = bin;
+            this.bankCode = bankCode;
+            this.bankName = bankName;
+            this.kind = kind;
+        }
+    }
+
+    private final ByteBuffer buf;
+    private final String[] bankNames;
+    private final String[] bankCodes;
+    // 分段按前缀位数从长到短
+    private final int[] sectionLength;
+    private final int[] sectionStart;
+    private final int[] sectionCount;
+
+    private BinIndex(ByteBuffer buf, String[] bankNames, String[] bankCodes,
+                     int[] sectionLength, int[] sectionStart, int[] sectionCount) {
+        this.buf = buf;
+        this.bankNames = bankNames;
+        this.bankCodes = bankCodes;
+        this.sectionLength = sectionLength;
+        this.sectionStart = sectionStart;
+        this.sectionCount = sectionCount;
+    }
+
+    /**
+     * 只解析头部（银行名表和分段位置），记录留在 buf 里按需读取。buf 可以是 MappedByteBuffer。
+     */
+    public static BinIndex load(ByteBuffer buf) throws IOException {
+        ByteBuffer b = buf.duplicate();
+        if (b.remaining() < 7 || b.getInt() != MAGIC) {
+            throw new IOException("不是 BIN 索引文件");
+        }
+        int banks = b.getShort() & 0xffff;
+        String[] names = new String[banks];
+        String[] codes = new String[banks];
+        for (int i = 0; i < banks; i++) {
+            codes[i] = String.format("%08d", b.getInt());
+            byte[] utf = new byte[b.getShort() & 0xffff];
+            b.get(utf);
+            names[i] = new String(utf, StandardCharsets.UTF_8);
+        }
+        int sections = b.get();
+        int[] len = new int[sections];
+        int[] start = new int[sections];
+        int[] count = new int[sections];
+        for (int s = 0; s < sections; s++) {
+            len[s] = b.get();
+            count[s] = b.getInt();
+            start[s] = b.position();
+            if (count[s] < 0 || (long) count[s] * RECORD > b.remaining()) {
+                throw new IOException("BIN 索引文件已损坏");
+            }
+            b.position(start[s] + count[s] * RECORD);
+        }
+        return new BinIndex(buf.duplicate(), names, codes, len, start, count);
+    }
+
+    /**
+     * 最长前缀匹配；cardNo 只含数字，查不到返回 null
+     */
+    public Issuer lookup(String cardNo) {
+        for (int s = 0; s < sectionLength.length; s++) {
+            int len = sectionLength[s];
+            if (cardNo.length() < len) continue;
+            int key = 0;
+            for (int i = 0; i < len; i++) {
+                int d = cardNo.charAt(i) - '0';
+                if (d < 0 || d > 9) return null;
+                key = key * 10 + d;
+            }
+            int lo = 0;
+            int hi = sectionCount[s] - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int pos = sectionStart[s] + mid * RECORD;
+                int v = buf.getInt(pos);
+                if (v < key) {
+                    lo = mid + 1;
+                } else if (v > key) {
+                    hi = mid - 1;
+                } else {
+                    int bank = buf.getShort(pos + 4) & 0xffff;
+                    return new Issuer(bankNames[bank], bankCodes[bank], (char) buf.get(pos + 6), len);
+                }
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        int n = 0;
+        for (int c : sectionCount) n += c;
+        return n;
+    }
+
+    public static void write(List<Entry> entries, OutputStream os) throws IOException {
+        // 银行按出现顺序编号
+        Map<String, Integer> bankIndex = new LinkedHashMap<>();
+        Map<String, String> bankNames = new LinkedHashMap<>();
+        // 前缀位数（从长到短） -> 前缀 -> 记录
+        TreeMap<Integer, TreeMap<Integer, Entry>> sections = new TreeMap<>((a, b) -> b - a);
+        for (Entry e : entries) {
+            int len = e.bin.length();
+            if (len < MIN_LENGTH || len > MAX_LENGTH || !e.bin.matches("\\d+")) {
+                throw new IllegalArgumentException("BIN 格式错误：" + e.bin);
+            }
+            if (!bankIndex.containsKey(e.bankCode)) {
+                bankIndex.put(e.bankCode, bankIndex.size());
+                bankNames.put(e.bankCode, e.bankName);
+            }
+            TreeMap<Integer, Entry> section = sections.get(len);
+            if (section == null) {
+                section = new TreeMap<>();
+                sections.put(len, section);
+            }
+            if (section.put(Integer.parseInt(e.bin), e) != null) {
+                throw new IllegalArgumentException("BIN 重复：" + e.bin);
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeShort(bankIndex.size());
+        for (Map.Entry<String, String> bank : bankNames.entrySet()) {
+            out.writeInt(Integer.parseInt(bank.getKey()));
+            byte[] utf = bank.getValue().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(utf.length);
+            out.write(utf);
+        }
+        out.writeByte(sections.size());
+        for (Map.Entry<Integer, TreeMap<Integer, Entry>> section : sections.entrySet()) {
+            out.writeByte(section.getKey());
+            out.writeInt(section.getValue().size());
+            for (Map.Entry<Integer, Entry> r : section.getValue().entrySet()) {
+                out.writeInt(r.getKey());
+                out.writeShort(bankIndex.get(r.getValue().bankCode));
+                out.writeByte(r.getValue().kind);
+                out.writeByte(0);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * 读 CSV：bin,机构代码,银行名称,卡种（D/C/S/P），# 开头为注释
+     */
+    public static List<Entry> readCsv(BufferedReader reader) throws IOException {
+        List<Entry> list = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] f = line.split(",");
+            if (f.length != 4 || f[3].trim().length() != 1) {
+                throw new IOException("CSV 格式错误：" + line);
+            }
+            list.add(new Entry(f[0].trim(), f[1].trim(), f[2].trim(), f[3].trim().charAt(0)));
+        }
+        return list;
+    }
+
+    /**
+     * 用法：BinIndex &lt;bins.csv&gt; &lt;bin_index.bin&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: BinIndex <bins.csv> <bin_index.bin>");
+            System.exit(2);
+        }
+        List<Entry> entries;
+        try (BufferedReader r = new BufferedReader(
+                new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8))) {
+            entries = readCsv(r);
+        }
+        File out = new File(args[1]);
+        File dir = out.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建目录：" + dir);
+        }
+        try (FileOutputStream os = new FileOutputStream(out)) {
+            write(entries, os);
+        }
+        System.out.println(entries.size() + " BINs -> " + out);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.scancard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 在取景画面里找卡片的四边形，用于上传前裁剪 + 透视校正：
+ * 1) 缩成小灰度图，算 Sobel 梯度
+ * 2) 四个方向各自从画面边缘往里扫，每行 / 每列取第一个方向对得上的强边缘点
+ * 3) 每边的点用 RANSAC 拟合直线（桌面纹理、文字等离群点不影响），四条线两两求交得到四个角
+ * 4) 检查面积、凸性和长宽比（ID-1 卡片 85.60 x 53.98mm），对不上就返回 null，调用方回退到整张图
+ */
+public class CardDetector {
+
+    // ID-1 卡片（身份证、银行卡）的长宽比
+    public static final double ID1_ASPECT = 85.60 / 53.98;
+
+    private static final int ANALYSIS_SIDE = 400;
+    // Sobel 梯度阈值（约等于 30 级灰度的台阶）
+    private static final int EDGE_GRADIENT = 120;
+    // 每条边只在画面的这一段里扫，避开角落
+    private static final double SCAN_FROM = 0.08;
+    private static final double SCAN_TO = 0.92;
+    private static final double SCAN_DEPTH = 0.6;
+
+    private static final int RANSAC_ROUNDS = 64;
+    private static final double INLIER_DISTANCE = 1.5;
+    private static final int MIN_INLIERS = 12;
+
+    private static final double MIN_AREA_RATIO = 0.08;
+    // 卡片几乎占满画面时裁剪没有意义
+    private static final double MAX_AREA_RATIO = 0.92;
+    private static final double MIN_ASPECT = 1.25;
+    private static final double MAX_ASPECT = 2.0;
+
+    /**
+     * 四个角，按卡片自身方向排列：左上、右上、右下、左下（长边在上下）
+     */
+    public static class Quad {
+        public final float[] corners;   // x0, y0, x1, y1, x2, y2, x3, y3
+
+        Quad(float[] corners) {
+            this.corners = corners;
+        }
+
+        // 上下两条长边里较长的一条，裁剪输出宽度按它算（文字分辨率不降低）
+        public float width() {
+            return Math.max(dist(0, 1), dist(3, 2));
+        }
+
+        public float height() {
+            return Math.max(dist(0, 3), dist(1, 2));
+        }
+
+        public double area() {
+            double a = 0;
+            for (int i = 0; i < 4; i++) {
+                int j = (i + 1) % 4;
+                a += corners[i * 2] * corners[j * 2 + 1] - corners[j * 2] * corners[i * 2 + 1];
+            }
+            return Math.abs(a) / 2;
+        }
+
+        public Quad scale(float s) {
+            float[] c = new float[8];
+            for (int i = 0; i < 8; i++) c[i] = corners[i] * s;
+            return new Quad(c);
+        }
+
+        private float dist(int a, int b) {
+            float dx = corners[a * 2] - corners[b * 2];
+            float dy = corners[a * 2 + 1] - corners[b * 2 + 1];
+            return (float) Math.sqrt(dx * dx + dy * dy);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Quad[");
+            for (int i = 0; i < 4; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(Math.round(corners[i * 2])).append(',').append(Math.round(corners[i * 2 + 1]));
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+    // 直线：横边 y = a * x + b，竖边 x = a * y + b（避免竖线斜率无穷大）
+    private static final class Line {
+        final double a;
+        final double b;
+
+        Line(double a, double b) {
+            this.a = a;
+            this.b = b;
+        }
+    }
+
+    /**
+     * 返回的角点坐标和输入同一尺度；找不到可信的卡片时返回 null
+     */
+    public Quad detect(int[] argb, int width, int height) {
+        return detect(GrayImage.fromArgb(argb, width, height, ANALYSIS_SIDE));
+    }
+
+    Quad detect(GrayImage img) {
+        int w = img.width;
+        int h = img.height;
+        int[] gx = new int[w * h];
+        int[] gy = new int[w * h];
+        sobel(img.pixels, w, h, gx, gy);
+
+        Line left = fit(scan(gx, gy, w, h, true, false));
+        Line right = fit(scan(gx, gy, w, h, true, true));
+        Line top = fit(scan(gx, gy, w, h, false, false));
+        Line bottom = fit(scan(gx, gy, w, h, false, true));
+        if (left == null || right == null || top == null || bottom == null) return null;
+
+        float[] c = new float[8];
+        if (!intersect(top, left, c, 0) || !intersect(top, right, c, 1)
+                || !intersect(bottom, right, c, 2) || !intersect(bottom, left, c, 3)) {
+            return null;
+        }
+        Quad quad = new Quad(c);
+        if (!plausible(quad, w, h)) return null;
+
+        // 竖着放的卡片：转成长边在上下，输出始终是横向卡片
+        if (quad.height() > quad.width()) {
+            quad = new Quad(new float[]{c[6], c[7], c[0], c[1], c[2], c[3], c[4], c[5]});
+        }
+        // 角点向外放一点余量，避免裁掉卡片边缘的字
+        return expand(quad, 0.01f).scale(img.factor);
+    }
+
+    private static void sobel(int[] g, int w, int h, int[] gx, int[] gy) {
+        for (int y = 1; y < h - 1; y++) {
+            for (int x = 1; x < w - 1; x++) {
+                int i = y * w + x;
+                int tl = g[i - w - 1], t = g[i - w], tr = g[i - w + 1];
+                int l = g[i - 1], r = g[i + 1];
+                int bl = g[i + w - 1], b = g[i + w], br = g[i + w + 1];
+                gx[i] = (tr + 2 * r + br) - (tl + 2 * l + bl);
+                gy[i] = (bl + 2 * b + br) - (tl + 2 * t + tr);
+            }
+        }
+    }
+
+    /**
+     * vertical = true 找左右边（按行扫），reverse = true 从右 / 下往里扫。
+     * 返回点坐标 {沿扫描线方向的位置, 扫到的位置}，即竖边是 (y, x)，横边是 (x, y)
+     */
+    private static List<double[]> scan(int[] gx, int[] gy, int w, int h, boolean vertical, boolean reverse) {
+        int lines = vertical ? h : w;
+        int depth = vertical ? w : h;
+        int maxDepth = (int) (depth * SCAN_DEPTH);
+        List<double[]> points = new ArrayList<>();
+        for (int line = (int) (lines * SCAN_FROM); line < (int) (lines * SCAN_TO); line++) {
+            for (int k = 1; k < maxDepth; k++) {
+                int pos = reverse ? depth - 1 - k : k;
+                int i = vertical ? line * w + pos : pos * w + line;
+                int along = Math.abs(vertical ? gx[i] : gy[i]);
+                int across = Math.abs(vertical ? gy[i] : gx[i]);
+                if (along >= EDGE_GRADIENT && along > across) {
+                    points.add(new double[]{line, pos});
+                    break;
+                }
+            }
+        }
+        return points;
+    }
+
+    // RANSAC 找内点最多的直线，再用内点最小二乘精修
+    private static Line fit(List<double[]> pts) {
+        if (pts.size() < MIN_INLIERS) return null;
+        Random random = new Random(pts.size());
+        int bestCount = 0;
+        Line best = null;
+        for (int round = 0; round < RANSAC_ROUNDS; round++) {
+            double[] p = pts.get(random.nextInt(pts.size()));
+            double[] q = pts.get(random.nextInt(pts.size()));
+            if (Math.abs(p[0] - q[0]) < 5) continue;
+            double a = (q[1] - p[1]) / (q[0] - p[0]);
+            Line line = new Line(a, p[1] - a * p[0]);
+            int count = 0;
+            for (double[] pt : pts) {
+                if (distance(line, pt) <= INLIER_DISTANCE) count++;
+            }
+            if (count > bestCount) {
+                bestCount = count;
+                best = line;
+            }
+        }
+        // 内点太少说明这一边不是一条直线（没有卡片，或卡片超出画面）
+        if (best == null || bestCount < Math.max(MIN_INLIERS, pts.size() / 4)) return null;
+
+        double n = 0, sx = 0, sy = 0, sxx = 0, sxy = 0;
+        for (double[] pt : pts) {
+            if (distance(best, pt) > INLIER_DISTANCE) continue;
+            n++;
+            sx += pt[0];
+            sy += pt[1];
+            sxx += pt[0] * pt[0];
+            sxy += pt[0] * pt[1];
+        }
+        double den = n * sxx - sx * sx;
+        if (Math.abs(den) < 1e-9) return best;
+        double a = (n * sxy - sx * sy) / den;
+        return new Line(a, (sy - a * sx) / n);
+    }
+
+    private static double distance(Line line, double[] pt) {
+        return Math.abs(line.a * pt[0] + line.b - pt[1]) / Math.sqrt(1 + line.a * line.a);
+    }
+
+    // 横边 y = a1 x + b1 与竖边 x = a2 y + b2 的交点，写到 out[idx]
+    private static boolean intersect(Line horizontal, Line vertical, float[] out, int idx) {
+        double den = 1 - vertical.a * horizontal.a;
+        if (Math.abs(den) < 1e-6) return false;
+        double x = (vertical.a * horizontal.b + vertical.b) / den;
+        double y = horizontal.a * x + horizontal.b;
+        out[idx * 2] = (float) x;
+        out[idx * 2 + 1] = (float) y;
+        return true;
+    }
+
+    private static boolean plausible(Quad quad, int w, int h) {
+        float[] c = quad.corners;
+        float marginX = w * 0.05f, marginY = h * 0.05f;
+        for (int i = 0; i < 4; i++) {
+            float x = c[i * 2], y = c[i * 2 + 1];
+            if (x < -marginX || x > w + marginX || y < -marginY || y > h + marginY) return false;
+        }
+        if (!convex(c)) return false;
+
+        double ratio = quad.area() / ((double) w * h);
+        if (ratio < MIN_AREA_RATIO || ratio > MAX_AREA_RATIO) return false;
+
+        double longSide = Math.max(quad.width(), quad.height());
+        double shortSide = Math.min(quad.width(), quad.height());
+        double aspect = longSide / shortSide;
+        return aspect >= MIN_ASPECT && aspect <= MAX_ASPECT;
+    }
+
+    // 四个相邻边叉积同号即为凸四边形
+    private static boolean convex(float[] c) {
+        int sign = 0;
+        for (int i = 0; i < 4; i++) {
+            int j = (i + 1) % 4, k = (i + 2) % 4;
+            double cross = (c[j * 2] - c[i * 2]) * (c[k * 2 + 1] - c[j * 2 + 1])
+                    - (c[j * 2 + 1] - c[i * 2 + 1]) * (c[k * 2] - c[j * 2]);
+            int s = cross > 0 ? 1 : -1;
+            if (sign == 0) sign = s;
+            else if (s != sign) return false;
+        }
+        return true;
+    }
+
+    // 每个角沿“中心 -> 角”方向外推 ratio
+    private static Quad expand(Quad quad, float ratio) {
+        float[] c = quad.corners;
+        float cx = (c[0] + c[2] + c[4] + c[6]) / 4;
+        float cy = (c[1] + c[3] + c[5] + c[7]) / 4;
+        float[] out = new float[8];
+        for (int i = 0; i < 4; i++) {
+            out[i * 2] = c[i * 2] + (c[i * 2] - cx) * ratio;
+            out[i * 2 + 1] = c[i * 2 + 1] + (c[i * 2 + 1] - cy) * ratio;
+        }
+        return new Quad(out);
+    }
+}
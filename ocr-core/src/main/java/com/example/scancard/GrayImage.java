@@ -0,0 +1,76 @@
+package com.example.scancard;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 分析用的小灰度图：ARGB 或相机 YUV 帧的 Y 平面按 factor x factor 块求平均，长边不超过 maxSide。
+ * 质量检查、卡片检测和预览自动拍摄共用。
+ */
+final class GrayImage {
+
+    final int[] pixels;
+    final int width;
+    final int height;
+    final int factor;   // 原图多少像素对应这里 1 像素
+
+    private GrayImage(int[] pixels, int width, int height, int factor) {
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        this.factor = factor;
+    }
+
+    static GrayImage fromArgb(int[] argb, int width, int height, int maxSide) {
+        if (width < 3 || height < 3 || argb.length < width * height) {
+            throw new IllegalArgumentException("图片尺寸无效：" + width + "x" + height);
+        }
+        int factor = (Math.max(width, height) + maxSide - 1) / maxSide;
+        int gw = width / factor;
+        int gh = height / factor;
+        int[] gray = new int[gw * gh];
+        int area = factor * factor;
+        for (int gy = 0; gy < gh; gy++) {
+            for (int gx = 0; gx < gw; gx++) {
+                int acc = 0;
+                int base = gy * factor * width + gx * factor;
+                for (int dy = 0; dy < factor; dy++) {
+                    int p = base + dy * width;
+                    for (int dx = 0; dx < factor; dx++) {
+                        int c = argb[p + dx];
+                        acc += (((c >> 16) & 0xff) * 77 + ((c >> 8) & 0xff) * 150 + (c & 0xff) * 29) >> 8;
+                    }
+                }
+                gray[gy * gw + gx] = acc / area;
+            }
+        }
+        return new GrayImage(gray, gw, gh, factor);
+    }
+
+    /**
+     * 相机 YUV_420_888 帧的 Y 平面（像素步长为 1，行步长 rowStride 可能大于宽度），直接按绝对位置读，不拷贝整帧
+     */
+    static GrayImage fromLuma(ByteBuffer y, int width, int height, int rowStride, int maxSide) {
+        if (width < 3 || height < 3 || rowStride < width || y.limit() < rowStride * (height - 1) + width) {
+            throw new IllegalArgumentException("帧尺寸无效：" + width + "x" + height + " stride=" + rowStride);
+        }
+        int factor = (Math.max(width, height) + maxSide - 1) / maxSide;
+        int gw = width / factor;
+        int gh = height / factor;
+        int[] gray = new int[gw * gh];
+        int area = factor * factor;
+        for (int gy = 0; gy < gh; gy++) {
+            for (int gx = 0; gx < gw; gx++) {
+                int acc = 0;
+                int base = gy * factor * rowStride + gx * factor;
+                for (int dy = 0; dy < factor; dy++) {
+                    int p = base + dy * rowStride;
+                    for (int dx = 0; dx < factor; dx++) {
+                        acc += y.get(p + dx) & 0xff;
+                    }
+                }
+                gray[gy * gw + gx] = acc / area;
+            }
+        }
+        return new GrayImage(gray, gw, gh, factor);
+    }
+}
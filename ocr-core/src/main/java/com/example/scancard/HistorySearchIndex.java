@@ -0,0 +1,155 @@
+package com.example.scancard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 历史记录内存检索索引（n-gram 倒排）：
+ * - 卡号 / 身份证号 / 姓名 / 银行名称 规范化后拼成一段文本
+ * - 每 3 个字符一组建倒排表；汉字额外按单字建表（姓名通常只有 2~3 个字）
+ * - 查询时取查询串里最短的那张倒排表，逐个核对是否包含查询串
+ * 记录 id 递增写入，倒排表天然有序，从尾部往前遍历就是“最新优先”。
+ * 数字查询至少 3 位（卡号尾号一般输 4 位）。
+ */
+public class HistorySearchIndex {
+
+    private static final int GRAM = 3;
+    private static final char SEP = '\u0001';
+
+    // 按 id 升序追加的 long 数组
+    private static final class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                // 乱序写入（极少见）：插入到正确位置，保持有序且不重复
+                int pos = Arrays.binarySearch(ids, 0, size, id);
+                if (pos >= 0) return;
+                pos = -pos - 1;
+                ensure();
+                System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+                ids[pos] = id;
+                size++;
+                return;
+            }
+            ensure();
+            ids[size++] = id;
+        }
+
+        private void ensure() {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+        }
+    }
+
+    private static final class Doc {
+        final String kind;
+        final String text;
+
+        Doc(String kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+    }
+
+    private final HashMap<String, Postings> grams = new HashMap<>();
+    private final HashMap<Long, Doc> docs = new HashMap<>();
+
+    public synchronized void add(long id, String kind, String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (String f : fields) {
+            String n = normalize(f);
+            if (n.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(SEP);
+            sb.append(n);
+        }
+        String text = sb.toString();
+        // 同一 id 重复加入时以新文本为准，旧倒排项在核对时会被过滤掉
+        docs.put(id, new Doc(kind, text));
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == SEP) continue;
+            if (isCjk(c)) {
+                postings(String.valueOf(c)).add(id);
+            }
+            if (i + GRAM <= text.length()) {
+                String g = text.substring(i, i + GRAM);
+                if (g.indexOf(SEP) < 0) postings(g).add(id);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return docs.size();
+    }
+
+    /**
+     * 子串检索，最新记录在前。kind 为 null 时不限卡类型。
+     */
+    public synchronized List<Long> search(String kind, String query, int limit) {
+        List<Long> out = new ArrayList<>();
+        String q = normalize(query);
+        if (q.isEmpty()) return out;
+
+        Postings best = null;
+        boolean usable = false;
+        if (q.length() >= GRAM) {
+            for (int i = 0; i + GRAM <= q.length(); i++) {
+                Postings p = grams.get(q.substring(i, i + GRAM));
+                if (p == null) return out;   // 有一组不存在，必然无结果
+                if (best == null || p.size < best.size) best = p;
+            }
+            usable = true;
+        } else {
+            for (int i = 0; i < q.length(); i++) {
+                char c = q.charAt(i);
+                if (!isCjk(c)) continue;
+                Postings p = grams.get(String.valueOf(c));
+                if (p == null) return out;
+                if (best == null || p.size < best.size) best = p;
+                usable = true;
+            }
+        }
+        if (!usable || best == null) return out;
+
+        for (int i = best.size - 1; i >= 0 && out.size() < limit; i--) {
+            long id = best.ids[i];
+            Doc d = docs.get(id);
+            if (d == null) continue;
+            if (kind != null && !kind.equals(d.kind)) continue;
+            if (d.text.contains(q)) out.add(id);
+        }
+        return out;
+    }
+
+    private Postings postings(String gram) {
+        Postings p = grams.get(gram);
+        if (p == null) {
+            p = new Postings();
+            grams.put(gram, p);
+        }
+        return p;
+    }
+
+    /**
+     * 只保留字母、数字、汉字并转大写（身份证末位 x -> X，卡号空格去掉）
+     */
+    static String normalize(String s) {
+        if (s == null) return "";
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '０' && c <= '９') c = (char) ('0' + (c - '０'));
+            if (Character.isLetterOrDigit(c)) sb.append(c);
+        }
+        return sb.toString().toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isCjk(char c) {
+        return c >= '一' && c <= '鿿';
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.scancard;
+
+/**
+ * IDCardOCR 识别结果；AdvancedInfo（裁剪图、告警等）解析时直接跳过
+ */
+public class IdCardResult extends OcrResult {
+    // 人像面
+    public String name = "";
+    public String sex = "";
+    public String nation = "";
+    public String birth = "";
+    public String address = "";
+    public String idNum = "";
+    // 按号码前 6 位查到的归属地（IdCardValidator 填写，不来自接口）
+    public String region = "";
+
+    // 国徽面
+    public String authority = "";
+    public String validDate = "";
+
+    public boolean hasFront() {
+        return !name.isEmpty() || !idNum.isEmpty();
+    }
+
+    public boolean hasBack() {
+        return !authority.isEmpty() || !validDate.isEmpty();
+    }
+
+    /**
+     * 双面识别：人像面 + 国徽面合并成一条记录。用户把两面拍反时按内容对调；两面都没内容的字段保持为空
+     */
+    public static IdCardResult merge(IdCardResult front, IdCardResult back) {
+        if (!front.hasFront() && back.hasFront() && !back.hasBack() && front.hasBack()) {
+            IdCardResult t = front;
+            front = back;
+            back = t;
+        }
+        IdCardResult r = new IdCardResult();
+        r.requestId = front.requestId + " / " + back.requestId;
+        r.name = front.name;
+        r.sex = front.sex;
+        r.nation = front.nation;
+        r.birth = front.birth;
+        r.address = front.address;
+        r.idNum = front.idNum;
+        r.region = front.region;
+        r.authority = back.authority;
+        r.validDate = back.validDate;
+        return r;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.scancard;
+
+import java.util.Calendar;
+
+/**
+ * 身份证人像面识别结果的本地校验（GB 11643）：
+ * - 18 位号码的 ISO 7064 MOD 11-2 校验码
+ * - 号码里的出生日期、性别位和识别出的“出生”“性别”是否一致
+ * - 前 6 位地区码的省级部分必须存在（县级代码有撤销的旧代码，查不到不算错）
+ * 校验通过时用地区码补上号码归属地。国徽面没有号码，不校验。
+ */
+public class IdCardValidator {
+
+    private static final int[] WEIGHTS = {7, 9, 10, 5, 8, 4, 2, 1, 6, 3, 7, 9, 10, 5, 8, 4, 2};
+    private static final char[] CHECK_CODES = {'1', '0', 'X', '9', '8', '7', '6', '5', '4', '3', '2'};
+
+    public enum Status {
+        OK,
+        NOT_CHECKED,       // 国徽面 / 接口返回错误
+        BAD_FORMAT,        // 位数或字符不对
+        BAD_CHECKSUM,
+        BAD_BIRTH,         // 号码里的日期不存在，或和“出生”对不上
+        SEX_MISMATCH,
+        BAD_REGION         // 省级地区码不存在
+    }
+
+    public static class Check {
+        public final Status status;
+        public final String region;   // 号码归属地，查不到为 null
+        public final String message;
+
+        Check(Status status, String region, String message) {
+            this.status = status;
+            this.region = region;
+            this.message = message;
+        }
+
+        public boolean isBadRead() {
+            return status != Status.OK && status != Status.NOT_CHECKED;
+        }
+    }
+
+    public static Check check(IdCardResult r, RegionIndex regions) {
+        Calendar c = Calendar.getInstance();
+        int today = c.get(Calendar.YEAR) * 10000 + (c.get(Calendar.MONTH) + 1) * 100 + c.get(Calendar.DAY_OF_MONTH);
+        return check(r, regions, today);
+    }
+
+    /**
+     * today 形如 20240301，用来排除未来日期
+     */
+    static Check check(IdCardResult r, RegionIndex regions, int today) {
+        if (r.isError() || r.idNum.isEmpty()) return new Check(Status.NOT_CHECKED, null, null);
+
+        String id = r.idNum.trim().toUpperCase();
+        int birth;
+        int sexDigit;
+        if (id.length() == 18) {
+            if (!allDigits(id, 17)) {
+                return new Check(Status.BAD_FORMAT, null, "身份证号里有不是数字的字符");
+            }
+            if (!checksumValid(id)) {
+                return new Check(Status.BAD_CHECKSUM, null, "身份证号校验码不对，可能有数字识别错了");
+            }
+            birth = Integer.parseInt(id.substring(6, 14));
+            sexDigit = id.charAt(16) - '0';
+        } else if (id.length() == 15 && allDigits(id, 15)) {
+            // 一代证：6 位日期不带世纪，没有校验码
+            birth = 19000000 + Integer.parseInt(id.substring(6, 12));
+            sexDigit = id.charAt(14) - '0';
+        } else {
+            return new Check(Status.BAD_FORMAT, null, "身份证号位数不对（" + id.length() + " 位）");
+        }
+
+        if (!validDate(birth) || birth > today) {
+            return new Check(Status.BAD_BIRTH, null, "身份证号里的出生日期不存在");
+        }
+        int parsedBirth = parseDate(r.birth);
+        if (parsedBirth != 0 && parsedBirth != birth) {
+            return new Check(Status.BAD_BIRTH, null, "出生日期和身份证号不一致");
+        }
+        String sex = sexDigit % 2 == 1 ? "男" : "女";
+        if (!r.sex.isEmpty() && !r.sex.equals(sex)) {
+            return new Check(Status.SEX_MISMATCH, null, "性别和身份证号不一致");
+        }
+
+        String region = null;
+        if (regions != null) {
+            region = regions.describe(Integer.parseInt(id.substring(0, 6)));
+            if (region == null) {
+                return new Check(Status.BAD_REGION, null, "身份证号的地区码不存在");
+            }
+            r.region = region;
+        }
+        return new Check(Status.OK, region, null);
+    }
+
+    public static boolean checksumValid(String id18) {
+        if (id18.length() != 18) return false;
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            int d = id18.charAt(i) - '0';
+            if (d < 0 || d > 9) return false;
+            sum += d * WEIGHTS[i];
+        }
+        return Character.toUpperCase(id18.charAt(17)) == CHECK_CODES[sum % 11];
+    }
+
+    private static boolean allDigits(String s, int n) {
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    // 公历日期是否存在，yyyymmdd
+    static boolean validDate(int yyyymmdd) {
+        int y = yyyymmdd / 10000;
+        int m = yyyymmdd / 100 % 100;
+        int d = yyyymmdd % 100;
+        if (y < 1800 || m < 1 || m > 12 || d < 1) return false;
+        int days;
+        if (m == 2) {
+            boolean leap = (y % 4 == 0 && y % 100 != 0) || y % 400 == 0;
+            days = leap ? 29 : 28;
+        } else if (m == 4 || m == 6 || m == 9 || m == 11) {
+            days = 30;
+        } else {
+            days = 31;
+        }
+        return d <= days;
+    }
+
+    // 接口返回的“出生”形如 1990/1/2；格式不认识返回 0（不做比对）
+    static int parseDate(String s) {
+        int[] parts = new int[3];
+        int n = 0;
+        int v = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            char c = i < s.length() ? s.charAt(i) : '/';
+            if (c >= '0' && c <= '9') {
+                v = (v < 0 ? 0 : v * 10) + (c - '0');
+            } else if (v >= 0) {
+                if (n == 3) return 0;
+                parts[n++] = v;
+                v = -1;
+            }
+        }
+        if (n != 3) return 0;
+        return parts[0] * 10000 + parts[1] * 100 + parts[2];
+    }
+}
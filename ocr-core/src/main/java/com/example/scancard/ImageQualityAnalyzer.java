@@ -0,0 +1,144 @@
+package com.example.scancard;
+
+/**
+ * 上传前的图片质量检查（纯 Java，输入 ARGB 像素）：
+ * - 清晰度：灰度图 Laplacian 方差，越小越糊
+ * - 反光：取景中心区域过曝像素占比
+ * - 有没有卡片：强边缘像素占比（卡片边框 + 文字），空白桌面 / 墙面接近 0
+ * 先按块平均缩到长边 ANALYSIS_SIDE 以内再算，1200px 的图几毫秒内完成。
+ */
+public class ImageQualityAnalyzer {
+
+    // 分析用灰度图的最大长边
+    public static final int ANALYSIS_SIDE = 400;
+
+    // 过曝：灰度 >= 此值
+    private static final int GLARE_LUMA = 245;
+    // 强边缘：水平 + 垂直中心差分绝对值之和 >= 此值
+    private static final int EDGE_GRADIENT = 48;
+
+    public enum Verdict {
+        OK,
+        WARN,      // 可以上传，但提示用户效果可能不好
+        REJECT     // 不上传，直接让用户重拍
+    }
+
+    /**
+     * 阈值按 ANALYSIS_SIDE 尺度标定
+     */
+    public static class Thresholds {
+        public double rejectSharpness = 40;
+        public double warnSharpness = 120;
+        public double rejectGlare = 0.20;
+        public double warnGlare = 0.06;
+        public double rejectEdge = 0.015;
+        public double warnEdge = 0.03;
+    }
+
+    public static class Report {
+        public final double sharpness;   // Laplacian 方差
+        public final double glareRatio;  // 中心区域过曝占比 0~1
+        public final double edgeScore;   // 强边缘占比 0~1
+        public final Verdict verdict;
+        public final String problem;     // 最主要的问题，OK 时为 null
+
+        Report(double sharpness, double glareRatio, double edgeScore, Verdict verdict, String problem) {
+            this.sharpness = sharpness;
+            this.glareRatio = glareRatio;
+            this.edgeScore = edgeScore;
+            this.verdict = verdict;
+            this.problem = problem;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s sharp=%.0f glare=%.3f edge=%.3f", verdict, sharpness, glareRatio, edgeScore);
+        }
+    }
+
+    private final Thresholds thresholds;
+
+    public ImageQualityAnalyzer() {
+        this(new Thresholds());
+    }
+
+    public ImageQualityAnalyzer(Thresholds thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    public Report analyze(int[] argb, int width, int height) {
+        return analyze(GrayImage.fromArgb(argb, width, height, ANALYSIS_SIDE));
+    }
+
+    // img 的长边应接近 ANALYSIS_SIDE，阈值是按这个尺度标定的
+    Report analyze(GrayImage img) {
+        int[] gray = img.pixels;
+        int gw = img.width;
+        int gh = img.height;
+        // 极窄的图（比如 1200x4）缩小后不到 3x3，没有内部像素可算，分数会是 NaN：直接判不合格
+        if (gw < 3 || gh < 3) {
+            return new Report(0, 0, 0, Verdict.REJECT, "图片尺寸异常，没有拍到完整的卡片，请重拍");
+        }
+
+        // 清晰度 + 边缘：一次遍历内部像素
+        long sum = 0;
+        long sumSq = 0;
+        int edges = 0;
+        for (int y = 1; y < gh - 1; y++) {
+            int row = y * gw;
+            for (int x = 1; x < gw - 1; x++) {
+                int i = row + x;
+                int left = gray[i - 1];
+                int right = gray[i + 1];
+                int up = gray[i - gw];
+                int down = gray[i + gw];
+                int lap = 4 * gray[i] - left - right - up - down;
+                sum += lap;
+                sumSq += (long) lap * lap;
+                if (Math.abs(right - left) + Math.abs(down - up) >= EDGE_GRADIENT) edges++;
+            }
+        }
+        int interior = (gw - 2) * (gh - 2);
+        double mean = (double) sum / interior;
+        double sharpness = (double) sumSq / interior - mean * mean;
+        double edgeScore = (double) edges / interior;
+
+        // 反光：只看中间 60% 区域，背景是白墙 / 白纸时不误判
+        int x0 = gw / 5, x1 = gw - gw / 5;
+        int y0 = gh / 5, y1 = gh - gh / 5;
+        int bright = 0;
+        for (int y = y0; y < y1; y++) {
+            int row = y * gw;
+            for (int x = x0; x < x1; x++) {
+                if (gray[row + x] >= GLARE_LUMA) bright++;
+            }
+        }
+        double glareRatio = (double) bright / ((x1 - x0) * (y1 - y0));
+
+        return judge(sharpness, glareRatio, edgeScore);
+    }
+
+    // 问题优先级：没有卡片 > 模糊 > 反光。严重模糊时边缘也几乎消失，和空画面分不开，合并成一条提示
+    private Report judge(double sharpness, double glare, double edge) {
+        Thresholds t = thresholds;
+        if (edge < t.rejectEdge) {
+            return new Report(sharpness, glare, edge, Verdict.REJECT, "没有拍到清晰的卡片，请把卡片放在取景框中间并对焦");
+        }
+        if (sharpness < t.rejectSharpness) {
+            return new Report(sharpness, glare, edge, Verdict.REJECT, "照片模糊，请对焦后重拍");
+        }
+        if (glare > t.rejectGlare) {
+            return new Report(sharpness, glare, edge, Verdict.REJECT, "反光严重，请调整角度避开灯光");
+        }
+        if (edge < t.warnEdge) {
+            return new Report(sharpness, glare, edge, Verdict.WARN, "卡片可能不完整或太小");
+        }
+        if (sharpness < t.warnSharpness) {
+            return new Report(sharpness, glare, edge, Verdict.WARN, "照片有些模糊，识别可能不准");
+        }
+        if (glare > t.warnGlare) {
+            return new Report(sharpness, glare, edge, Verdict.WARN, "卡面有反光，识别可能不准");
+        }
+        return new Report(sharpness, glare, edge, Verdict.OK, null);
+    }
+}
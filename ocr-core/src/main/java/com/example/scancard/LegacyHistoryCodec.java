@@ -0,0 +1,85 @@
+package com.example.scancard;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 旧版历史记录格式：SharedPreferences 里一个 JSON 数组，新记录在前，
+ * 每条 {"time":"MM-dd HH:mm","brief":...,"detail":...}。
+ * 迁移到 SQLite 时读取用；写入保留给基准测试对比整块读写的开销。
+ */
+public class LegacyHistoryCodec {
+
+    public static class Entry {
+        public String time = "";
+        public String brief = "";
+        public String detail = "";
+
+        public Entry() {
+        }
+
+        public Entry(String time, String brief, String detail) {
+            this.time = time;
+            this.brief = brief;
+            this.detail = detail;
+        }
+    }
+
+    public static List<Entry> decode(String json) throws IOException {
+        List<Entry> list = new ArrayList<>();
+        if (json == null || json.isEmpty()) return list;
+
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            in.beginArray();
+            while (in.hasNext()) {
+                Entry e = new Entry();
+                in.beginObject();
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        continue;
+                    }
+                    switch (name) {
+                        case "time": e.time = in.nextString(); break;
+                        case "brief": e.brief = in.nextString(); break;
+                        case "detail": e.detail = in.nextString(); break;
+                        default: in.skipValue();
+                    }
+                }
+                in.endObject();
+                list.add(e);
+            }
+            in.endArray();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("历史记录格式错误", e);
+        }
+        return list;
+    }
+
+    public static String encode(List<Entry> entries) {
+        StringWriter sw = new StringWriter();
+        try (JsonWriter out = new JsonWriter(sw)) {
+            out.beginArray();
+            for (Entry e : entries) {
+                out.beginObject();
+                out.name("time").value(e.time);
+                out.name("brief").value(e.brief);
+                out.name("detail").value(e.detail);
+                out.endObject();
+            }
+            out.endArray();
+        } catch (IOException e) {
+            // StringWriter 不会抛 IOException
+            throw new IllegalStateException(e);
+        }
+        return sw.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.scancard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+/**
+ * OCR 请求体：图片 -> Base64 -> JSON 外壳一路流式写进同一块 SpoolBuffer，
+ * 写的同时算 SHA-256（签名要用）。整个过程只有这一份请求体在内存里，
+ * 不再有 JPEG byte[] / Base64 String / JSONObject / toString() 多份拷贝。
+ */
+public class OcrPayload {
+
+    public interface ImageWriter {
+        // 把图片的原始字节（通常是 JPEG）写到 out
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final SpoolBuffer buffer;
+    private final String sha256Hex;
+
+    private OcrPayload(SpoolBuffer buffer, String sha256Hex) {
+        this.buffer = buffer;
+        this.sha256Hex = sha256Hex;
+    }
+
+    /**
+     * 生成 {"ImageBase64":"...", 其他字段...}
+     */
+    public static OcrPayload build(ImageWriter image, Map<String, String> fields) throws IOException {
+        SpoolBuffer buffer = SpoolBuffer.acquire();
+        try {
+            MessageDigest md = sha256();
+            DigestOutputStream out = new DigestOutputStream(buffer, md);
+
+            writeAscii(out, "{\"ImageBase64\":\"");
+            Base64EncodingStream b64 = new Base64EncodingStream(out);
+            image.writeTo(b64);
+            b64.finish();
+            out.write('"');
+
+            if (fields != null) {
+                for (Map.Entry<String, String> e : fields.entrySet()) {
+                    out.write(',');
+                    writeJsonString(out, e.getKey());
+                    out.write(':');
+                    writeJsonString(out, e.getValue());
+                }
+            }
+            out.write('}');
+            out.flush();
+
+            return new OcrPayload(buffer, Tc3Signer.bytesToHex(md.digest()));
+        } catch (IOException | RuntimeException e) {
+            buffer.release();
+            throw e;
+        }
+    }
+
+    public int length() {
+        return buffer.length();
+    }
+
+    public String sha256Hex() {
+        return sha256Hex;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        buffer.copyTo(out);
+    }
+
+    /**
+     * 请求结束后归还缓冲，之后不能再使用这个对象
+     */
+    public void release() {
+        buffer.release();
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer.array(), 0, buffer.length(), StandardCharsets.UTF_8);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeAscii(OutputStream out, String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            out.write(s.charAt(i));
+        }
+    }
+
+    private static void writeJsonString(OutputStream out, String s) throws IOException {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
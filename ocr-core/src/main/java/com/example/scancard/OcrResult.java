@@ -0,0 +1,20 @@
+package com.example.scancard;
+
+/**
+ * 腾讯云 OCR 返回的公共部分：RequestId 和 Response.Error
+ */
+public class OcrResult {
+
+    public String requestId = "";
+
+    // 有 Response.Error 时非空
+    public String errorCode;
+    public String errorMessage;
+
+    // 返回内容不是合法的 JSON / 缺少 Response 时保留原文
+    public String unparsed;
+
+    public boolean isError() {
+        return errorCode != null || unparsed != null;
+    }
+}
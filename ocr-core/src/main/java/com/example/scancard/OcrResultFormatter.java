@@ -0,0 +1,48 @@
+package com.example.scancard;
+
+/**
+ * 把解析好的识别结果拼成界面展示文本
+ */
+public class OcrResultFormatter {
+
+    public static String format(OcrResult r) {
+        if (r.unparsed != null) {
+            return "解析失败：\n" + r.unparsed;
+        }
+        if (r.errorCode != null) {
+            return "调用失败：\nCode=" + r.errorCode +
+                    "\nMessage=" + r.errorMessage +
+                    "\nRequestId=" + r.requestId;
+        }
+
+        StringBuilder sb = new StringBuilder(256);
+        if (r instanceof BankCardResult) {
+            BankCardResult b = (BankCardResult) r;
+            sb.append("银行卡识别结果\n\n");
+            line(sb, "卡号：", b.cardNo);
+            line(sb, "银行信息：", b.bankInfo);
+            line(sb, "卡类型：", b.cardType);
+            line(sb, "卡名称：", b.cardName);
+            line(sb, "有效期：", b.validDate);
+            line(sb, "卡号校验：通过，", b.binIssuer);
+        } else if (r instanceof IdCardResult) {
+            IdCardResult c = (IdCardResult) r;
+            sb.append("身份证识别结果\n\n");
+            line(sb, "姓名：", c.name);
+            line(sb, "性别：", c.sex);
+            line(sb, "民族：", c.nation);
+            line(sb, "出生：", c.birth);
+            line(sb, "住址：", c.address);
+            line(sb, "身份证号：", c.idNum);
+            line(sb, "号码归属地：", c.region);
+            line(sb, "签发机关：", c.authority);
+            line(sb, "有效期限：", c.validDate);
+        }
+        sb.append("\nRequestId：").append(r.requestId);
+        return sb.toString();
+    }
+
+    private static void line(StringBuilder sb, String label, String value) {
+        if (!value.isEmpty()) sb.append(label).append(value).append("\n");
+    }
+}
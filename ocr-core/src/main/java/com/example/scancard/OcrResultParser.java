@@ -0,0 +1,152 @@
+package com.example.scancard;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * 流式解析腾讯云 OCR 返回的 JSON：顺序读一遍，直接填进结果对象，
+ * 用不到的字段（AdvancedInfo 里的 Base64 裁剪图等）只跳过不建对象。
+ * 展示文本由 OcrResultFormatter 另外生成。
+ */
+public class OcrResultParser {
+
+    // 处理 Response 下的业务字段；不认识的字段返回 false，由调用方跳过
+    private interface FieldReader<T extends OcrResult> {
+        boolean read(T result, String name, JsonReader in) throws IOException;
+    }
+
+    public static BankCardResult readBank(String responseJson) {
+        return read(responseJson, new BankCardResult(), (r, name, in) -> {
+            switch (name) {
+                case "CardNo": r.cardNo = string(in); return true;
+                case "BankInfo": r.bankInfo = string(in); return true;
+                case "CardType": r.cardType = string(in); return true;
+                case "CardName": r.cardName = string(in); return true;
+                case "ValidDate": r.validDate = string(in); return true;
+                default: return false;
+            }
+        });
+    }
+
+    public static IdCardResult readIdCard(String responseJson) {
+        return read(responseJson, new IdCardResult(), (r, name, in) -> {
+            switch (name) {
+                case "Name": r.name = string(in); return true;
+                case "Sex": r.sex = string(in); return true;
+                case "Nation": r.nation = string(in); return true;
+                case "Birth": r.birth = string(in); return true;
+                case "Address": r.address = string(in); return true;
+                case "IdNum": r.idNum = string(in); return true;
+                case "Authority": r.authority = string(in); return true;
+                case "ValidDate": r.validDate = string(in); return true;
+                default: return false;
+            }
+        });
+    }
+
+    /**
+     * 按接口名解析成对应的结果类型，其他接口只读 RequestId / Error。
+     * 客户端收到返回时调一次，后面的重试判断、缓存和展示都用这个结果，不再重新解析原文。
+     */
+    public static OcrResult read(String action, String responseJson) {
+        switch (action) {
+            case "BankCardOCR": return readBank(responseJson);
+            case "IDCardOCR": return readIdCard(responseJson);
+            default: return read(responseJson, new OcrResult(), null);
+        }
+    }
+
+    /**
+     * 能解析且没有 Response.Error 才算成功（缓存只存成功结果）
+     */
+    public static boolean isSuccess(String responseJson) {
+        return !read(responseJson, new OcrResult(), null).isError();
+    }
+
+    /**
+     * 取出 Response.Error.Code，没有错误或无法解析时返回 null
+     */
+    public static String errorCode(String responseJson) {
+        return read(responseJson, new OcrResult(), null).errorCode;
+    }
+
+    private static <T extends OcrResult> T read(String json, T result, FieldReader<T> fields) {
+        boolean hasResponse = false;
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("Response".equals(in.nextName())) {
+                    readResponse(in, result, fields);
+                    hasResponse = true;
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (Exception e) {
+            // IOException / IllegalStateException（类型不符）/ NumberFormatException
+            hasResponse = false;
+        }
+        if (!hasResponse) {
+            result.errorCode = null;
+            result.unparsed = json;
+        }
+        return result;
+    }
+
+    private static <T extends OcrResult> void readResponse(JsonReader in, T result,
+                                                           FieldReader<T> fields) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if ("RequestId".equals(name)) {
+                result.requestId = string(in);
+            } else if ("Error".equals(name)) {
+                readError(in, result);
+            } else if (fields == null || !fields.read(result, name, in)) {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private static void readError(JsonReader in, OcrResult result) throws IOException {
+        String code = "";
+        String message = "";
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if ("Code".equals(name)) {
+                code = string(in);
+            } else if ("Message".equals(name)) {
+                message = string(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        result.errorCode = code;
+        result.errorMessage = message;
+    }
+
+    // 标量按字符串读；null / 对象 / 数组当作空串
+    private static String string(JsonReader in) throws IOException {
+        JsonToken t = in.peek();
+        switch (t) {
+            case STRING:
+            case NUMBER:
+                return in.nextString();
+            case BOOLEAN:
+                return String.valueOf(in.nextBoolean());
+            case NULL:
+                in.nextNull();
+                return "";
+            default:
+                in.skipValue();
+                return "";
+        }
+    }
+}
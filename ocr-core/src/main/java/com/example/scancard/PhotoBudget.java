@@ -0,0 +1,70 @@
+package com.example.scancard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 照片目录的清理计划（纯计算，不碰文件）：
+ * 1) 孤儿：既没被历史引用、也不在离线队列里的照片（识别失败 / 重拍留下的），过了宽限期就删
+ * 2) 剩下的总大小超过预算时，按最近使用时间从旧到新淘汰被历史引用的照片（历史记录本身保留，只是没有原图了）
+ * 离线队列里的照片还没识别，永远不删；宽限期内的新照片可能正在识别，也不删。
+ */
+public class PhotoBudget {
+
+    public static class Photo {
+        public final String path;
+        public final long bytes;
+        public final long lastUsedMs;
+
+        public Photo(String path, long bytes, long lastUsedMs) {
+            this.path = path;
+            this.bytes = bytes;
+            this.lastUsedMs = lastUsedMs;
+        }
+    }
+
+    public static class Plan {
+        public final List<String> orphans = new ArrayList<>();
+        public final List<String> evicted = new ArrayList<>();   // 被历史引用、因超预算删除的
+        public long freedBytes;
+        public long keptBytes;
+
+        public boolean isEmpty() {
+            return orphans.isEmpty() && evicted.isEmpty();
+        }
+    }
+
+    /**
+     * pinned：离线队列引用的路径；referenced：历史引用的路径
+     */
+    public static Plan plan(List<Photo> photos, Set<String> pinned, Set<String> referenced,
+                            long budgetBytes, long nowMs, long graceMs) {
+        Plan plan = new Plan();
+        List<Photo> evictable = new ArrayList<>();
+        for (Photo p : photos) {
+            boolean fresh = nowMs - p.lastUsedMs < graceMs;
+            if (pinned.contains(p.path) || fresh) {
+                plan.keptBytes += p.bytes;
+            } else if (referenced.contains(p.path)) {
+                plan.keptBytes += p.bytes;
+                evictable.add(p);
+            } else {
+                plan.orphans.add(p.path);
+                plan.freedBytes += p.bytes;
+            }
+        }
+
+        if (plan.keptBytes > budgetBytes) {
+            Collections.sort(evictable, (a, b) -> Long.compare(a.lastUsedMs, b.lastUsedMs));
+            for (Photo p : evictable) {
+                if (plan.keptBytes <= budgetBytes) break;
+                plan.evicted.add(p.path);
+                plan.keptBytes -= p.bytes;
+                plan.freedBytes += p.bytes;
+            }
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.scancard;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * GB/T 2260 行政区划代码表，二进制格式，App 里内存映射 assets/region_index.bin：
+ * <pre>
+ * int MAGIC
+ * int 条数；紧跟 条数 x 8 字节记录：int 6 位代码（升序）、int 名称在名称区的偏移
+ * 名称区：每个名称 short 字节数 + UTF-8
+ * </pre>
+ * 身份证号前 6 位按 县 -> 地市（后两位 00）-> 省（后四位 0000）逐级查，拼出完整地区名。
+ * 数据源是 ocr-core/data/regions.csv，用 main() 转换：./gradlew :ocr-core:generateRegionIndex
+ */
+public class RegionIndex {
+
+    private static final int MAGIC = 0x47425431;   // "GBT1"
+    private static final int RECORD = 8;
+
+    private final ByteBuffer buf;
+    private final int count;
+    private final int recordsStart;
+    private final int namesStart;
+
+    private RegionIndex(ByteBuffer buf, int count, int recordsStart, int namesStart) {
+        this.buf = buf;
+        this.count = count;
+        this.recordsStart = recordsStart;
+        this.namesStart = namesStart;
+    }
+
+    /**
+     * 只读头部，buf 可以是 MappedByteBuffer
+     */
+    public static RegionIndex load(ByteBuffer buf) throws IOException {
+        ByteBuffer b = buf.duplicate();
+        if (b.remaining() < 8 || b.getInt() != MAGIC) {
+            throw new IOException("不是行政区划索引文件");
+        }
+        int count = b.getInt();
+        int recordsStart = b.position();
+        if (count < 0 || (long) count * RECORD > b.remaining()) {
+            throw new IOException("行政区划索引文件已损坏");
+        }
+        return new RegionIndex(buf.duplicate(), count, recordsStart, recordsStart + count * RECORD);
+    }
+
+    /**
+     * 单个代码的名称（如 440106 -> 天河区），没有返回 null
+     */
+    public String name(int code) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int pos = recordsStart + mid * RECORD;
+            int v = buf.getInt(pos);
+            if (v < code) {
+                lo = mid + 1;
+            } else if (v > code) {
+                hi = mid - 1;
+            } else {
+                int p = namesStart + buf.getInt(pos + 4);
+                byte[] utf = new byte[buf.getShort(p) & 0xffff];
+                for (int i = 0; i < utf.length; i++) utf[i] = buf.get(p + 2 + i);
+                return new String(utf, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 完整地区名，如 "广东省 广州市 天河区"；省级代码都查不到返回 null。
+     * 县级代码查不到时（表不全或已撤销的旧代码）只返回到能查到的那一级。
+     */
+    public String describe(int code) {
+        int provinceCode = code / 10000 * 10000;
+        String province = name(provinceCode);
+        if (province == null) return null;
+        StringBuilder sb = new StringBuilder(province);
+        int cityCode = code / 100 * 100;
+        if (cityCode != provinceCode) {
+            String city = name(cityCode);
+            if (city != null) sb.append(' ').append(city);
+        }
+        if (code != cityCode) {
+            String county = name(code);
+            if (county != null) sb.append(' ').append(county);
+        }
+        return sb.toString();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public static void write(Map<Integer, String> regions, OutputStream os) throws IOException {
+        TreeMap<Integer, String> sorted = new TreeMap<>(regions);
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+        DataOutputStream nameOut = new DataOutputStream(names);
+
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(sorted.size());
+        for (Map.Entry<Integer, String> e : sorted.entrySet()) {
+            if (e.getKey() < 100000 || e.getKey() > 999999) {
+                throw new IllegalArgumentException("行政区划代码格式错误：" + e.getKey());
+            }
+            out.writeInt(e.getKey());
+            out.writeInt(nameOut.size());
+            byte[] utf = e.getValue().getBytes(StandardCharsets.UTF_8);
+            nameOut.writeShort(utf.length);
+            nameOut.write(utf);
+        }
+        nameOut.flush();
+        names.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * 读 CSV：代码,名称，# 开头为注释
+     */
+    public static Map<Integer, String> readCsv(BufferedReader reader) throws IOException {
+        Map<Integer, String> map = new TreeMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] f = line.split(",");
+            if (f.length != 2 || !f[0].trim().matches("\\d{6}")) {
+                throw new IOException("CSV 格式错误：" + line);
+            }
+            if (map.put(Integer.parseInt(f[0].trim()), f[1].trim()) != null) {
+                throw new IOException("代码重复：" + line);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 用法：RegionIndex &lt;regions.csv&gt; &lt;region_index.bin&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: RegionIndex <regions.csv> <region_index.bin>");
+            System.exit(2);
+        }
+        Map<Integer, String> regions;
+        try (BufferedReader r = new BufferedReader(
+                new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8))) {
+            regions = readCsv(r);
+        }
+        File out = new File(args[1]);
+        File dir = out.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建目录：" + dir);
+        }
+        try (FileOutputStream os = new FileOutputStream(out)) {
+            write(regions, os);
+        }
+        System.out.println(regions.size() + " regions -> " + out);
+    }
+}
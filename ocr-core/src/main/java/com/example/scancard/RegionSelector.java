@@ -0,0 +1,191 @@
+package com.example.scancard;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 多地域接入点选择：每个地域维护一份延迟 / 出错估计，每次调用挑最快的健康地域。
+ * - 延迟：探测请求（HEAD）测得的往返时间，指数加权平均；各地域用同一种请求测，彼此可比
+ * - 出错：真实调用的结果被动统计（网络异常 / 服务端错误），出错率折算成延迟惩罚；
+ *   连续失败达到阈值就暂停一段冷却时间，冷却后重新探测
+ * - 当前地域只有在别的地域明显更快（超过 switchMarginMs）时才切换，避免来回换连接
+ * 还没测过延迟的地域按配置顺序排在测过的后面。线程安全。
+ */
+public class RegionSelector {
+
+    public interface Clock {
+        long currentTimeMillis();
+    }
+
+    public static class Settings {
+        public double rttAlpha = 0.3;           // 延迟平均的权重（越大越跟随最新样本）
+        public double errorAlpha = 0.2;
+        public double errorPenaltyMs = 1000;    // 出错率 100% 相当于慢这么多
+        public double switchMarginMs = 30;
+        public int maxConsecutiveFailures = 2;
+        public long cooldownMs = 30_000;
+        public long probeIntervalMs = 5 * 60_000;
+    }
+
+    public static class Stats {
+        public final String region;
+        double rttMs = Double.NaN;              // 还没测过为 NaN
+        double callMs = Double.NaN;             // 真实调用耗时（含上传和服务端处理，只做展示）
+        double errorRate;
+        int consecutiveFailures;
+        long unhealthyUntil;
+        long lastProbeAt;
+        long calls;
+
+        Stats(String region) {
+            this.region = region;
+        }
+
+        public double rttMs() {
+            return rttMs;
+        }
+
+        public double errorRate() {
+            return errorRate;
+        }
+    }
+
+    private final Settings settings;
+    private final Clock clock;
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+    private String current;
+
+    public RegionSelector(List<String> regions, Settings settings) {
+        this(regions, settings, System::currentTimeMillis);
+    }
+
+    RegionSelector(List<String> regions, Settings settings, Clock clock) {
+        if (regions.isEmpty()) throw new IllegalArgumentException("至少需要一个地域");
+        this.settings = settings;
+        this.clock = clock;
+        for (String r : regions) stats.put(r, new Stats(r));
+        current = regions.get(0);
+    }
+
+    public String pick() {
+        return pick(null);
+    }
+
+    /**
+     * exclude：这次不要选的地域（比如刚失败、正在重试的那个）；排除后没得选时忽略它
+     */
+    public synchronized String pick(Set<String> exclude) {
+        long now = clock.currentTimeMillis();
+        Stats best = null;
+        for (Stats s : stats.values()) {
+            if (exclude != null && exclude.contains(s.region)) continue;
+            if (s.unhealthyUntil > now) continue;
+            if (best == null || score(s) < score(best)) best = s;
+        }
+        if (best == null) {
+            // 都在冷却（或都被排除）：选最早恢复的
+            for (Stats s : stats.values()) {
+                if (best == null || s.unhealthyUntil < best.unhealthyUntil) best = s;
+            }
+            return best.region;
+        }
+
+        Stats cur = stats.get(current);
+        boolean curUsable = cur.unhealthyUntil <= now && (exclude == null || !exclude.contains(current));
+        if (best != cur && curUsable && score(cur) - score(best) <= settings.switchMarginMs) {
+            return current;
+        }
+        current = best.region;
+        return current;
+    }
+
+    /**
+     * 探测结果；失败传 -1
+     */
+    public synchronized void recordProbe(String region, long rttMs) {
+        Stats s = stats.get(region);
+        if (s == null) return;
+        s.lastProbeAt = clock.currentTimeMillis();
+        if (rttMs < 0) {
+            recordFailure(s);
+            return;
+        }
+        s.rttMs = Double.isNaN(s.rttMs) ? rttMs : s.rttMs + settings.rttAlpha * (rttMs - s.rttMs);
+    }
+
+    public synchronized void recordSuccess(String region, long callMs) {
+        Stats s = stats.get(region);
+        if (s == null) return;
+        s.calls++;
+        s.consecutiveFailures = 0;
+        s.unhealthyUntil = 0;
+        s.errorRate -= settings.errorAlpha * s.errorRate;
+        s.callMs = Double.isNaN(s.callMs) ? callMs : s.callMs + settings.rttAlpha * (callMs - s.callMs);
+    }
+
+    public synchronized void recordFailure(String region) {
+        Stats s = stats.get(region);
+        if (s == null) return;
+        s.calls++;
+        recordFailure(s);
+    }
+
+    /**
+     * 该探测的地域：从没测过、距上次探测超过间隔、或冷却刚结束的；返回后即视为已开始探测
+     */
+    public synchronized List<String> dueForProbe() {
+        long now = clock.currentTimeMillis();
+        List<String> due = new ArrayList<>();
+        for (Stats s : stats.values()) {
+            if (s.unhealthyUntil > now) continue;
+            if (s.lastProbeAt == 0 || now - s.lastProbeAt >= settings.probeIntervalMs) {
+                s.lastProbeAt = now;
+                due.add(s.region);
+            }
+        }
+        return due;
+    }
+
+    public synchronized Stats stats(String region) {
+        return stats.get(region);
+    }
+
+    /**
+     * 调试页展示：每个地域一行
+     */
+    public synchronized String describe() {
+        long now = clock.currentTimeMillis();
+        StringBuilder sb = new StringBuilder();
+        for (Stats s : stats.values()) {
+            sb.append(String.format(Locale.US, "%s%-14s rtt %6s  call %6s  err %3.0f%%%s%n",
+                    s.region.equals(current) ? "* " : "  ", s.region,
+                    ms(s.rttMs), ms(s.callMs), s.errorRate * 100,
+                    s.unhealthyUntil > now ? "  冷却中" : ""));
+        }
+        return sb.toString();
+    }
+
+    private void recordFailure(Stats s) {
+        s.errorRate += settings.errorAlpha * (1 - s.errorRate);
+        if (++s.consecutiveFailures >= settings.maxConsecutiveFailures) {
+            s.unhealthyUntil = clock.currentTimeMillis() + settings.cooldownMs;
+            s.consecutiveFailures = 0;
+            // 冷却结束后先探测一次
+            s.lastProbeAt = 0;
+        }
+    }
+
+    // 越小越好；没测过的排在测过的后面
+    private double score(Stats s) {
+        double rtt = Double.isNaN(s.rttMs) ? 1e9 : s.rttMs;
+        return rtt + s.errorRate * settings.errorPenaltyMs;
+    }
+
+    private static String ms(double v) {
+        return Double.isNaN(v) ? "-" : String.format(Locale.US, "%.0fms", v);
+    }
+}
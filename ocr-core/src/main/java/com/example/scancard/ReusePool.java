@@ -0,0 +1,108 @@
+package com.example.scancard;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * 按字节大小复用的对象池（Android 上用来放 inBitmap 候选）：
+ * - take(n) 取出能装下 n 字节的最小一个；太大的（超过 n 的 MAX_OVERSIZE 倍）不给，免得小图长期占着大块内存
+ * - put 超过总预算时先淘汰最早放进来的，交给 Recycler 释放
+ * 条目很少（几个），线性查找就够了。
+ */
+public class ReusePool<T> {
+
+    public interface Recycler<T> {
+        void recycle(T item);
+    }
+
+    static final int MAX_OVERSIZE = 4;
+
+    private static class Entry<T> {
+        final T item;
+        final long bytes;
+
+        Entry(T item, long bytes) {
+            this.item = item;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long maxBytes;
+    private final Recycler<T> recycler;
+    private final LinkedList<Entry<T>> entries = new LinkedList<>();
+    private long totalBytes;
+    private long hits;
+    private long misses;
+
+    public ReusePool(long maxBytes, Recycler<T> recycler) {
+        this.maxBytes = maxBytes;
+        this.recycler = recycler;
+    }
+
+    /**
+     * 取出一个至少 minBytes 大的对象，没有合适的返回 null
+     */
+    public T take(long minBytes) {
+        Entry<T> best;
+        synchronized (this) {
+            best = null;
+            for (Entry<T> e : entries) {
+                if (e.bytes < minBytes || e.bytes > minBytes * MAX_OVERSIZE) continue;
+                if (best == null || e.bytes < best.bytes) best = e;
+            }
+            if (best == null) {
+                misses++;
+                return null;
+            }
+            entries.remove(best);
+            totalBytes -= best.bytes;
+            hits++;
+        }
+        return best.item;
+    }
+
+    public void put(T item, long bytes) {
+        List<T> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (bytes > maxBytes) {
+                evicted.add(item);
+            } else {
+                entries.addLast(new Entry<>(item, bytes));
+                totalBytes += bytes;
+                Iterator<Entry<T>> it = entries.iterator();
+                while (totalBytes > maxBytes && it.hasNext()) {
+                    Entry<T> e = it.next();
+                    it.remove();
+                    totalBytes -= e.bytes;
+                    evicted.add(e.item);
+                }
+            }
+        }
+        // 释放放在锁外
+        for (T t : evicted) recycler.recycle(t);
+    }
+
+    public synchronized void clear() {
+        for (Entry<T> e : entries) recycler.recycle(e.item);
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+}
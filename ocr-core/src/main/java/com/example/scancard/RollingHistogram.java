@@ -0,0 +1,73 @@
+package com.example.scancard;
+
+import java.util.Arrays;
+
+/**
+ * 滑动窗口直方图：只保留最近 capacity 个样本，查询时排序算分位数。
+ * 记录是 O(1) 的数组写入，排序只在查看 / 导出时发生。
+ */
+public class RollingHistogram {
+
+    public static class Snapshot {
+        public final long count;      // 累计样本数（含已滑出窗口的）
+        public final int windowSize;  // 窗口内样本数，下面的统计都基于窗口
+        public final long min;
+        public final long p50;
+        public final long p95;
+        public final long p99;
+        public final long max;
+        public final double mean;
+
+        Snapshot(long count, long[] sorted) {
+            this.count = count;
+            this.windowSize = sorted.length;
+            if (sorted.length == 0) {
+                min = p50 = p95 = p99 = max = 0;
+                mean = 0;
+                return;
+            }
+            long sum = 0;
+            for (long v : sorted) sum += v;
+            this.min = sorted[0];
+            this.p50 = percentile(sorted, 50);
+            this.p95 = percentile(sorted, 95);
+            this.p99 = percentile(sorted, 99);
+            this.max = sorted[sorted.length - 1];
+            this.mean = (double) sum / sorted.length;
+        }
+    }
+
+    private final long[] window;
+    private int next;
+    private int size;
+    private long count;
+
+    public RollingHistogram(int capacity) {
+        this.window = new long[capacity];
+    }
+
+    public synchronized void record(long value) {
+        window[next] = value;
+        next = (next + 1) % window.length;
+        if (size < window.length) size++;
+        count++;
+    }
+
+    public synchronized Snapshot snapshot() {
+        long[] copy = Arrays.copyOf(window, size);
+        Arrays.sort(copy);
+        return new Snapshot(count, copy);
+    }
+
+    public synchronized void reset() {
+        next = 0;
+        size = 0;
+        count = 0;
+    }
+
+    // 最近秩法：第 ceil(p% * n) 小的样本
+    static long percentile(long[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.scancard;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 识别流程各阶段耗时 + 数据量统计（进程内全局一份）。
+ * 每个阶段一个滑动窗口直方图，给出 p50 / p95 / p99；调试页展示，可导出 JSON。
+ * 记录只是一次 nanoTime 加一次数组写入，开销可忽略。
+ */
+public class ScanMetrics {
+
+    // 单次识别的各阶段
+    public static final String DECODE = "decode";          // 读取 + 缩放图片
+    public static final String QUALITY = "quality";        // 上传前的图片质量检查
+    public static final String CROP = "crop";              // 检测卡片边框 + 透视裁剪
+    public static final String JPEG = "jpeg";              // 按字节预算压缩 JPEG
+    public static final String PAYLOAD = "payload";        // Base64 + JSON + SHA-256
+    public static final String OCR_CALL = "ocr_call";      // 查缓存 + 限流 + 网络（含重试）
+    public static final String SIGN = "sign";              // TC3 签名
+    public static final String PARSE = "parse";            // 解析 + 本地校验
+    public static final String PERSIST = "persist";        // 生成展示文本 + 写入历史
+    public static final String TOTAL = "total";            // 整次识别：读取图片到写完历史
+    public static final String PAIR_TOTAL = "pair_total";  // 身份证双面：提交第一面到合并写完历史
+
+    // OkHttp 网络阶段（连接复用时没有 dns / connect / tls）
+    public static final String NET_DNS = "net.dns";
+    public static final String NET_CONNECT = "net.connect"; // TCP 建连（含 TLS）
+    public static final String NET_TLS = "net.tls";
+    public static final String NET_UPLOAD = "net.upload";   // 发送请求头 + 请求体
+    public static final String NET_WAIT = "net.wait";       // 发完请求到收到响应头（服务端处理）
+    public static final String NET_DOWNLOAD = "net.download";
+    public static final String NET_CALL = "net.call";
+
+    // 数据量（字节）
+    public static final String BYTES_JPEG = "jpeg";
+    public static final String BYTES_REQUEST = "request";
+    public static final String BYTES_RESPONSE = "response";
+
+    private static final List<String> ORDER = Arrays.asList(
+            DECODE, QUALITY, CROP, JPEG, PAYLOAD, OCR_CALL, SIGN,
+            NET_DNS, NET_CONNECT, NET_TLS, NET_UPLOAD, NET_WAIT, NET_DOWNLOAD, NET_CALL,
+            PARSE, PERSIST, TOTAL, PAIR_TOTAL);
+
+    private static final int WINDOW = 512;
+
+    private static final ScanMetrics INSTANCE = new ScanMetrics(WINDOW);
+
+    private final int window;
+    private final ConcurrentHashMap<String, RollingHistogram> timings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RollingHistogram> bytes = new ConcurrentHashMap<>();
+
+    public static ScanMetrics get() {
+        return INSTANCE;
+    }
+
+    ScanMetrics(int window) {
+        this.window = window;
+    }
+
+    public void recordNanos(String stage, long nanos) {
+        histogram(timings, stage).record(nanos);
+    }
+
+    /**
+     * 记录从 startNanos 到现在的耗时，返回当前时间，方便串起下一阶段
+     */
+    public long since(String stage, long startNanos) {
+        long now = System.nanoTime();
+        recordNanos(stage, now - startNanos);
+        return now;
+    }
+
+    public void recordBytes(String name, long count) {
+        histogram(bytes, name).record(count);
+    }
+
+    public RollingHistogram.Snapshot timing(String stage) {
+        RollingHistogram h = timings.get(stage);
+        return h != null ? h.snapshot() : null;
+    }
+
+    public RollingHistogram.Snapshot bytes(String name) {
+        RollingHistogram h = bytes.get(name);
+        return h != null ? h.snapshot() : null;
+    }
+
+    public boolean isEmpty() {
+        return timings.isEmpty() && bytes.isEmpty();
+    }
+
+    public void reset() {
+        timings.clear();
+        bytes.clear();
+    }
+
+    /**
+     * 调试页展示：每个阶段一行，单位毫秒 / KB
+     */
+    public String formatText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "%-13s %5s %8s %8s %8s %8s%n", "阶段(ms)", "n", "p50", "p95", "p99", "max"));
+        for (String stage : sortedKeys(timings)) {
+            RollingHistogram.Snapshot s = timings.get(stage).snapshot();
+            sb.append(String.format(Locale.US, "%-13s %5d %8.1f %8.1f %8.1f %8.1f%n",
+                    stage, s.count, ms(s.p50), ms(s.p95), ms(s.p99), ms(s.max)));
+        }
+        if (!bytes.isEmpty()) {
+            sb.append(String.format(Locale.US, "%n%-13s %5s %8s %8s %8s %8s%n", "数据量(KB)", "n", "p50", "p95", "p99", "max"));
+            for (String name : sortedKeys(bytes)) {
+                RollingHistogram.Snapshot s = bytes.get(name).snapshot();
+                sb.append(String.format(Locale.US, "%-13s %5d %8.1f %8.1f %8.1f %8.1f%n",
+                        name, s.count, kb(s.p50), kb(s.p95), kb(s.p99), kb(s.max)));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 导出：{"window":512,"timingsMs":{"decode":{"count":..,"p50":..}},"bytes":{...}}
+     */
+    public String toJson() {
+        StringWriter sw = new StringWriter();
+        try (JsonWriter out = new JsonWriter(sw)) {
+            out.setIndent("  ");
+            out.beginObject();
+            out.name("exportedAt").value(System.currentTimeMillis());
+            out.name("window").value(window);
+            out.name("timingsMs").beginObject();
+            for (String stage : sortedKeys(timings)) {
+                RollingHistogram.Snapshot s = timings.get(stage).snapshot();
+                out.name(stage).beginObject();
+                out.name("count").value(s.count);
+                out.name("mean").value(round(ms(s.mean)));
+                out.name("p50").value(round(ms(s.p50)));
+                out.name("p95").value(round(ms(s.p95)));
+                out.name("p99").value(round(ms(s.p99)));
+                out.name("max").value(round(ms(s.max)));
+                out.endObject();
+            }
+            out.endObject();
+            out.name("bytes").beginObject();
+            for (String name : sortedKeys(bytes)) {
+                RollingHistogram.Snapshot s = bytes.get(name).snapshot();
+                out.name(name).beginObject();
+                out.name("count").value(s.count);
+                out.name("mean").value(Math.round(s.mean));
+                out.name("p50").value(s.p50);
+                out.name("p95").value(s.p95);
+                out.name("p99").value(s.p99);
+                out.name("max").value(s.max);
+                out.endObject();
+            }
+            out.endObject();
+            out.endObject();
+        } catch (IOException e) {
+            // StringWriter 不会抛 IOException
+            throw new IllegalStateException(e);
+        }
+        return sw.toString();
+    }
+
+    private RollingHistogram histogram(ConcurrentHashMap<String, RollingHistogram> map, String name) {
+        RollingHistogram h = map.get(name);
+        if (h == null) {
+            RollingHistogram created = new RollingHistogram(window);
+            h = map.putIfAbsent(name, created);
+            if (h == null) h = created;
+        }
+        return h;
+    }
+
+    // 已知阶段按流程顺序，其余按名称排在后面
+    private static List<String> sortedKeys(Map<String, RollingHistogram> map) {
+        List<String> keys = new ArrayList<>(map.keySet());
+        keys.sort((a, b) -> {
+            int ia = ORDER.indexOf(a);
+            int ib = ORDER.indexOf(b);
+            if (ia < 0) ia = Integer.MAX_VALUE;
+            if (ib < 0) ib = Integer.MAX_VALUE;
+            return ia != ib ? Integer.compare(ia, ib) : a.compareTo(b);
+        });
+        return keys;
+    }
+
+    private static double ms(double nanos) {
+        return nanos / 1e6;
+    }
+
+    private static double kb(long bytes) {
+        return bytes / 1024.0;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
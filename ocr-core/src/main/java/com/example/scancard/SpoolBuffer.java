@@ -0,0 +1,51 @@
+package com.example.scancard;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 可复用的字节缓冲：直接暴露内部数组，避免 toByteArray() 再拷一份。
+ * 用完 release() 还回池子，下一次请求接着用已经扩好的数组。
+ */
+public class SpoolBuffer extends ByteArrayOutputStream {
+
+    private static final int MAX_POOLED = 4;
+    // 超过这个大小的缓冲不回收，防止偶发大图长期占着内存
+    private static final int MAX_POOLED_BYTES = 4 * 1024 * 1024;
+
+    private static final ConcurrentLinkedQueue<SpoolBuffer> POOL = new ConcurrentLinkedQueue<>();
+
+    private SpoolBuffer(int size) {
+        super(size);
+    }
+
+    public static SpoolBuffer acquire() {
+        SpoolBuffer b = POOL.poll();
+        if (b == null) {
+            return new SpoolBuffer(256 * 1024);
+        }
+        b.reset();
+        return b;
+    }
+
+    public void release() {
+        if (buf.length <= MAX_POOLED_BYTES && POOL.size() < MAX_POOLED) {
+            reset();
+            POOL.offer(this);
+        }
+    }
+
+    public byte[] array() {
+        return buf;
+    }
+
+    public int length() {
+        return count;
+    }
+
+    public void copyTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.scancard;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 腾讯云 TC3-HMAC-SHA256 签名。
+ * 一个实例对应一组 (secretId, secretKey, service)，可多线程复用：
+ * 派生签名密钥按 UTC 日期缓存（一天只算一次），Mac / MessageDigest 每个线程各一份。
+ */
+public class Tc3Signer {
+
+    private static final String ALGORITHM = "TC3-HMAC-SHA256";
+    private static final String SIGNED_HEADERS = "content-type;host;x-tc-action";
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<Mac> MAC = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try {
+                return Mac.getInstance("HmacSHA256");
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<MessageDigest> SHA256 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    // 某一天的派生密钥（不可变，整体替换保证线程安全）
+    private static final class DerivedKey {
+        final long day;
+        final String date;
+        final SecretKeySpec signingKey;
+
+        DerivedKey(long day, String date, SecretKeySpec signingKey) {
+            this.day = day;
+            this.date = date;
+            this.signingKey = signingKey;
+        }
+    }
+
+    private final String secretId;
+    private final String secretKey;
+    private final String service;
+    private volatile DerivedKey cached;
+
+    public Tc3Signer(String secretId, String secretKey, String service) {
+        this.secretId = secretId;
+        this.secretKey = secretKey;
+        this.service = service;
+    }
+
+    /**
+     * 兼容旧调用方式：每次新建签名器，不走缓存
+     */
+    public static String buildAuthorization(
+            String secretId,
+            String secretKey,
+            String service,
+            String host,
+            String action,
+            String payload,
+            long timestamp
+    ) throws Exception {
+        return new Tc3Signer(secretId, secretKey, service).sign(host, action, payload, timestamp);
+    }
+
+    public String sign(String host, String action, String payload, long timestamp) throws GeneralSecurityException {
+        return signWithPayloadHash(host, action, sha256Hex(payload), timestamp);
+    }
+
+    /**
+     * payload 的 SHA-256 已经算好时（例如流式写请求体时边写边算）直接用这个
+     */
+    public String signWithPayloadHash(String host, String action, String payloadSha256Hex, long timestamp)
+            throws GeneralSecurityException {
+        DerivedKey key = derivedKey(timestamp);
+        String credentialScope = key.date + "/" + service + "/tc3_request";
+
+        String stringToSign = stringToSign(host, action, payloadSha256Hex, timestamp, credentialScope);
+
+        Mac mac = MAC.get();
+        mac.init(key.signingKey);
+        String signature = bytesToHex(mac.doFinal(stringToSign.getBytes(StandardCharsets.UTF_8)));
+
+        return ALGORITHM + " " +
+                "Credential=" + secretId + "/" + credentialScope + ", " +
+                "SignedHeaders=" + SIGNED_HEADERS + ", " +
+                "Signature=" + signature;
+    }
+
+    /**
+     * 提前算好当天的派生密钥（进入页面时调用，第一次识别不用再算）
+     */
+    public void warmUp(long timestamp) throws GeneralSecurityException {
+        derivedKey(timestamp);
+    }
+
+    static String stringToSign(String host, String action, String payloadSha256Hex,
+                               long timestamp, String credentialScope) {
+        String canonicalRequest =
+                "POST\n" +
+                        "/\n" +
+                        "\n" +
+                        "content-type:" + CONTENT_TYPE + "\n" +
+                        "host:" + host + "\n" +
+                        "x-tc-action:" + action.toLowerCase() + "\n" +
+                        "\n" +
+                        SIGNED_HEADERS + "\n" +
+                        payloadSha256Hex;
+
+        return ALGORITHM + "\n" +
+                timestamp + "\n" +
+                credentialScope + "\n" +
+                sha256Hex(canonicalRequest);
+    }
+
+    private DerivedKey derivedKey(long timestamp) throws GeneralSecurityException {
+        long day = Math.floorDiv(timestamp, 86400L);
+        DerivedKey key = cached;
+        if (key != null && key.day == day) {
+            return key;
+        }
+
+        String date = toUtcDate(day);
+        byte[] secretDate = hmacSha256(("TC3" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        byte[] secretService = hmacSha256(secretDate, service);
+        byte[] secretSigning = hmacSha256(secretService, "tc3_request");
+
+        key = new DerivedKey(day, date, new SecretKeySpec(secretSigning, "HmacSHA256"));
+        cached = key;
+        return key;
+    }
+
+    /**
+     * 1970-01-01 起的天数 -> yyyy-MM-dd（公历换算，避免每次 new SimpleDateFormat）
+     */
+    static String toUtcDate(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int d = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int m = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long y = yoe + era * 400 + (m <= 2 ? 1 : 0);
+
+        char[] out = new char[10];
+        out[0] = (char) ('0' + (y / 1000) % 10);
+        out[1] = (char) ('0' + (y / 100) % 10);
+        out[2] = (char) ('0' + (y / 10) % 10);
+        out[3] = (char) ('0' + y % 10);
+        out[4] = '-';
+        out[5] = (char) ('0' + m / 10);
+        out[6] = (char) ('0' + m % 10);
+        out[7] = '-';
+        out[8] = (char) ('0' + d / 10);
+        out[9] = (char) ('0' + d % 10);
+        return new String(out);
+    }
+
+    private static byte[] hmacSha256(byte[] key, String msg) throws GeneralSecurityException {
+        Mac mac = MAC.get();
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(msg.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256Hex(String s) {
+        MessageDigest md = SHA256.get();
+        return bytesToHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static String bytesToHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xff;
+            out[i * 2] = HEX[v >>> 4];
+            out[i * 2 + 1] = HEX[v & 0x0f];
+        }
+        return new String(out);
+    }
+}
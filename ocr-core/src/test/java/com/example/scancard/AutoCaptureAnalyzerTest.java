@@ -0,0 +1,124 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.scancard.QualityFixtures.HEIGHT;
+import static com.example.scancard.QualityFixtures.WIDTH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用合成的帧序列模拟相机预览（Y 平面带行填充），时间戳按毫秒给
+ */
+public class AutoCaptureAnalyzerTest {
+
+    private static final int STRIDE = WIDTH + 64;
+    private static final float[] CARD = {200, 150, 1000, 160, 990, 640, 210, 630};
+
+    @Test
+    public void stableCard_capturesSharpestFrame() {
+        int[] card = QualityFixtures.cardAt(1, CARD);
+        // 手抖 / 对焦过程：清晰度起伏，第 3 帧最清楚
+        List<ByteBuffer> frames = new ArrayList<>();
+        frames.add(luma(QualityFixtures.blurred(card, 2)));
+        frames.add(luma(QualityFixtures.blurred(card, 1)));
+        frames.add(luma(card));
+        frames.add(luma(QualityFixtures.blurred(card, 1)));
+        frames.add(luma(QualityFixtures.blurred(card, 2)));
+
+        AutoCaptureAnalyzer analyzer = new AutoCaptureAnalyzer();
+        int best = -1;
+        AutoCaptureAnalyzer.Step step = null;
+        for (int i = 0; i < frames.size(); i++) {
+            step = offer(analyzer, frames.get(i), i * 100L);
+            assertNotNull(step.quad);
+            if (step.newBest) best = i;
+        }
+        assertEquals(AutoCaptureAnalyzer.State.CAPTURE, step.state);
+        assertEquals(2, best);
+
+        // 拍完之后不再分析，直到 reset
+        assertEquals(AutoCaptureAnalyzer.State.SKIPPED, offer(analyzer, frames.get(2), 600).state);
+        analyzer.reset();
+        assertEquals(AutoCaptureAnalyzer.State.HOLDING, offer(analyzer, frames.get(2), 700).state);
+    }
+
+    @Test
+    public void movingCard_neverCaptures() {
+        AutoCaptureAnalyzer analyzer = new AutoCaptureAnalyzer();
+        for (int i = 0; i < 8; i++) {
+            float[] c = CARD.clone();
+            for (int k = 0; k < 8; k += 2) c[k] += (i % 2 == 0 ? 40 : -40);
+            AutoCaptureAnalyzer.Step step = offer(analyzer, luma(QualityFixtures.cardAt(2, c)), i * 100L);
+            assertEquals(AutoCaptureAnalyzer.State.HOLDING, step.state);
+            // 每次挪动都从这一帧重新挑
+            assertTrue(step.newBest);
+        }
+    }
+
+    @Test
+    public void emptyOrBlurryFrames_keepSearching() {
+        AutoCaptureAnalyzer analyzer = new AutoCaptureAnalyzer();
+        ByteBuffer empty = luma(QualityFixtures.emptyTable(3));
+        ByteBuffer blurry = luma(QualityFixtures.blurred(QualityFixtures.cardAt(3, CARD), 8));
+        for (int i = 0; i < 10; i++) {
+            AutoCaptureAnalyzer.Step step = offer(analyzer, i % 2 == 0 ? empty : blurry, i * 100L);
+            assertEquals(AutoCaptureAnalyzer.State.SEARCHING, step.state);
+            assertFalse(step.newBest);
+            assertNotNull(step.hint);
+        }
+    }
+
+    @Test
+    public void framesWithinInterval_skippedWithoutReadingPixels() {
+        AutoCaptureAnalyzer.Settings settings = new AutoCaptureAnalyzer.Settings();
+        settings.stableFrames = Integer.MAX_VALUE;
+        AutoCaptureAnalyzer analyzer = new AutoCaptureAnalyzer(settings);
+        ByteBuffer frame = luma(QualityFixtures.cardAt(4, CARD));
+
+        // 30fps 一秒：100ms 间隔下只分析第 0、4、8 ... 帧
+        int analyzed = 0;
+        for (int i = 0; i < 30; i++) {
+            if (offer(analyzer, frame, i * 33L).state != AutoCaptureAnalyzer.State.SKIPPED) analyzed++;
+        }
+        assertEquals(8, analyzed);
+
+        // 被跳过的帧不读像素：传空 buffer 也不会出错
+        assertEquals(AutoCaptureAnalyzer.State.SKIPPED,
+                analyzer.offer(ByteBuffer.allocate(0), WIDTH, HEIGHT, STRIDE, 29 * 33L + 10).state);
+    }
+
+    @Test
+    public void lumaAndArgb_giveSameGrayImage() {
+        int[] argb = QualityFixtures.cardAt(5, CARD);
+        GrayImage a = GrayImage.fromArgb(argb, WIDTH, HEIGHT, 400);
+        GrayImage b = GrayImage.fromLuma(luma(argb), WIDTH, HEIGHT, STRIDE, 400);
+        assertEquals(a.width, b.width);
+        assertEquals(a.height, b.height);
+        for (int i = 0; i < a.pixels.length; i++) {
+            assertEquals(a.pixels[i], b.pixels[i], 1);
+        }
+    }
+
+    private static AutoCaptureAnalyzer.Step offer(AutoCaptureAnalyzer analyzer, ByteBuffer y, long ts) {
+        return analyzer.offer(y, WIDTH, HEIGHT, STRIDE, ts);
+    }
+
+    // ARGB -> Y 平面（和 GrayImage 用同一组系数），每行末尾补 STRIDE - WIDTH 个填充字节
+    private static ByteBuffer luma(int[] argb) {
+        byte[] y = new byte[STRIDE * HEIGHT];
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int c = argb[row * WIDTH + x];
+                y[row * STRIDE + x] = (byte) ((((c >> 16) & 0xff) * 77 + ((c >> 8) & 0xff) * 150 + (c & 0xff) * 29) >> 8);
+            }
+        }
+        return ByteBuffer.wrap(y);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.scancard;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BankCardValidatorTest {
+
+    private BinIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        index = BinIndexTest.sample();
+    }
+
+    @Test
+    public void luhn() {
+        assertTrue(BankCardValidator.luhnValid("4111111111111111"));
+        assertTrue(BankCardValidator.luhnValid(withCheckDigit("622202020000000000")));
+        assertFalse(BankCardValidator.luhnValid("4111111111111112"));
+        assertFalse(BankCardValidator.luhnValid(""));
+    }
+
+    @Test
+    public void validCard_enrichedFromBin() {
+        BankCardResult r = bank(spaced(withCheckDigit("622202020000000000")), "");
+        BankCardValidator.Check c = BankCardValidator.check(r, index);
+
+        assertEquals(BankCardValidator.Status.OK, c.status);
+        assertEquals("中国工商银行", r.bankInfo);
+        assertEquals("借记卡", r.cardType);
+        assertEquals("中国工商银行 借记卡", r.binIssuer);
+    }
+
+    @Test
+    public void oneDigitMisread_failsLuhn() {
+        String good = withCheckDigit("622202020000000000");
+        String bad = good.substring(0, 10) + (char) ('0' + (good.charAt(10) - '0' + 3) % 10) + good.substring(11);
+        BankCardValidator.Check c = BankCardValidator.check(bank(bad, "工商银行(01020000)"), index);
+        assertEquals(BankCardValidator.Status.LUHN_FAILED, c.status);
+        assertTrue(c.isBadRead());
+    }
+
+    @Test
+    public void binBankDiffersFromBankInfo_flagged() {
+        String no = withCheckDigit("621700123456789012");
+        BankCardValidator.Check byCode = BankCardValidator.check(bank(no, "招商银行(03080000)"), index);
+        assertEquals(BankCardValidator.Status.BANK_MISMATCH, byCode.status);
+        assertTrue(byCode.message.contains("中国建设银行"));
+
+        // 没有机构代码时按名称比较，“中国”前缀不影响
+        assertEquals(BankCardValidator.Status.OK,
+                BankCardValidator.check(bank(no, "建设银行"), index).status);
+        assertEquals(BankCardValidator.Status.BANK_MISMATCH,
+                BankCardValidator.check(bank(no, "中国银行"), index).status);
+    }
+
+    @Test
+    public void unknownBin_acceptedWithoutEnrichment() {
+        BankCardResult r = bank("4111 1111 1111 1111", "某银行");
+        BankCardValidator.Check c = BankCardValidator.check(r, index);
+        assertEquals(BankCardValidator.Status.UNKNOWN_BIN, c.status);
+        assertFalse(c.isBadRead());
+        assertEquals("", r.binIssuer);
+    }
+
+    @Test
+    public void wrongLength_isBadRead() {
+        assertEquals(BankCardValidator.Status.BAD_LENGTH,
+                BankCardValidator.check(bank("6222 0202", ""), index).status);
+    }
+
+    @Test
+    public void errorResult_notChecked() {
+        BankCardResult r = OcrResultParser.readBank(
+                "{\"Response\":{\"Error\":{\"Code\":\"FailedOperation.NoBankCard\",\"Message\":\"m\"},\"RequestId\":\"r\"}}");
+        assertEquals(BankCardValidator.Status.OK, BankCardValidator.check(r, index).status);
+    }
+
+    private static BankCardResult bank(String cardNo, String bankInfo) {
+        BankCardResult r = new BankCardResult();
+        r.cardNo = cardNo;
+        r.bankInfo = bankInfo;
+        return r;
+    }
+
+    // 补上 Luhn 校验位
+    private static String withCheckDigit(String body) {
+        for (int d = 0; d <= 9; d++) {
+            if (BankCardValidator.luhnValid(body + d)) return body + d;
+        }
+        throw new AssertionError();
+    }
+
+    // 腾讯返回的卡号每 4 位一个空格
+    private static String spaced(String digits) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < digits.length(); i++) {
+            if (i > 0 && i % 4 == 0) sb.append(' ');
+            sb.append(digits.charAt(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BinIndexTest {
+
+    static BinIndex sample() throws IOException {
+        List<BinIndex.Entry> entries = Arrays.asList(
+                new BinIndex.Entry("622202", "01020000", "中国工商银行", BinIndex.DEBIT),
+                new BinIndex.Entry("621700", "01050000", "中国建设银行", BinIndex.DEBIT),
+                new BinIndex.Entry("622575", "03080000", "招商银行", BinIndex.CREDIT),
+                // 更长的前缀覆盖短前缀
+                new BinIndex.Entry("62220299", "03080000", "招商银行", BinIndex.PREPAID));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinIndex.write(entries, out);
+        return BinIndex.load(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    @Test
+    public void lookup_findsIssuerByPrefix() throws Exception {
+        BinIndex index = sample();
+        BinIndex.Issuer i = index.lookup("6222020200000000000");
+        assertEquals("中国工商银行", i.bankName);
+        assertEquals("01020000", i.bankCode);
+        assertEquals("借记卡", i.kindName());
+        assertEquals(6, i.binLength);
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void lookup_longestPrefixWins() throws Exception {
+        BinIndex.Issuer i = sample().lookup("6222029912345678");
+        assertEquals("招商银行", i.bankName);
+        assertEquals(8, i.binLength);
+        assertEquals(BinIndex.PREPAID, i.kind);
+    }
+
+    @Test
+    public void lookup_unknownOrGarbage_returnsNull() throws Exception {
+        BinIndex index = sample();
+        assertNull(index.lookup("4111111111111111"));
+        assertNull(index.lookup("62"));
+        assertNull(index.lookup("62x2020200000000"));
+    }
+
+    @Test
+    public void readCsv_skipsComments() throws Exception {
+        List<BinIndex.Entry> list = BinIndex.readCsv(new BufferedReader(new StringReader(
+                "# bin,code,name,kind\n\n622588,03080000,招商银行,D\n")));
+        assertEquals(1, list.size());
+        assertEquals("招商银行", list.get(0).bankName);
+        assertEquals('D', list.get(0).kind);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_rejectsTooShortBin() throws Exception {
+        BinIndex.write(Arrays.asList(new BinIndex.Entry("62", "99999999", "银联", BinIndex.DEBIT)),
+                new ByteArrayOutputStream());
+    }
+
+    @Test(expected = IOException.class)
+    public void load_rejectsOtherFiles() throws Exception {
+        BinIndex.load(ByteBuffer.wrap("{\"not\":\"an index\"}".getBytes("UTF-8")));
+    }
+}
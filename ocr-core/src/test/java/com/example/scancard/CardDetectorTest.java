@@ -0,0 +1,102 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import static com.example.scancard.QualityFixtures.HEIGHT;
+import static com.example.scancard.QualityFixtures.WIDTH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CardDetectorTest {
+
+    // 允许的角点误差：检测在 1/3 尺度上做，再加 1% 外扩
+    private static final float TOLERANCE = 14;
+
+    private final CardDetector detector = new CardDetector();
+
+    @Test
+    public void frontalCard_cornersFound() {
+        float[] corners = {380, 250, 820, 250, 820, 527, 380, 527};
+        assertCorners(corners, detect(QualityFixtures.cardAt(1, corners)));
+    }
+
+    @Test
+    public void tiltedCard_perspectiveCornersFound() {
+        // 手机没端平：上边比下边短，整体略有旋转
+        float[] corners = {420, 190, 830, 215, 880, 560, 330, 520};
+        assertCorners(corners, detect(QualityFixtures.cardAt(2, corners)));
+    }
+
+    @Test
+    public void portraitCard_returnedAsLandscape() {
+        float[] corners = {470, 120, 730, 120, 730, 532, 470, 532};
+        CardDetector.Quad quad = detect(QualityFixtures.cardAt(3, corners));
+        assertNotNull(quad);
+        assertTrue(quad.width() > quad.height());
+        // 左下角成为新的左上角
+        assertEquals(470, quad.corners[0], TOLERANCE);
+        assertEquals(532, quad.corners[1], TOLERANCE);
+    }
+
+    @Test
+    public void emptyFrame_notDetected() {
+        assertNull(detector.detect(QualityFixtures.emptyTable(4), WIDTH, HEIGHT));
+    }
+
+    @Test
+    public void croppedCard_shrinksJpegSeveralFold() throws IOException {
+        float[] corners = {400, 240, 800, 240, 800, 492, 400, 492};
+        int[] frame = QualityFixtures.cardAt(5, corners);
+        CardDetector.Quad quad = detect(frame);
+
+        // 输出宽度取卡片在原图里的宽度，文字分辨率不变
+        int outW = Math.round(quad.width());
+        int outH = Math.round((float) (outW / CardDetector.ID1_ASPECT));
+        int[] crop = QualityFixtures.warp(frame, WIDTH, HEIGHT, quad.corners, outW, outH);
+
+        int fullBytes = jpegBytes(frame, WIDTH, HEIGHT);
+        int cropBytes = jpegBytes(crop, outW, outH);
+        assertTrue("full=" + fullBytes + " crop=" + cropBytes, cropBytes * 3 < fullBytes);
+    }
+
+    private CardDetector.Quad detect(int[] frame) {
+        CardDetector.Quad quad = detector.detect(frame, WIDTH, HEIGHT);
+        assertNotNull("没有检测到卡片", quad);
+        return quad;
+    }
+
+    private static void assertCorners(float[] expected, CardDetector.Quad quad) {
+        for (int i = 0; i < 8; i++) {
+            assertEquals(quad.toString(), expected[i], quad.corners[i], TOLERANCE);
+        }
+    }
+
+    private static int jpegBytes(int[] argb, int w, int h) throws IOException {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, w, h, argb, 0, w);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(0.85f);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.size();
+    }
+}
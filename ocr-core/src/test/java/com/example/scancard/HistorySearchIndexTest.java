@@ -0,0 +1,81 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistorySearchIndexTest {
+
+    // 与 app 里 HistoryStore.KEY_BANK / KEY_IDCARD 一致
+    private static final String BANK = "history_bank";
+    private static final String IDCARD = "history_idcard";
+
+    private static final String[] SURNAMES = {"张", "王", "李", "赵", "刘", "陈", "杨", "黄", "周", "吴"};
+    private static final String[] GIVEN = {"伟", "芳", "娜", "敏", "静", "磊", "洋", "勇", "艳", "杰", "涛", "明"};
+    private static final String[] BANKS = {"工商银行", "农业银行", "建设银行", "招商银行", "中国银行"};
+
+    @Test
+    public void findsByCardSuffix_name_andIdNumber_newestFirst() {
+        HistorySearchIndex index = new HistorySearchIndex();
+        index.add(1, BANK, "6222 0212 3456 7890", null, null, "工商银行(01020000)");
+        index.add(2, IDCARD, null, "11010519491231002x", "张三", null);
+        index.add(3, BANK, "6228480000007890", null, null, "农业银行");
+        index.add(4, IDCARD, null, "440106199001011234", "李四", null);
+
+        assertEquals(Arrays.asList(3L, 1L), index.search(BANK, "7890", 10));
+        assertEquals(Arrays.asList(1L), index.search(null, "0212 3456", 10));
+        assertEquals(Arrays.asList(2L), index.search(IDCARD, "张三", 10));
+        assertEquals(Arrays.asList(2L), index.search(null, "张", 10));
+        // 身份证末位 x 大小写不敏感
+        assertEquals(Arrays.asList(2L), index.search(null, "1231002X", 10));
+        assertEquals(Arrays.asList(1L), index.search(null, "工商", 10));
+        // 卡类型过滤
+        assertTrue(index.search(IDCARD, "7890", 10).isEmpty());
+        // 数字至少 3 位
+        assertTrue(index.search(null, "78", 10).isEmpty());
+    }
+
+    @Test
+    public void tenThousandRecords_everyRecordFindable() {
+        HistorySearchIndex index = new HistorySearchIndex();
+        Random r = new Random(2024);
+        String[] cardNos = new String[10_000];
+        String[] names = new String[10_000];
+        String[] idNums = new String[10_000];
+
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 2 == 0) {
+                cardNos[i] = "62" + digits(r, 14);
+                index.add(i, BANK, cardNos[i], null, null, BANKS[r.nextInt(BANKS.length)]);
+            } else {
+                names[i] = SURNAMES[r.nextInt(SURNAMES.length)] + GIVEN[r.nextInt(GIVEN.length)]
+                        + GIVEN[r.nextInt(GIVEN.length)];
+                idNums[i] = digits(r, 18);
+                index.add(i, IDCARD, null, idNums[i], names[i], null);
+            }
+        }
+        assertEquals(10_000, index.size());
+
+        // 查询耗时在 benchmarks 模块的 HistoryBenchmark 里测，这里只验证大数据量下结果正确
+        for (int k = 0; k < 200; k++) {
+            int bank = r.nextInt(5_000) * 2;
+            List<Long> byCard = index.search(BANK, cardNos[bank].substring(8), 20);
+            assertTrue(cardNos[bank], byCard.contains((long) bank));
+
+            int person = r.nextInt(5_000) * 2 + 1;
+            assertTrue(idNums[person], index.search(IDCARD, idNums[person], 20).contains((long) person));
+            assertTrue(names[person], index.search(IDCARD, names[person], 10_000).contains((long) person));
+        }
+    }
+
+    private static String digits(Random r, int n) {
+        char[] c = new char[n];
+        for (int i = 0; i < n; i++) c[i] = (char) ('0' + r.nextInt(10));
+        return new String(c);
+    }
+}
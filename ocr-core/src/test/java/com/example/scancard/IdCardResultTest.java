@@ -0,0 +1,49 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IdCardResultTest {
+
+    @Test
+    public void merge_frontAndBackIntoOneRecord() {
+        IdCardResult merged = IdCardResult.merge(front(), back());
+        assertEquals("张三", merged.name);
+        assertEquals("11010519491231002X", merged.idNum);
+        assertEquals("北京市公安局朝阳分局", merged.authority);
+        assertEquals("2010.07.21-2030.07.21", merged.validDate);
+        assertEquals("req-front / req-back", merged.requestId);
+        assertTrue(merged.hasFront() && merged.hasBack());
+
+        String display = OcrResultFormatter.format(merged);
+        assertTrue(display.contains("身份证号：11010519491231002X"));
+        assertTrue(display.contains("签发机关：北京市公安局朝阳分局"));
+    }
+
+    @Test
+    public void merge_swapsSidesShotInWrongOrder() {
+        IdCardResult merged = IdCardResult.merge(back(), front());
+        assertEquals("张三", merged.name);
+        assertEquals("北京市公安局朝阳分局", merged.authority);
+        assertEquals("req-front / req-back", merged.requestId);
+    }
+
+    private static IdCardResult front() {
+        IdCardResult r = new IdCardResult();
+        r.requestId = "req-front";
+        r.name = "张三";
+        r.sex = "女";
+        r.idNum = "11010519491231002X";
+        return r;
+    }
+
+    private static IdCardResult back() {
+        IdCardResult r = new IdCardResult();
+        r.requestId = "req-back";
+        r.authority = "北京市公安局朝阳分局";
+        r.validDate = "2010.07.21-2030.07.21";
+        return r;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.scancard;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IdCardValidatorTest {
+
+    private static final int TODAY = 20240301;
+
+    private RegionIndex regions;
+
+    @Before
+    public void setUp() throws Exception {
+        regions = RegionIndexTest.sample();
+    }
+
+    @Test
+    public void checksum() {
+        assertTrue(IdCardValidator.checksumValid("11010519491231002X"));
+        assertTrue(IdCardValidator.checksumValid("11010519491231002x"));
+        assertFalse(IdCardValidator.checksumValid("110105194912310021"));
+        // 任意一位读错都能发现
+        assertFalse(IdCardValidator.checksumValid("11010519491231003X"));
+        assertFalse(IdCardValidator.checksumValid("1101051949123100"));
+    }
+
+    @Test
+    public void validFront_fillsRegion() {
+        IdCardResult r = front("11010519491231002X", "女", "1949/12/31");
+        IdCardValidator.Check c = IdCardValidator.check(r, regions, TODAY);
+
+        assertEquals(IdCardValidator.Status.OK, c.status);
+        assertEquals("北京市 市辖区 朝阳区", r.region);
+        assertEquals(r.region, c.region);
+    }
+
+    @Test
+    public void misreadDigit_failsChecksum() {
+        IdCardValidator.Check c = IdCardValidator.check(front("11010519491231082X", "女", ""), regions, TODAY);
+        assertEquals(IdCardValidator.Status.BAD_CHECKSUM, c.status);
+        assertTrue(c.isBadRead());
+    }
+
+    @Test
+    public void birthAndSex_mustMatchNumber() {
+        assertEquals(IdCardValidator.Status.BAD_BIRTH,
+                IdCardValidator.check(front("11010519491231002X", "女", "1949/12/30"), regions, TODAY).status);
+        assertEquals(IdCardValidator.Status.SEX_MISMATCH,
+                IdCardValidator.check(front("11010519491231002X", "男", "1949/12/31"), regions, TODAY).status);
+        // 识别不出的字段不参与比对
+        assertEquals(IdCardValidator.Status.OK,
+                IdCardValidator.check(front("11010519491231002X", "", "无法识别"), regions, TODAY).status);
+    }
+
+    @Test
+    public void impossibleOrFutureDate_isBadBirth() {
+        assertEquals(IdCardValidator.Status.BAD_BIRTH,
+                IdCardValidator.check(front(id("44010620230230001"), "", ""), regions, TODAY).status);
+        assertEquals(IdCardValidator.Status.BAD_BIRTH,
+                IdCardValidator.check(front(id("44010620300101001"), "", ""), regions, TODAY).status);
+        assertEquals(IdCardValidator.Status.OK,
+                IdCardValidator.check(front(id("44010620000229001"), "男", "2000/2/29"), regions, TODAY).status);
+    }
+
+    @Test
+    public void unknownProvince_isBadRegion() {
+        IdCardValidator.Check c = IdCardValidator.check(front(id("99010619900101001"), "", ""), regions, TODAY);
+        assertEquals(IdCardValidator.Status.BAD_REGION, c.status);
+        assertNull(c.region);
+
+        // 区县查不到（已撤销的旧代码）不算错
+        IdCardResult old = front(id("44019919900101001"), "", "");
+        assertEquals(IdCardValidator.Status.OK, IdCardValidator.check(old, regions, TODAY).status);
+        assertEquals("广东省 广州市", old.region);
+    }
+
+    @Test
+    public void fifteenDigitNumber() {
+        IdCardResult r = front("440106900101123", "男", "1990/1/1");
+        assertEquals(IdCardValidator.Status.OK, IdCardValidator.check(r, regions, TODAY).status);
+        assertEquals(IdCardValidator.Status.SEX_MISMATCH,
+                IdCardValidator.check(front("440106900101124", "男", ""), regions, TODAY).status);
+    }
+
+    @Test
+    public void wrongLengthOrLetters_isBadFormat() {
+        assertEquals(IdCardValidator.Status.BAD_FORMAT,
+                IdCardValidator.check(front("1101051949123100", "", ""), regions, TODAY).status);
+        assertEquals(IdCardValidator.Status.BAD_FORMAT,
+                IdCardValidator.check(front("1101O519491231002X", "", ""), regions, TODAY).status);
+    }
+
+    @Test
+    public void backSideAndErrors_notChecked() {
+        IdCardResult back = new IdCardResult();
+        back.authority = "北京市公安局朝阳分局";
+        IdCardValidator.Check c = IdCardValidator.check(back, regions, TODAY);
+        assertEquals(IdCardValidator.Status.NOT_CHECKED, c.status);
+        assertFalse(c.isBadRead());
+
+        IdCardResult error = OcrResultParser.readIdCard(
+                "{\"Response\":{\"Error\":{\"Code\":\"FailedOperation.IdCardInfoIllegal\",\"Message\":\"m\"},\"RequestId\":\"r\"}}");
+        assertFalse(IdCardValidator.check(error, regions, TODAY).isBadRead());
+    }
+
+    @Test
+    public void withoutRegionTable_onlyChecksNumber() {
+        IdCardResult r = front("11010519491231002X", "女", "");
+        assertEquals(IdCardValidator.Status.OK, IdCardValidator.check(r, null, TODAY).status);
+        assertEquals("", r.region);
+    }
+
+    private static IdCardResult front(String idNum, String sex, String birth) {
+        IdCardResult r = new IdCardResult();
+        r.name = "张三";
+        r.idNum = idNum;
+        r.sex = sex;
+        r.birth = birth;
+        return r;
+    }
+
+    // 补上校验码
+    private static String id(String body17) {
+        for (char c : "0123456789X".toCharArray()) {
+            if (IdCardValidator.checksumValid(body17 + c)) return body17 + c;
+        }
+        throw new AssertionError();
+    }
+}
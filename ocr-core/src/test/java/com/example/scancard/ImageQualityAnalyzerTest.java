@@ -0,0 +1,90 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import static com.example.scancard.QualityFixtures.HEIGHT;
+import static com.example.scancard.QualityFixtures.WIDTH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ImageQualityAnalyzerTest {
+
+    private final ImageQualityAnalyzer analyzer = new ImageQualityAnalyzer();
+
+    @Test
+    public void goodCards_pass() {
+        for (long seed = 1; seed <= 5; seed++) {
+            ImageQualityAnalyzer.Report r = analyze(QualityFixtures.goodCard(seed));
+            assertEquals(r.toString(), ImageQualityAnalyzer.Verdict.OK, r.verdict);
+            assertNull(r.problem);
+        }
+    }
+
+    @Test
+    public void slightlyBlurred_warns() {
+        ImageQualityAnalyzer.Report r = analyze(QualityFixtures.blurred(QualityFixtures.goodCard(1), 4));
+        assertEquals(r.toString(), ImageQualityAnalyzer.Verdict.WARN, r.verdict);
+    }
+
+    @Test
+    public void blurred_rejected() {
+        int[] good = QualityFixtures.goodCard(2);
+        for (int radius : new int[]{6, 10}) {
+            ImageQualityAnalyzer.Report r = analyze(QualityFixtures.blurred(good, radius));
+            assertEquals(r.toString(), ImageQualityAnalyzer.Verdict.REJECT, r.verdict);
+        }
+        assertTrue(analyze(QualityFixtures.blurred(good, 6)).problem.contains("模糊"));
+    }
+
+    @Test
+    public void glare_warnsThenRejects() {
+        int[] good = QualityFixtures.goodCard(3);
+        assertEquals(ImageQualityAnalyzer.Verdict.OK, analyze(QualityFixtures.withGlare(good, 0.15)).verdict);
+
+        ImageQualityAnalyzer.Report mild = analyze(QualityFixtures.withGlare(good, 0.3));
+        assertEquals(mild.toString(), ImageQualityAnalyzer.Verdict.WARN, mild.verdict);
+
+        ImageQualityAnalyzer.Report heavy = analyze(QualityFixtures.withGlare(good, 0.5));
+        assertEquals(heavy.toString(), ImageQualityAnalyzer.Verdict.REJECT, heavy.verdict);
+        assertTrue(heavy.problem.contains("反光"));
+    }
+
+    @Test
+    public void noCard_rejected() {
+        ImageQualityAnalyzer.Report r = analyze(QualityFixtures.emptyTable(4));
+        assertEquals(r.toString(), ImageQualityAnalyzer.Verdict.REJECT, r.verdict);
+        assertTrue(r.edgeScore < 0.01);
+    }
+
+    @Test
+    public void alreadySmallInput_analyzedWithoutScaling() {
+        // 长边不超过 ANALYSIS_SIDE 时直接逐像素分析
+        int w = WIDTH / 3, h = HEIGHT / 3;
+        int[] full = QualityFixtures.goodCard(5);
+        int[] small = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) small[y * w + x] = full[(y * 3) * WIDTH + x * 3];
+        }
+        assertEquals(ImageQualityAnalyzer.Verdict.OK, analyzer.analyze(small, w, h).verdict);
+    }
+
+    @Test
+    public void extremelyThin_rejectedInsteadOfNaN() {
+        for (int[] size : new int[][]{{1200, 4}, {4, 1200}}) {
+            ImageQualityAnalyzer.Report r = analyzer.analyze(new int[size[0] * size[1]], size[0], size[1]);
+            assertEquals(r.toString(), ImageQualityAnalyzer.Verdict.REJECT, r.verdict);
+            assertFalse(Double.isNaN(r.sharpness));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooSmall_throws() {
+        analyzer.analyze(new int[4], 2, 2);
+    }
+
+    private ImageQualityAnalyzer.Report analyze(int[] argb) {
+        return analyzer.analyze(argb, WIDTH, HEIGHT);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.scancard;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LegacyHistoryCodecTest {
+
+    @Test
+    public void decodesWhatOldVersionWrote() throws Exception {
+        // 旧版用 org.json 写入（会把 / 转义成 \/）
+        JSONArray arr = new JSONArray();
+        arr.put(new JSONObject().put("time", "03-08 09:15").put("brief", "银行卡：点击回看")
+                .put("detail", "卡号：6222 0202\n有效期：08/2029"));
+        arr.put(new JSONObject().put("time", "03-07 18:00").put("brief", "身份证(FRONT)：点击回看")
+                .put("detail", "姓名：\"张三\""));
+
+        List<LegacyHistoryCodec.Entry> list = LegacyHistoryCodec.decode(arr.toString());
+
+        assertEquals(2, list.size());
+        assertEquals("03-08 09:15", list.get(0).time);
+        assertEquals("卡号：6222 0202\n有效期：08/2029", list.get(0).detail);
+        assertEquals("姓名：\"张三\"", list.get(1).detail);
+    }
+
+    @Test
+    public void roundTrip_andMissingFields() throws Exception {
+        List<LegacyHistoryCodec.Entry> in = Arrays.asList(
+                new LegacyHistoryCodec.Entry("01-01 00:00", "a", "x\ty"),
+                new LegacyHistoryCodec.Entry("12-31 23:59", "b", ""));
+        List<LegacyHistoryCodec.Entry> out = LegacyHistoryCodec.decode(LegacyHistoryCodec.encode(in));
+        assertEquals(2, out.size());
+        assertEquals("x\ty", out.get(0).detail);
+        assertEquals("12-31 23:59", out.get(1).time);
+
+        List<LegacyHistoryCodec.Entry> partial = LegacyHistoryCodec.decode("[{\"brief\":\"b\",\"detail\":null,\"x\":[1]}]");
+        assertEquals("", partial.get(0).time);
+        assertEquals("", partial.get(0).detail);
+        assertTrue(LegacyHistoryCodec.decode("").isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void malformed_throws() throws Exception {
+        LegacyHistoryCodec.decode("{\"time\":1}");
+    }
+}
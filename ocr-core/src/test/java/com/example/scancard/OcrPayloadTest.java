@@ -0,0 +1,79 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class OcrPayloadTest {
+
+    @Test
+    public void base64Stream_matchesJdkEncoder_forAllTailLengths() throws Exception {
+        Random random = new Random(42);
+        for (int len = 0; len < 40; len++) {
+            byte[] data = new byte[len * 997 % 10007];
+            random.nextBytes(data);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Base64EncodingStream b64 = new Base64EncodingStream(out);
+            // 混合单字节写和批量写
+            int i = 0;
+            while (i < data.length) {
+                int n = Math.min(data.length - i, random.nextInt(7));
+                if (n == 0) {
+                    b64.write(data[i++]);
+                } else {
+                    b64.write(data, i, n);
+                    i += n;
+                }
+            }
+            b64.finish();
+
+            assertEquals(Base64.getEncoder().encodeToString(data),
+                    new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void payload_wrapsImageAndFields_andHashesWhatWasWritten() throws Exception {
+        byte[] image = new byte[300 * 1024];
+        new Random(7).nextBytes(image);
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("CardSide", "FRONT");
+
+        OcrPayload payload = OcrPayload.build(out -> out.write(image), fields);
+        try {
+            String expected = "{\"ImageBase64\":\"" + Base64.getEncoder().encodeToString(image) +
+                    "\",\"CardSide\":\"FRONT\"}";
+            assertEquals(expected, payload.toString());
+            assertEquals(expected.length(), payload.length());
+            assertEquals(Tc3Signer.sha256Hex(expected), payload.sha256Hex());
+
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            payload.writeTo(sink);
+            assertEquals(expected, new String(sink.toByteArray(), StandardCharsets.UTF_8));
+        } finally {
+            payload.release();
+        }
+    }
+
+    @Test
+    public void payload_escapesFieldValues() throws Exception {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("Config", "{\"CropIdCard\":true}");
+
+        OcrPayload payload = OcrPayload.build(out -> out.write(new byte[]{1, 2, 3}), fields);
+        try {
+            assertEquals("{\"ImageBase64\":\"AQID\",\"Config\":\"{\\\"CropIdCard\\\":true}\"}",
+                    payload.toString());
+        } finally {
+            payload.release();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.scancard;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OcrResultParserTest {
+
+    private static final String BANK = "{\"Response\":{\"CardNo\":\"6222020200000000000\"," +
+            "\"BankInfo\":\"工商银行(01020000)\",\"ValidDate\":\"08/2029\",\"CardType\":\"借记卡\"," +
+            "\"CardName\":\"牡丹卡\",\"BorderCutImage\":null,\"CardNoImage\":null," +
+            "\"WarningCode\":[],\"QualityValue\":100,\"RequestId\":\"bank-1\"}}";
+
+    private static final String ERROR = "{\"Response\":{\"Error\":{\"Code\":\"FailedOperation.OcrFailed\"," +
+            "\"Message\":\"OCR识别失败\"},\"RequestId\":\"err-1\"}}";
+
+    @Test
+    public void bank_typedFields_andDisplay() {
+        BankCardResult r = OcrResultParser.readBank(BANK);
+
+        assertFalse(r.isError());
+        assertEquals("6222020200000000000", r.cardNo);
+        assertEquals("工商银行(01020000)", r.bankInfo);
+        assertEquals("bank-1", r.requestId);
+        assertEquals("银行卡识别结果\n\n" +
+                "卡号：6222020200000000000\n" +
+                "银行信息：工商银行(01020000)\n" +
+                "卡类型：借记卡\n" +
+                "卡名称：牡丹卡\n" +
+                "有效期：08/2029\n" +
+                "\nRequestId：bank-1", OcrResultFormatter.format(r));
+    }
+
+    @Test
+    public void idCard_skipsAdvancedInfoAndNestedValues() {
+        IdCardResult r = OcrResultParser.readIdCard(idCardWithAdvancedInfo(64 * 1024));
+
+        assertFalse(r.isError());
+        assertEquals("张三", r.name);
+        assertEquals("男", r.sex);
+        assertEquals("11010519491231002X", r.idNum);
+        assertEquals("", r.authority);   // 人像面没有签发机关
+        assertEquals("id-1", r.requestId);
+    }
+
+    @Test
+    public void errorBranch() {
+        BankCardResult r = OcrResultParser.readBank(ERROR);
+
+        assertTrue(r.isError());
+        assertEquals("FailedOperation.OcrFailed", r.errorCode);
+        assertEquals("调用失败：\nCode=FailedOperation.OcrFailed\nMessage=OCR识别失败\nRequestId=err-1",
+                OcrResultFormatter.format(r));
+
+        assertFalse(OcrResultParser.isSuccess(ERROR));
+        assertEquals("FailedOperation.OcrFailed", OcrResultParser.errorCode(ERROR));
+        assertTrue(OcrResultParser.isSuccess(BANK));
+        assertNull(OcrResultParser.errorCode(BANK));
+    }
+
+    @Test
+    public void readByAction_picksResultType() {
+        assertTrue(OcrResultParser.read("BankCardOCR", BANK) instanceof BankCardResult);
+        assertEquals("6222020200000000000", ((BankCardResult) OcrResultParser.read("BankCardOCR", BANK)).cardNo);
+        assertTrue(OcrResultParser.read("IDCardOCR", idCardWithAdvancedInfo(0)) instanceof IdCardResult);
+
+        OcrResult other = OcrResultParser.read("GeneralBasicOCR", ERROR);
+        assertEquals(OcrResult.class, other.getClass());
+        assertEquals("FailedOperation.OcrFailed", other.errorCode);
+    }
+
+    @Test
+    public void malformedResponse_keepsRawText() {
+        for (String bad : new String[]{"<html>502</html>", "{\"Response\":{\"CardNo\":", "{}", ""}) {
+            BankCardResult r = OcrResultParser.readBank(bad);
+            assertTrue(bad, r.isError());
+            assertNull(bad, r.errorCode);
+            assertEquals("解析失败：\n" + bad, OcrResultFormatter.format(r));
+            assertFalse(OcrResultParser.isSuccess(bad));
+            assertNull(OcrResultParser.errorCode(bad));
+        }
+    }
+
+    @Test
+    public void largeIdCardResponse_skipsAdvancedInfo() throws Exception {
+        // 解析耗时和 JSONObject 的对比在 benchmarks 模块的 ParseBenchmark 里测
+        String json = idCardWithAdvancedInfo(512 * 1024);
+        IdCardResult r = OcrResultParser.readIdCard(json);
+        assertEquals("张三", r.name);
+        assertEquals("11010519491231002X", r.idNum);
+        assertEquals(new JSONObject(json).getJSONObject("Response").getString("Name"), r.name);
+    }
+
+    // 模拟开启裁剪图后的返回：AdvancedInfo 是一段很长的 JSON 字符串
+    private static String idCardWithAdvancedInfo(int imageChars) {
+        StringBuilder img = new StringBuilder(imageChars);
+        for (int i = 0; i < imageChars; i++) img.append((char) ('A' + i % 26));
+        String advanced = "{\\\"IdCard\\\":\\\"" + img + "\\\",\\\"WarnInfos\\\":[]}";
+        return "{\"Response\":{\"Name\":\"张三\",\"Sex\":\"男\",\"Nation\":\"汉\",\"Birth\":\"1949/12/31\"," +
+                "\"Address\":\"北京市西城区某某街道1号\",\"IdNum\":\"11010519491231002X\"," +
+                "\"Authority\":\"\",\"ValidDate\":\"\"," +
+                "\"AdvancedInfo\":\"" + advanced + "\"," +
+                "\"ReflectDetailInfos\":[{\"Name\":\"x\",\"Box\":{\"X\":1,\"Y\":2}}]," +
+                "\"RequestId\":\"id-1\"}}";
+    }
+}
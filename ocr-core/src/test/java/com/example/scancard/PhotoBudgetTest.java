@@ -0,0 +1,73 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PhotoBudgetTest {
+
+    private static final long MB = 1024 * 1024;
+    private static final long NOW = 10_000_000L;
+    private static final long GRACE = 600_000L;
+
+    @Test
+    public void orphansDeleted_referencedAndQueuedKept() {
+        List<PhotoBudget.Photo> photos = Arrays.asList(
+                photo("history.jpg", 3 * MB, NOW - 3_600_000),
+                photo("queued.jpg", 4 * MB, NOW - 3_600_000),
+                photo("failed.jpg", 5 * MB, NOW - 3_600_000),
+                photo("just_taken.jpg", 5 * MB, NOW - 1000));
+
+        PhotoBudget.Plan plan = PhotoBudget.plan(photos, set("queued.jpg"), set("history.jpg"),
+                100 * MB, NOW, GRACE);
+
+        assertEquals(Collections.singletonList("failed.jpg"), plan.orphans);
+        assertTrue(plan.evicted.isEmpty());
+        assertEquals(5 * MB, plan.freedBytes);
+        assertEquals(12 * MB, plan.keptBytes);
+    }
+
+    @Test
+    public void overBudget_evictsLeastRecentlyUsedHistoryPhotos() {
+        List<PhotoBudget.Photo> photos = Arrays.asList(
+                photo("a.jpg", 2 * MB, NOW - 50_000_00),
+                photo("b.jpg", 2 * MB, NOW - 90_000_00),   // 最久没用
+                photo("c.jpg", 2 * MB, NOW - 70_000_00),
+                photo("queued.jpg", 2 * MB, NOW - 99_000_00));
+
+        PhotoBudget.Plan plan = PhotoBudget.plan(photos, set("queued.jpg"), set("a.jpg", "b.jpg", "c.jpg"),
+                5 * MB, NOW, GRACE);
+
+        // 8MB 超预算 3MB：先淘汰 b，再淘汰 c；离线队列的照片再旧也不删
+        assertEquals(Arrays.asList("b.jpg", "c.jpg"), plan.evicted);
+        assertEquals(4 * MB, plan.keptBytes);
+    }
+
+    @Test
+    public void pinnedAndFreshPhotos_mayExceedBudget() {
+        List<PhotoBudget.Photo> photos = Arrays.asList(
+                photo("queued.jpg", 6 * MB, NOW - 3_600_000),
+                photo("fresh.jpg", 6 * MB, NOW));
+
+        PhotoBudget.Plan plan = PhotoBudget.plan(photos, set("queued.jpg"), set("fresh.jpg"),
+                5 * MB, NOW, GRACE);
+
+        assertTrue(plan.isEmpty());
+        assertEquals(12 * MB, plan.keptBytes);
+    }
+
+    private static PhotoBudget.Photo photo(String path, long bytes, long lastUsed) {
+        return new PhotoBudget.Photo(path, bytes, lastUsed);
+    }
+
+    private static Set<String> set(String... paths) {
+        return new HashSet<>(Arrays.asList(paths));
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.scancard;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 生成质量检查 / 卡片检测用的样张（ARGB 像素）：桌面背景上放一张带文字的卡片，
+ * 再在此基础上做模糊、加反光、拿掉卡片，或者把卡片按任意四边形透视贴进画面。
+ * 固定随机种子，结果可复现。
+ */
+final class QualityFixtures {
+
+    static final int WIDTH = 1200;
+    static final int HEIGHT = 760;
+
+    private QualityFixtures() {
+    }
+
+    // 清晰、正常曝光的卡片
+    static int[] goodCard(long seed) {
+        Random r = new Random(seed);
+        int[] px = background(r);
+        int cx0 = WIDTH * 15 / 100, cx1 = WIDTH * 85 / 100;
+        int cy0 = HEIGHT * 18 / 100, cy1 = HEIGHT * 82 / 100;
+        fill(px, cx0, cy0, cx1, cy1, 0xffdfe3e8);
+
+        // 几行“文字”：深色小方块，字宽字距有随机变化
+        for (int line = 0; line < 6; line++) {
+            int y = cy0 + 40 + line * 62;
+            int x = cx0 + 40 + r.nextInt(30);
+            int end = cx1 - 40 - r.nextInt(200);
+            while (x < end) {
+                int w = 10 + r.nextInt(10);
+                fill(px, x, y, Math.min(x + w, end), y + 24, 0xff202428);
+                x += w + 6 + r.nextInt(8);
+            }
+        }
+        addNoise(px, r, 4);
+        return px;
+    }
+
+    // 卡片按 corners（左上、右上、右下、左下）透视贴进画面
+    static int[] cardAt(long seed, float[] corners) {
+        Random r = new Random(seed);
+        int[] px = background(r);
+        int cw = 856, ch = 540;
+        int[] card = cardFace(r, cw, ch);
+        // 画面 -> 卡面的单应矩阵，逐像素反查
+        double[] hm = homography(corners, new float[]{0, 0, cw, 0, cw, ch, 0, ch});
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                double[] uv = apply(hm, x + 0.5, y + 0.5);
+                int u = (int) uv[0], v = (int) uv[1];
+                if (uv[0] >= 0 && uv[1] >= 0 && u < cw && v < ch) px[y * WIDTH + x] = card[v * cw + u];
+            }
+        }
+        addNoise(px, r, 4);
+        return px;
+    }
+
+    /**
+     * 把画面里的 quad 透视校正成 outW x outH（最近邻采样），模拟 App 里的裁剪
+     */
+    static int[] warp(int[] src, int sw, int sh, float[] quad, int outW, int outH) {
+        double[] hm = homography(new float[]{0, 0, outW, 0, outW, outH, 0, outH}, quad);
+        int[] out = new int[outW * outH];
+        for (int y = 0; y < outH; y++) {
+            for (int x = 0; x < outW; x++) {
+                double[] p = apply(hm, x + 0.5, y + 0.5);
+                int sx = Math.min(sw - 1, Math.max(0, (int) p[0]));
+                int sy = Math.min(sh - 1, Math.max(0, (int) p[1]));
+                out[y * outW + x] = src[sy * sw + sx];
+            }
+        }
+        return out;
+    }
+
+    // 浅色卡面 + 几行深色“文字”
+    private static int[] cardFace(Random r, int cw, int ch) {
+        int[] card = new int[cw * ch];
+        Arrays.fill(card, 0xffdfe3e8);
+        for (int line = 0; line < 6; line++) {
+            int y = 50 + line * 78;
+            int x = 50 + r.nextInt(30);
+            int end = cw - 50 - r.nextInt(250);
+            while (x < end) {
+                int w = 12 + r.nextInt(12);
+                for (int yy = y; yy < y + 30; yy++) {
+                    for (int xx = x; xx < Math.min(x + w, end); xx++) card[yy * cw + xx] = 0xff202428;
+                }
+                x += w + 8 + r.nextInt(10);
+            }
+        }
+        return card;
+    }
+
+    // 四对点求单应矩阵（h33 = 1），8 元线性方程组高斯消元
+    static double[] homography(float[] from, float[] to) {
+        double[][] m = new double[8][9];
+        for (int i = 0; i < 4; i++) {
+            double x = from[i * 2], y = from[i * 2 + 1];
+            double u = to[i * 2], v = to[i * 2 + 1];
+            m[i * 2] = new double[]{x, y, 1, 0, 0, 0, -u * x, -u * y, u};
+            m[i * 2 + 1] = new double[]{0, 0, 0, x, y, 1, -v * x, -v * y, v};
+        }
+        for (int col = 0; col < 8; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < 8; row++) {
+                if (Math.abs(m[row][col]) > Math.abs(m[pivot][col])) pivot = row;
+            }
+            double[] t = m[col];
+            m[col] = m[pivot];
+            m[pivot] = t;
+            for (int row = 0; row < 8; row++) {
+                if (row == col) continue;
+                double f = m[row][col] / m[col][col];
+                for (int k = col; k < 9; k++) m[row][k] -= f * m[col][k];
+            }
+        }
+        double[] h = new double[9];
+        for (int i = 0; i < 8; i++) h[i] = m[i][8] / m[i][i];
+        h[8] = 1;
+        return h;
+    }
+
+    static double[] apply(double[] h, double x, double y) {
+        double w = h[6] * x + h[7] * y + h[8];
+        return new double[]{(h[0] * x + h[1] * y + h[2]) / w, (h[3] * x + h[4] * y + h[5]) / w};
+    }
+
+    // 对焦失败 / 手抖：可分离盒式模糊做三遍，近似高斯
+    static int[] blurred(int[] src, int radius) {
+        int[] px = src.clone();
+        for (int pass = 0; pass < 3; pass++) {
+            px = boxBlur(px, radius, true);
+            px = boxBlur(px, radius, false);
+        }
+        return px;
+    }
+
+    // 卡面中央一块椭圆高光，coverage 为占卡片宽度的比例
+    static int[] withGlare(int[] src, double coverage) {
+        int[] px = src.clone();
+        double rx = WIDTH * 0.7 * coverage / 2;
+        double ry = rx * 0.6;
+        double cx = WIDTH / 2.0, cy = HEIGHT / 2.0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                double dx = (x - cx) / rx, dy = (y - cy) / ry;
+                double d = dx * dx + dy * dy;
+                if (d < 1) px[y * WIDTH + x] = 0xffffffff;
+                else if (d < 1.5) px[y * WIDTH + x] = blend(px[y * WIDTH + x], 0xffffffff, (1.5 - d) * 2);
+            }
+        }
+        return px;
+    }
+
+    // 没拍到卡片：只有桌面
+    static int[] emptyTable(long seed) {
+        Random r = new Random(seed);
+        int[] px = background(r);
+        addNoise(px, r, 4);
+        return px;
+    }
+
+    // 木纹色桌面：低频明暗渐变
+    private static int[] background(Random r) {
+        int[] px = new int[WIDTH * HEIGHT];
+        double phase = r.nextDouble() * Math.PI;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int v = (int) (100 + 20 * Math.sin(x / 180.0 + phase) + 10 * Math.cos(y / 140.0));
+                px[y * WIDTH + x] = rgb(v + 30, v + 10, v - 10);
+            }
+        }
+        return px;
+    }
+
+    private static void fill(int[] px, int x0, int y0, int x1, int y1, int color) {
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) px[y * WIDTH + x] = color;
+        }
+    }
+
+    private static void addNoise(int[] px, Random r, int sigma) {
+        for (int i = 0; i < px.length; i++) {
+            int n = (int) Math.round(r.nextGaussian() * sigma);
+            int c = px[i];
+            px[i] = rgb(((c >> 16) & 0xff) + n, ((c >> 8) & 0xff) + n, (c & 0xff) + n);
+        }
+    }
+
+    private static int[] boxBlur(int[] src, int radius, boolean horizontal) {
+        int[] out = new int[src.length];
+        int n = horizontal ? WIDTH : HEIGHT;
+        int lines = horizontal ? HEIGHT : WIDTH;
+        for (int line = 0; line < lines; line++) {
+            for (int i = 0; i < n; i++) {
+                int rs = 0, gs = 0, bs = 0, cnt = 0;
+                for (int k = Math.max(0, i - radius); k <= Math.min(n - 1, i + radius); k++) {
+                    int c = horizontal ? src[line * WIDTH + k] : src[k * WIDTH + line];
+                    rs += (c >> 16) & 0xff;
+                    gs += (c >> 8) & 0xff;
+                    bs += c & 0xff;
+                    cnt++;
+                }
+                out[horizontal ? line * WIDTH + i : i * WIDTH + line] = rgb(rs / cnt, gs / cnt, bs / cnt);
+            }
+        }
+        return out;
+    }
+
+    private static int blend(int a, int b, double t) {
+        t = Math.min(1, Math.max(0, t));
+        int r = (int) (((a >> 16) & 0xff) * (1 - t) + ((b >> 16) & 0xff) * t);
+        int g = (int) (((a >> 8) & 0xff) * (1 - t) + ((b >> 8) & 0xff) * t);
+        int bl = (int) ((a & 0xff) * (1 - t) + (b & 0xff) * t);
+        return rgb(r, g, bl);
+    }
+
+    private static int rgb(int r, int g, int b) {
+        r = Math.min(255, Math.max(0, r));
+        g = Math.min(255, Math.max(0, g));
+        b = Math.min(255, Math.max(0, b));
+        return 0xff000000 | (r << 16) | (g << 8) | b;
+    }
+}
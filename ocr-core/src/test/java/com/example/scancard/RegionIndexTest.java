@@ -0,0 +1,71 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class RegionIndexTest {
+
+    static RegionIndex sample() throws IOException {
+        Map<Integer, String> m = new TreeMap<>();
+        m.put(110000, "北京市");
+        m.put(110100, "市辖区");
+        m.put(110105, "朝阳区");
+        m.put(440000, "广东省");
+        m.put(440100, "广州市");
+        m.put(440106, "天河区");
+        m.put(820000, "澳门特别行政区");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RegionIndex.write(m, out);
+        return RegionIndex.load(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    @Test
+    public void describe_joinsProvinceCityCounty() throws Exception {
+        RegionIndex index = sample();
+        assertEquals(7, index.size());
+        assertEquals("天河区", index.name(440106));
+        assertEquals("广东省 广州市 天河区", index.describe(440106));
+        assertEquals("北京市 市辖区 朝阳区", index.describe(110105));
+        assertEquals("澳门特别行政区", index.describe(820000));
+    }
+
+    @Test
+    public void unknownCounty_stopsAtKnownLevel() throws Exception {
+        RegionIndex index = sample();
+        // 表里没有的区县（旧代码或表不全）只返回到地市
+        assertEquals("广东省 广州市", index.describe(440199));
+        assertEquals("广东省", index.describe(449999));
+        assertNull(index.describe(990101));
+        assertNull(index.name(440107));
+    }
+
+    @Test
+    public void readCsv_skipsCommentsAndRejectsDuplicates() throws Exception {
+        Map<Integer, String> m = RegionIndex.readCsv(new BufferedReader(new StringReader(
+                "# 注释\n110000,北京市\n\n440106, 天河区\n")));
+        assertEquals(2, m.size());
+        assertEquals("天河区", m.get(440106));
+
+        try {
+            RegionIndex.readCsv(new BufferedReader(new StringReader("110000,北京市\n110000,北京\n")));
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void load_rejectsOtherFiles() throws Exception {
+        RegionIndex.load(ByteBuffer.wrap(new byte[]{'B', 'I', 'N', '1', 0, 0, 0, 0}));
+    }
+}
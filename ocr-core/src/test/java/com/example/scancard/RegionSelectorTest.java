@@ -0,0 +1,95 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RegionSelectorTest {
+
+    private static final String GZ = "ap-guangzhou";
+    private static final String SH = "ap-shanghai";
+    private static final String BJ = "ap-beijing";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final RegionSelector.Settings settings = new RegionSelector.Settings();
+    private final RegionSelector selector =
+            new RegionSelector(Arrays.asList(GZ, SH, BJ), settings, now::get);
+
+    @Test
+    public void unmeasured_usesConfiguredOrder() {
+        assertEquals(GZ, selector.pick());
+        assertEquals(Arrays.asList(GZ, SH, BJ), selector.dueForProbe());
+        assertTrue(selector.dueForProbe().isEmpty());
+    }
+
+    @Test
+    public void picksFastestProbedRegion() {
+        selector.recordProbe(GZ, 120);
+        selector.recordProbe(SH, 80);
+        selector.recordProbe(BJ, 30);
+        assertEquals(BJ, selector.pick());
+    }
+
+    @Test
+    public void staysOnCurrentRegion_unlessClearlyFaster() {
+        selector.recordProbe(GZ, 50);
+        selector.recordProbe(SH, 60);
+        assertEquals(GZ, selector.pick());
+
+        // 快了 10ms，不到切换门槛
+        selector.recordProbe(SH, 10);      // 平均后约 45ms
+        assertEquals(GZ, selector.pick());
+
+        for (int i = 0; i < 10; i++) selector.recordProbe(SH, 10);
+        assertEquals(SH, selector.pick());
+    }
+
+    @Test
+    public void consecutiveFailures_cooldownThenReprobe() {
+        selector.recordProbe(GZ, 30);
+        selector.recordProbe(SH, 90);
+        selector.dueForProbe();
+        assertEquals(GZ, selector.pick());
+
+        selector.recordFailure(GZ);
+        selector.recordFailure(GZ);
+        assertEquals(SH, selector.pick());
+        assertTrue(selector.dueForProbe().isEmpty());
+
+        now.addAndGet(settings.cooldownMs);
+        assertEquals(Collections.singletonList(GZ), selector.dueForProbe());
+        selector.recordProbe(GZ, 30);
+        selector.recordSuccess(GZ, 400);
+        // 出错率还没降下来：30 + 惩罚仍比上海慢
+        assertEquals(SH, selector.pick());
+        for (int i = 0; i < 20; i++) selector.recordSuccess(GZ, 400);
+        assertEquals(GZ, selector.pick());
+    }
+
+    @Test
+    public void exclude_skipsRegion_butFallsBackWhenNothingElse() {
+        selector.recordProbe(GZ, 30);
+        selector.recordProbe(SH, 90);
+        assertEquals(SH, selector.pick(Collections.singleton(GZ)));
+
+        RegionSelector single = new RegionSelector(Collections.singletonList(GZ), settings, now::get);
+        assertEquals(GZ, single.pick(Collections.singleton(GZ)));
+    }
+
+    @Test
+    public void allCoolingDown_picksSoonestToRecover() {
+        selector.recordFailure(SH);
+        selector.recordFailure(SH);
+        now.addAndGet(1000);
+        selector.recordFailure(GZ);
+        selector.recordFailure(GZ);
+        selector.recordFailure(BJ);
+        selector.recordFailure(BJ);
+        assertEquals(SH, selector.pick());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ReusePoolTest {
+
+    private final List<String> recycled = new ArrayList<>();
+    private final ReusePool<String> pool = new ReusePool<>(100, recycled::add);
+
+    @Test
+    public void take_returnsSmallestThatFits() {
+        pool.put("big", 50);
+        pool.put("small", 20);
+        pool.put("mid", 30);
+
+        assertSame("mid", pool.take(25));
+        assertSame("big", pool.take(25));
+        assertEquals(1, pool.size());
+        assertEquals(20, pool.totalBytes());
+        assertEquals(2, pool.hits());
+    }
+
+    @Test
+    public void take_skipsTooSmallAndFarTooBig() {
+        pool.put("huge", 90);
+        assertNull(pool.take(10));       // 90 > 10 * MAX_OVERSIZE
+        assertNull(pool.take(95));
+        assertEquals(2, pool.misses());
+        assertSame("huge", pool.take(30));
+    }
+
+    @Test
+    public void put_overBudgetEvictsOldestFirst() {
+        pool.put("a", 40);
+        pool.put("b", 40);
+        pool.put("c", 40);
+
+        assertEquals(Arrays.asList("a"), recycled);
+        assertEquals(80, pool.totalBytes());
+
+        pool.put("giant", 200);         // 单个就超预算：直接释放，不挤掉别的
+        assertEquals(Arrays.asList("a", "giant"), recycled);
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void clear_recyclesEverything() {
+        pool.put("a", 10);
+        pool.put("b", 10);
+        pool.clear();
+        assertTrue(recycled.containsAll(Arrays.asList("a", "b")));
+        assertEquals(0, pool.totalBytes());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.scancard;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScanMetricsTest {
+
+    @Test
+    public void percentiles_nearestRank() {
+        RollingHistogram h = new RollingHistogram(1000);
+        for (int i = 1; i <= 100; i++) h.record(i);
+
+        RollingHistogram.Snapshot s = h.snapshot();
+        assertEquals(100, s.count);
+        assertEquals(1, s.min);
+        assertEquals(50, s.p50);
+        assertEquals(95, s.p95);
+        assertEquals(99, s.p99);
+        assertEquals(100, s.max);
+        assertEquals(50.5, s.mean, 1e-9);
+    }
+
+    @Test
+    public void window_keepsOnlyRecentSamples() {
+        RollingHistogram h = new RollingHistogram(10);
+        for (int i = 0; i < 10; i++) h.record(1_000);
+        for (int i = 0; i < 10; i++) h.record(5);
+
+        RollingHistogram.Snapshot s = h.snapshot();
+        assertEquals(20, s.count);
+        assertEquals(10, s.windowSize);
+        assertEquals(5, s.max);
+
+        assertEquals(0, new RollingHistogram(4).snapshot().p99);
+    }
+
+    @Test
+    public void json_export() throws Exception {
+        ScanMetrics m = new ScanMetrics(64);
+        m.recordNanos(ScanMetrics.DECODE, 12_000_000);
+        m.recordNanos(ScanMetrics.DECODE, 18_000_000);
+        m.recordNanos(ScanMetrics.NET_WAIT, 250_000_000);
+        m.recordBytes(ScanMetrics.BYTES_REQUEST, 400_000);
+
+        JSONObject json = new JSONObject(m.toJson());
+        JSONObject decode = json.getJSONObject("timingsMs").getJSONObject("decode");
+        assertEquals(2, decode.getLong("count"));
+        assertEquals(12.0, decode.getDouble("p50"), 1e-9);
+        assertEquals(18.0, decode.getDouble("max"), 1e-9);
+        assertEquals(250.0, json.getJSONObject("timingsMs").getJSONObject("net.wait").getDouble("p99"), 1e-9);
+        assertEquals(400_000, json.getJSONObject("bytes").getJSONObject("request").getLong("p50"));
+
+        String text = m.formatText();
+        assertTrue(text, text.indexOf("decode") < text.indexOf("net.wait"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.scancard;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertEquals;
+
+public class Tc3SignerTest {
+
+    // 腾讯云 API 3.0 签名文档中的示例（CVM DescribeInstances）
+    private static final String DOC_PAYLOAD =
+            "{\"Limit\": 1, \"Filters\": [{\"Values\": [\"\\u672a\\u547d\\u540d\"], \"Name\": \"instance-name\"}]}";
+    private static final long DOC_TIMESTAMP = 1551113065L;
+
+    @Test
+    public void payloadHash_matchesPublishedVector() {
+        assertEquals("35e9c5b0e3ae67532d3c9f17ead6c90222632e5b1ff7f6e89887f1398934f064",
+                Tc3Signer.sha256Hex(DOC_PAYLOAD));
+    }
+
+    @Test
+    public void stringToSign_matchesPublishedVector() {
+        String expected = "TC3-HMAC-SHA256\n" +
+                "1551113065\n" +
+                "2019-02-25/cvm/tc3_request\n" +
+                "7019a55be8395899b900fb5564e4200d984910f34794a27cb3fb7d10ff6a1e84";
+        String actual = Tc3Signer.stringToSign("cvm.tencentcloudapi.com", "DescribeInstances",
+                Tc3Signer.sha256Hex(DOC_PAYLOAD), DOC_TIMESTAMP, "2019-02-25/cvm/tc3_request");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void utcDate_matchesSimpleDateFormat() {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        // 1970 ~ 2100，覆盖闰年和世纪年
+        for (long day = 0; day < 47482; day += 13) {
+            assertEquals(sdf.format(new Date(day * 86400_000L)), Tc3Signer.toUtcDate(day));
+        }
+        assertEquals("2000-02-29", Tc3Signer.toUtcDate(11016));
+    }
+
+    @Test
+    public void sign_sameAsUncachedReference_acrossDays() throws Exception {
+        Tc3Signer signer = new Tc3Signer("AKIDtest", "secret-key", "ocr");
+        String payload = "{\"ImageBase64\":\"/9j/4AAQ\",\"CardSide\":\"FRONT\"}";
+        long[] timestamps = {DOC_TIMESTAMP, DOC_TIMESTAMP + 10, DOC_TIMESTAMP + 86400, DOC_TIMESTAMP};
+        for (long ts : timestamps) {
+            assertEquals(reference("AKIDtest", "secret-key", "ocr", "ocr.tencentcloudapi.com",
+                            "IDCardOCR", payload, ts),
+                    signer.sign("ocr.tencentcloudapi.com", "IDCardOCR", payload, ts));
+        }
+    }
+
+    @Test
+    public void bytesToHex_padsEachByte() {
+        assertEquals("00017f80ff", Tc3Signer.bytesToHex(new byte[]{0, 1, 0x7f, (byte) 0x80, (byte) 0xff}));
+    }
+
+    // 按文档逐步计算的原始实现，用来对照缓存版本
+    private static String reference(String secretId, String secretKey, String service, String host,
+                                    String action, String payload, long timestamp) throws Exception {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String date = sdf.format(new Date(timestamp * 1000));
+
+        String canonicalRequest = "POST\n/\n\n" +
+                "content-type:application/json; charset=utf-8\n" +
+                "host:" + host + "\n" +
+                "x-tc-action:" + action.toLowerCase() + "\n\n" +
+                "content-type;host;x-tc-action\n" +
+                Tc3Signer.sha256Hex(payload);
+        String scope = date + "/" + service + "/tc3_request";
+        String stringToSign = "TC3-HMAC-SHA256\n" + timestamp + "\n" + scope + "\n" +
+                Tc3Signer.sha256Hex(canonicalRequest);
+
+        byte[] k = hmac(("TC3" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        k = hmac(k, service);
+        k = hmac(k, "tc3_request");
+        String signature = Tc3Signer.bytesToHex(hmac(k, stringToSign));
+
+        return "TC3-HMAC-SHA256 Credential=" + secretId + "/" + scope +
+                ", SignedHeaders=content-type;host;x-tc-action, Signature=" + signature;
+    }
+
+    private static byte[] hmac(byte[] key, String msg) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(msg.getBytes(StandardCharsets.UTF_8));
+    }
+}